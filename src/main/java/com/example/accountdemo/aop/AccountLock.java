@@ -7,5 +7,25 @@ import java.lang.annotation.*;
 @Documented
 @Inherited
 public @interface AccountLock {
-    long tryLockTime() default 5000L;
+    // 락 획득 대기 시간(ms), adaptive 인 경우 최대 대기 시간
+    long tryLockTime() default 1000L;
+
+    // 락 임대 시간(ms), 이 시간이 지나면 분산 락이 자동으로 풀린다.
+    // 늦게 도착한 쓰기는 펜싱 토큰으로 거절되므로 짧게 잡는다.
+    long leaseTime() default 5000L;
+
+    // 분산 락을 요청 순서대로 넘겨줄지 여부
+    boolean fair() default false;
+
+    // 획득 실패 시 재시도 횟수와 첫 재시도 전 대기 시간(ms), 재시도마다 두 배로 늘어난다.
+    int retryCount() default 0;
+
+    long retryBackoff() default 100L;
+
+    // 관측된 락 점유 시간으로 대기 시간을 정한다.
+    boolean adaptive() default false;
+
+    // 같은 이름을 준 메서드끼리 락 정책과 점유 시간 통계를 함께 쓴다. 비어 있으면 메서드마다 따로 쓴다.
+    // 함께 쓰는 메서드는 나머지 속성도 같아야 한다.
+    String policy() default "";
 }
@@ -0,0 +1,51 @@
+package com.example.accountdemo.aop;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 현재 스레드가 잡고 있는 계좌 락의 펜싱 토큰
+ * 락을 잡은 스레드에서 서비스가 토큰을 꺼내 계좌 행에 함께 기록한다.
+ * DB 락 백엔드를 쓰면 토큰 대신 계좌 행을 잠그고 읽어야 한다는 표시를 남긴다.
+ */
+public final class AccountLockContext {
+    private static final ThreadLocal<Map<String, Long>> FENCING_TOKENS =
+            ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Set<String>> ROW_LOCKS =
+            ThreadLocal.withInitial(HashSet::new);
+
+    private AccountLockContext() {
+    }
+
+    public static void setFencingToken(String accountNumber, long fencingToken) {
+        FENCING_TOKENS.get().put(accountNumber, fencingToken);
+    }
+
+    public static Optional<Long> getFencingToken(String accountNumber) {
+        return Optional.ofNullable(FENCING_TOKENS.get().get(accountNumber));
+    }
+
+    public static void requireRowLock(String accountNumber) {
+        ROW_LOCKS.get().add(accountNumber);
+    }
+
+    public static boolean isRowLockRequired(String accountNumber) {
+        return ROW_LOCKS.get().contains(accountNumber);
+    }
+
+    public static void clear(String accountNumber) {
+        Map<String, Long> fencingTokens = FENCING_TOKENS.get();
+        fencingTokens.remove(accountNumber);
+        if (fencingTokens.isEmpty()) {
+            FENCING_TOKENS.remove();
+        }
+        Set<String> rowLocks = ROW_LOCKS.get();
+        rowLocks.remove(accountNumber);
+        if (rowLocks.isEmpty()) {
+            ROW_LOCKS.remove();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.accountdemo.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * Idempotency-Key 헤더가 있으면 같은 키의 재요청에 저장해 둔 응답을 돌려준다.
+ * 메서드의 두 번째 인자가 멱등 키여야 한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface Idempotent {
+    String HEADER = "Idempotency-Key";
+
+    // 같은 키라도 사용과 취소는 따로 저장한다.
+    String value();
+}
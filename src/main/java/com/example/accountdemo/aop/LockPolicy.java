@@ -0,0 +1,71 @@
+package com.example.accountdemo.aop;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @AccountLock 속성으로 만든 락 정책
+ * adaptive 정책은 점유 시간의 지수 이동 평균을 기록해 두고
+ * 앞선 요청 몇 개가 끝날 만큼만 기다리도록 대기 시간을 줄인다.
+ */
+@Getter
+@Builder
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class LockPolicy {
+    public static final LockPolicy DEFAULT = LockPolicy.builder()
+            .waitTime(1000L)
+            .leaseTime(5000L)
+            .build();
+
+    private static final long MIN_ADAPTIVE_WAIT_MILLIS = 50L;
+    private static final long ADAPTIVE_WAIT_FACTOR = 4L;
+    private static final long MAX_BACKOFF_MILLIS = 2000L;
+
+    private final long waitTime;
+    private final long leaseTime;
+    private final boolean fair;
+    private final int retryCount;
+    private final long retryBackoff;
+    private final boolean adaptive;
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong averageHoldNanos = new AtomicLong();
+
+    public static LockPolicy from(AccountLock accountLock) {
+        return LockPolicy.builder()
+                .waitTime(accountLock.tryLockTime())
+                .leaseTime(accountLock.leaseTime())
+                .fair(accountLock.fair())
+                .retryCount(accountLock.retryCount())
+                .retryBackoff(accountLock.retryBackoff())
+                .adaptive(accountLock.adaptive())
+                .build();
+    }
+
+    public long getEffectiveWaitTime() {
+        long averageHoldMillis = TimeUnit.NANOSECONDS.toMillis(averageHoldNanos.get());
+        if (!adaptive || averageHoldMillis == 0L) {
+            return waitTime;
+        }
+        long adaptiveWait = Math.max(MIN_ADAPTIVE_WAIT_MILLIS, averageHoldMillis * ADAPTIVE_WAIT_FACTOR);
+        return Math.min(waitTime, adaptiveWait);
+    }
+
+    public long getBackoff(int attempt) {
+        return Math.min(MAX_BACKOFF_MILLIS, retryBackoff << Math.min(attempt, 16));
+    }
+
+    public void recordHoldTime(long holdNanos) {
+        if (!adaptive) {
+            return;
+        }
+        // 새 값에 1/8 가중치를 주는 이동 평균
+        averageHoldNanos.accumulateAndGet(holdNanos,
+                (average, sample) -> average == 0L ? sample : average + ((sample - average) >> 3));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.accountdemo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 비동기 거래 API 에서 락을 얻은 뒤 DB 작업을 실행하는 스레드 풀
+ * 락을 기다리는 동안에는 이 풀의 스레드도, 요청 스레드도 점유하지 않는다.
+ */
+@Configuration
+public class AsyncConfig {
+    @Value("${account.transaction.executor.pool-size:16}")
+    private int poolSize;
+
+    @Value("${account.transaction.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor transactionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("transaction-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.accountdemo.config;
+
+import com.example.accountdemo.type.AccountTier;
+import com.example.accountdemo.type.ConcurrencyMode;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 계좌 등급별 동시성 제어 방식
+ * account.concurrency.modes.STANDARD=OPTIMISTIC 처럼 등급마다 지정하고
+ * 지정하지 않은 등급은 default-mode 를 따른다.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "account.concurrency")
+public class ConcurrencyProperties {
+    private ConcurrencyMode defaultMode = ConcurrencyMode.LOCK;
+    private Map<AccountTier, ConcurrencyMode> modes = new EnumMap<>(AccountTier.class);
+
+    // 낙관적 락 충돌 시 최대 시도 횟수와 첫 재시도 전 대기 시간(ms)
+    private int optimisticMaxAttempts = 3;
+    private long optimisticBackoff = 10L;
+
+    public ConcurrencyMode getMode(AccountTier accountTier) {
+        return modes.getOrDefault(accountTier, defaultMode);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.accountdemo.config;
+
+import com.example.accountdemo.exception.AccountException;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import static com.example.accountdemo.type.ErrorCode.EXPORT_SATURATED;
+
+/**
+ * 거래 내역 내보내기(StreamingResponseBody)를 응답에 쓰는 스레드 풀과 응답 제한 시간
+ * 내보내기는 요청 스레드를 반환한 뒤 이 풀에서 DB 커서를 읽으며 바로 응답에 쓴다.
+ * 큰 계좌도 끝까지 내보낼 수 있게 제한 시간을 길게 두되, 내보내기 요청에만 적용한다.
+ * 대기열이 가득 차면 받지 않고 EXPORT_SATURATED 로 응답한다.
+ * transactionExecutor 와 같은 타입이므로 풀은 빈으로 등록하지 않는다.
+ */
+@Component
+public class ExportAsyncSupport {
+    private final ThreadPoolTaskExecutor exportExecutor = new ThreadPoolTaskExecutor();
+    private final long timeout;
+
+    public ExportAsyncSupport(
+            @Value("${account.export.pool-size:4}") int poolSize,
+            @Value("${account.export.queue-capacity:16}") int queueCapacity,
+            @Value("${account.export.timeout:600000}") long timeout
+    ) {
+        exportExecutor.setCorePoolSize(poolSize);
+        exportExecutor.setMaxPoolSize(poolSize);
+        exportExecutor.setQueueCapacity(queueCapacity);
+        exportExecutor.setThreadNamePrefix("export-");
+        exportExecutor.setRejectedExecutionHandler((task, executor) -> {
+            throw new AccountException(EXPORT_SATURATED);
+        });
+        exportExecutor.initialize();
+        this.timeout = timeout;
+    }
+
+    /**
+     * 이 요청의 비동기 응답만 내보내기 풀과 제한 시간으로 처리하게 한다.
+     * 핸들러 어댑터가 요청마다 기본값을 채운 뒤 컨트롤러를 부르므로 컨트롤러에서 부른다.
+     */
+    public void apply(HttpServletRequest request, HttpServletResponse response) {
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.createAsyncWebRequest(request, response);
+        asyncWebRequest.setTimeout(timeout);
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setTaskExecutor(exportExecutor);
+        asyncManager.setAsyncWebRequest(asyncWebRequest);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdown();
+    }
+}
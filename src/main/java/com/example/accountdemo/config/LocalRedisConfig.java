@@ -3,10 +3,12 @@ package com.example.accountdemo.config;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import redis.embedded.RedisServer;
 
 @Configuration
+@ConditionalOnProperty(prefix = "account.lock", name = "backend", havingValue = "redis", matchIfMissing = true)
 public class LocalRedisConfig {
     @Value("${spring.data.redis.port}")
     private int redisPort;
@@ -1,20 +1,49 @@
 package com.example.accountdemo.controller;
 
-import com.example.accountdemo.domain.Account;
+import com.example.accountdemo.aop.AccountLock;
+import com.example.accountdemo.config.ExportAsyncSupport;
+import com.example.accountdemo.dto.AccountDetail;
 import com.example.accountdemo.dto.AccountInfo;
 import com.example.accountdemo.dto.CreateAccount;
+import com.example.accountdemo.dto.DailyRollupDto;
 import com.example.accountdemo.dto.DeleteAccount;
+import com.example.accountdemo.dto.SlotAccount;
+import com.example.accountdemo.dto.TransactionHistory;
+import com.example.accountdemo.service.AccountQueryService;
 import com.example.accountdemo.service.AccountService;
+import com.example.accountdemo.service.AccountSlotService;
+import com.example.accountdemo.service.DailyRollupService;
+import com.example.accountdemo.service.TransactionExportService;
+import com.example.accountdemo.service.TransactionService;
+import com.example.accountdemo.type.ExportFormat;
+import com.example.accountdemo.validation.AccountNumber;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
+// 경로의 계좌번호도 형식을 먼저 검사한다.
+@Validated
 @RestController
 @RequiredArgsConstructor
 public class AccountController {
     private final AccountService accountService;
+    private final AccountQueryService accountQueryService;
+    private final AccountSlotService accountSlotService;
+    private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
+    private final DailyRollupService dailyRollupService;
+    private final ExportAsyncSupport exportAsyncSupport;
 
     @PostMapping("/account")
     public CreateAccount.Response createAccount(
@@ -38,20 +67,66 @@ public class AccountController {
         );
     }
 
+    @PostMapping("/account/slots")
+    @AccountLock
+    public SlotAccount.Response enableSlots(
+            @RequestBody @Valid SlotAccount.Request request
+    ) {
+        return SlotAccount.Response.from(
+                accountSlotService.enableSlots(
+                        request.getUserId(),
+                        request.getAccountNumber(),
+                        request.getSlotCount())
+        );
+    }
+
     @GetMapping("/account")
     public List<AccountInfo> getAccountsByUserId(
             @RequestParam("user_id") Long userId
     ) {
-       return accountService.getAccountByUserId(userId)
-               .stream().map(accountDto -> AccountInfo.builder()
-                       .accountNumber(accountDto.getAccountNumber())
-                       .balance(accountDto.getBalance())
-                       .build())
-               .collect(Collectors.toList());
+        return accountQueryService.getAccountsByUserId(userId);
+    }
+
+    // 최근 거래부터, 다음 페이지는 응답의 nextCursor 를 cursor 로 넘긴다.
+    @GetMapping("/account/{accountNumber}/transactions")
+    public TransactionHistory.Response getTransactionHistory(
+            @PathVariable @AccountNumber String accountNumber,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        return transactionService.getTransactionHistory(accountNumber, cursor, size);
+    }
+
+    // 감사용 전체 거래 내역, 오래된 거래부터 format(NDJSON, CSV) 으로 내려받는다.
+    // 응답은 내보내기 전용 풀에서 내보내기 제한 시간 안에 쓴다.
+    @GetMapping("/account/{accountNumber}/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @PathVariable @AccountNumber String accountNumber,
+            @RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) {
+        Long accountId = transactionExportService.getAccountId(accountNumber);
+        exportAsyncSupport.apply(request, response);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + accountNumber + "." + format.getExtension() + "\"")
+                .body(outputStream -> transactionExportService.export(accountId, format, outputStream));
+    }
+
+    // 대시보드용 일별 거래 종류, 결과별 건수와 금액 합계, from ~ to 는 최대 366일
+    @GetMapping("/account/{accountNumber}/rollups")
+    public List<DailyRollupDto> getDailyRollups(
+            @PathVariable @AccountNumber String accountNumber,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return dailyRollupService.getRollups(accountNumber, from, to);
     }
 
     @GetMapping("/account/{id}")
-    public Account getAccount(@PathVariable Long id) {
-        return accountService.getAccount(id);
+    public AccountDetail getAccount(@PathVariable Long id) {
+        return accountQueryService.getAccount(id);
     }
 }
@@ -0,0 +1,50 @@
+package com.example.accountdemo.controller;
+
+import com.example.accountdemo.dto.FailedTransactionQueueStatus;
+import com.example.accountdemo.dto.LaneStatus;
+import com.example.accountdemo.dto.LockMetricsInfo;
+import com.example.accountdemo.service.AccountLaneExecutor;
+import com.example.accountdemo.service.FailedTransactionRecorder;
+import com.example.accountdemo.service.LockMetrics;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 운영 지표 조회
+ * 1. 계좌 레인별 대기열 깊이
+ * 2. 계좌 락 대기/점유/실패 시간 분포와 경합 상위 계좌
+ * 3. 실패 거래 저장 대기열 깊이와 버린 기록 수
+ */
+@RestController
+@Validated
+@RequiredArgsConstructor
+public class MetricsController {
+    private final AccountLaneExecutor accountLaneExecutor;
+    private final LockMetrics lockMetrics;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+
+    @GetMapping("/metrics/lanes")
+    public List<LaneStatus> getLaneStatuses() {
+        return accountLaneExecutor.getLaneStatuses();
+    }
+
+    @GetMapping("/metrics/locks")
+    public LockMetricsInfo getLockMetrics(
+            @RequestParam(value = "top", defaultValue = "20")
+            @Min(1) @Max(LockMetrics.HOT_ACCOUNT_CAPACITY) int top
+    ) {
+        return lockMetrics.snapshot(top);
+    }
+
+    @GetMapping("/metrics/failed-transactions")
+    public FailedTransactionQueueStatus getFailedTransactionQueueStatus() {
+        return failedTransactionRecorder.getStatus();
+    }
+}
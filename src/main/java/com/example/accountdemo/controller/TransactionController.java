@@ -1,21 +1,36 @@
 package com.example.accountdemo.controller;
 
 import com.example.accountdemo.aop.AccountLock;
+import com.example.accountdemo.aop.Idempotent;
+import com.example.accountdemo.dto.AuthorizeBalance;
 import com.example.accountdemo.dto.CancelBalance;
 import com.example.accountdemo.dto.QueryTransactionResponse;
+import com.example.accountdemo.dto.SettleHold;
+import com.example.accountdemo.dto.TransferBalance;
 import com.example.accountdemo.dto.UseBalance;
+import com.example.accountdemo.dto.UseBalanceBatch;
 import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.service.FailedTransactionRecorder;
+import com.example.accountdemo.service.TransactionBatchService;
 import com.example.accountdemo.service.TransactionService;
+import com.example.accountdemo.service.TransferService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 잔액 관련 컨트롤러
  * 1. 잔액 사용
  * 2. 잔액 사용 취소
  * 3. 거래 확인
+ * 4. 잔액 사용 배치
+ * 5. 승인(홀드) 후 확정 또는 취소
+ * 6. 계좌 간 이체
+ * 비동기(/async) API 는 락을 기다리는 동안 요청 스레드를 반환한다.
+ * 사용, 취소는 Idempotency-Key 헤더로 재요청 시 처리한 응답을 그대로 돌려준다.
  */
 
 @Slf4j
@@ -23,12 +38,148 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class TransactionController {
     private final TransactionService transactionService;
+    private final TransactionBatchService transactionBatchService;
+    private final TransferService transferService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
 
+    // 결제는 응답 시간이 중요하므로 실제 점유 시간에 맞춰 짧게 기다린다.
     @PostMapping("/transaction/use")
-    @AccountLock
+    @Idempotent("USE")
+    @AccountLock(adaptive = true, policy = "use")
     public UseBalance.Response useBalance(
-            @Valid @RequestBody UseBalance.Request request
+            @Valid @RequestBody UseBalance.Request request,
+            @RequestHeader(value = Idempotent.HEADER, required = false) String idempotencyKey
     ) throws InterruptedException {
+        return useBalanceAndRecordFailure(request);
+    }
+
+    // 락 정책은 이름(use)으로 /transaction/use 와 함께 쓰고, 본문은 락을 얻은 뒤 LockAopAspect 가 다른 스레드에서 실행한다.
+    @PostMapping("/transaction/use/async")
+    @Idempotent("USE")
+    @AccountLock(adaptive = true, policy = "use")
+    public CompletableFuture<UseBalance.Response> useBalanceAsync(
+            @Valid @RequestBody UseBalance.Request request,
+            @RequestHeader(value = Idempotent.HEADER, required = false) String idempotencyKey
+    ) {
+        return CompletableFuture.completedFuture(useBalanceAndRecordFailure(request));
+    }
+
+    // 계좌별로 묶어 락과 트랜잭션을 한 번씩만 사용한다. 락은 서비스에서 계좌의 동시성 제어 방식대로 잡는다.
+    @PostMapping("/transaction/use/batch")
+    public UseBalanceBatch.Response useBalanceBatch(
+            @Valid @RequestBody UseBalanceBatch.Request request
+    ) {
+        return UseBalanceBatch.Response.from(
+                transactionBatchService.useBalanceBatch(request.getItems())
+        );
+    }
+
+    // 두 계좌의 락은 서비스에서 정해진 순서로 함께 잡는다.
+    @PostMapping("/transaction/transfer")
+    @Idempotent("TRANSFER")
+    public TransferBalance.Response transferBalance(
+            @Valid @RequestBody TransferBalance.Request request,
+            @RequestHeader(value = Idempotent.HEADER, required = false) String idempotencyKey
+    ) {
+        try {
+            return TransferBalance.Response.from(
+                    transferService.transferBalance(
+                            request.getUserId(),
+                            request.getFromAccountNumber(),
+                            request.getToAccountNumber(),
+                            request.getAmount()
+                    ),
+                    request.getToAccountNumber()
+            );
+        } catch (AccountException e) {
+            log.error("Failed to transfer balance");
+
+            failedTransactionRecorder.recordTransfer(
+                    request.getFromAccountNumber(),
+                    request.getAmount()
+            );
+            log.error(e.getErrorMessage());
+            throw e;
+        }
+    }
+
+    // 결제 승인, 잔액은 그대로 두고 사용 가능 잔액만 줄인다.
+    @PostMapping("/transaction/authorize")
+    @AccountLock(adaptive = true)
+    public AuthorizeBalance.Response authorizeBalance(
+            @Valid @RequestBody AuthorizeBalance.Request request
+    ) {
+        return AuthorizeBalance.Response.from(
+                transactionService.authorizeBalance(
+                        request.getUserId(),
+                        request.getAccountNumber(),
+                        request.getAmount()
+                )
+        );
+    }
+
+    // 승인한 금액을 사용 거래로 확정
+    @PostMapping("/transaction/capture")
+    @AccountLock(adaptive = true)
+    public UseBalance.Response captureHold(
+            @Valid @RequestBody SettleHold.Request request
+    ) {
+        return UseBalance.Response.from(
+                transactionService.captureHold(
+                        request.getHoldId(),
+                        request.getUserId(),
+                        request.getAccountNumber()
+                )
+        );
+    }
+
+    // 승인 취소, DB 에 남긴 것이 없으므로 홀드만 푼다.
+    @PostMapping("/transaction/void")
+    @AccountLock(adaptive = true)
+    public AuthorizeBalance.Response voidHold(
+            @Valid @RequestBody SettleHold.Request request
+    ) {
+        return AuthorizeBalance.Response.from(
+                transactionService.voidHold(
+                        request.getHoldId(),
+                        request.getUserId(),
+                        request.getAccountNumber()
+                )
+        );
+    }
+
+    // 취소는 늦더라도 처리되어야 하므로 순서대로 오래 기다리고 재시도한다.
+    @PostMapping("/transaction/cancel")
+    @Idempotent("CANCEL")
+    @AccountLock(tryLockTime = 5000L, fair = true, retryCount = 2, policy = "cancel")
+    public CancelBalance.Response cancelBalance(
+            @Valid @RequestBody CancelBalance.Request request,
+            @RequestHeader(value = Idempotent.HEADER, required = false) String idempotencyKey
+    ) {
+        return cancelBalanceAndRecordFailure(request);
+    }
+
+    @PostMapping("/transaction/cancel/async")
+    @Idempotent("CANCEL")
+    @AccountLock(tryLockTime = 5000L, fair = true, retryCount = 2, policy = "cancel")
+    public CompletableFuture<CancelBalance.Response> cancelBalanceAsync(
+            @Valid @RequestBody CancelBalance.Request request,
+            @RequestHeader(value = Idempotent.HEADER, required = false) String idempotencyKey
+    ) {
+        return CompletableFuture.completedFuture(cancelBalanceAndRecordFailure(request));
+    }
+
+    @GetMapping("/transaction/{transactionId}")
+    public QueryTransactionResponse queryTransaction(
+            @PathVariable String transactionId
+    ) {
+        return QueryTransactionResponse.from(
+                transactionService.queryTransaction(transactionId
+                )
+        );
+    }
+
+    private UseBalance.Response useBalanceAndRecordFailure(UseBalance.Request request) {
         try {
             return UseBalance.Response.from(
                     transactionService.useBalance(
@@ -40,7 +191,7 @@ public class TransactionController {
         } catch (AccountException e) {
             log.error("Failed to use balance");
 
-            transactionService.saveFailedUseTransaction(
+            failedTransactionRecorder.recordUse(
                     request.getAccountNumber(),
                     request.getAmount()
             );
@@ -49,11 +200,7 @@ public class TransactionController {
         }
     }
 
-    @PostMapping("/transaction/cancel")
-    @AccountLock
-    public CancelBalance.Response cancelBalance(
-            @Valid @RequestBody CancelBalance.Request request
-    ) {
+    private CancelBalance.Response cancelBalanceAndRecordFailure(CancelBalance.Request request) {
         try {
             return CancelBalance.Response.from(
                     transactionService.cancelBalance(
@@ -65,7 +212,7 @@ public class TransactionController {
         } catch (AccountException e) {
             log.error("Failed to use balance");
 
-            transactionService.saveFailedCancelTransaction(
+            failedTransactionRecorder.recordCancel(
                     request.getAccountNumber(),
                     request.getAmount()
             );
@@ -73,14 +220,4 @@ public class TransactionController {
             throw e;
         }
     }
-
-    @GetMapping("/transaction/{transactionId}")
-    public QueryTransactionResponse queryTransaction(
-            @PathVariable String transactionId
-    ) {
-        return QueryTransactionResponse.from(
-                transactionService.queryTransaction(transactionId
-                )
-        );
-    }
 }
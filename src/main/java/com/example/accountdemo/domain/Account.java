@@ -2,11 +2,15 @@ package com.example.accountdemo.domain;
 
 import com.example.accountdemo.exception.AccountException;
 import com.example.accountdemo.type.AccountStatus;
+import com.example.accountdemo.type.AccountTier;
 import com.example.accountdemo.type.ErrorCode;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -17,6 +21,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        // 발급기가 조회 없이 번호를 주므로 중복은 여기서 막는다.
+        @Index(name = "idx_account_account_number", columnList = "account_number", unique = true)
+})
 public class Account extends BaseEntity {
 
     @ManyToOne
@@ -27,9 +35,27 @@ public class Account extends BaseEntity {
     private AccountStatus accountStatus;
     private Long balance;
 
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private AccountTier accountTier = AccountTier.STANDARD;
+
+    // 낙관적 락(OPTIMISTIC 모드)에서 동시 수정 감지
+    @Version
+    private Long version;
+
+    // 마지막으로 이 계좌를 수정한 락의 펜싱 토큰, 더 작은 토큰의 쓰기는 거절한다.
+    private Long fencingToken;
+
+    // 잔액을 나눈 슬롯(AccountSlot) 개수, 슬롯으로 나뉜 계좌의 balance 는 0 으로 두고 슬롯 합계를 잔액으로 본다.
+    private Integer slotCount;
+
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
+    public boolean isSlotted() {
+        return slotCount != null && slotCount > 0;
+    }
+
     public void useBalance(Long amount) {
         if (amount > balance) {
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
@@ -37,6 +63,13 @@ public class Account extends BaseEntity {
         balance -= amount;
     }
 
+    public void depositBalance(Long amount) {
+        if (amount < 0) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        balance += amount;
+    }
+
     public void cancelBalance(Long amount) {
         if (amount < 0) {
             throw new AccountException(ErrorCode.INVALID_REQUEST);
@@ -0,0 +1,28 @@
+package com.example.accountdemo.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.*;
+
+/**
+ * 거래가 몰리는 계좌의 잔액을 나눠 담는 행
+ * 슬롯마다 따로 차감하므로 같은 계좌의 거래가 한 행의 락을 기다리지 않는다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_account_slot_account_id_slot_index",
+        columnNames = {"account_id", "slot_index"}))
+public class AccountSlot extends BaseEntity {
+
+    @ManyToOne
+    private Account account;
+    private Integer slotIndex;
+    private Long balance;
+}
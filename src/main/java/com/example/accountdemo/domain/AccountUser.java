@@ -13,4 +13,7 @@ public class AccountUser extends BaseEntity {
 
     private String name;
 
+    // 사용 중인 계좌 수, 계좌를 만들 때 한도 안에서만 한 문장으로 올리고 해지하면 내린다.
+    @Builder.Default
+    private Integer accountCount = 0;
 }
@@ -0,0 +1,28 @@
+package com.example.accountdemo.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.*;
+
+/**
+ * seq 번째 원장 기록까지 반영한 잔액
+ * 잔액을 다시 계산할 때 마지막 스냅샷 이후의 원장만 더하면 된다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_balance_snapshot_account_id_seq",
+        columnNames = {"account_id", "seq"}))
+public class BalanceSnapshot extends BaseEntity {
+
+    @ManyToOne
+    private Account account;
+    private Long seq;
+    private Long balance;
+}
@@ -0,0 +1,25 @@
+package com.example.accountdemo.domain;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import lombok.*;
+
+/**
+ * 계좌별, 날짜별, 거래 종류와 결과별 거래 건수와 금액 합계
+ * 거래를 저장할 때 같은 트랜잭션에서 (account_id, rollup_date, transaction_type, transaction_result_type)
+ * 행을 upsert 로 늘려 가므로, 대시보드는 거래 테이블 대신 날짜 수만큼의 행만 읽는다.
+ * 행은 upsert 와 백필 네이티브 쿼리로만 쓰고 엔티티로는 읽기만 한다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class DailyRollup {
+
+    @EmbeddedId
+    private DailyRollupId id;
+    private Long transactionCount;
+    private Long totalAmount;
+}
@@ -0,0 +1,26 @@
+package com.example.accountdemo.domain;
+
+import com.example.accountdemo.type.TransactionResultType;
+import com.example.accountdemo.type.TransactionType;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Embeddable
+public class DailyRollupId implements Serializable {
+    private Long accountId;
+    private LocalDate rollupDate;
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    @Enumerated(EnumType.STRING)
+    private TransactionResultType transactionResultType;
+}
@@ -0,0 +1,30 @@
+package com.example.accountdemo.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.*;
+
+/**
+ * 원장 모드에서 잔액을 바꾸는 거래마다 한 줄씩 추가만 하는 기록
+ * 계좌마다 seq 는 1 부터 빈틈없이 늘어나고, 같은 seq 를 두 번 쓰면 유니크 제약으로 실패한다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_ledger_entry_account_id_seq",
+        columnNames = {"account_id", "seq"}))
+public class LedgerEntry extends BaseEntity {
+
+    @ManyToOne
+    private Account account;
+    private Long seq;
+    // 사용은 음수, 취소는 양수
+    private Long amount;
+    private String transactionId;
+}
@@ -5,7 +5,9 @@ import com.example.accountdemo.type.TransactionType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -16,6 +18,13 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_transaction_transaction_id", columnList = "transaction_id", unique = true),
+        // 기동할 때 최근 24시간 거래로 사용 한도를 다시 만든다.
+        @Index(name = "idx_transaction_transacted_at", columnList = "transacted_at"),
+        // 계좌별 거래 내역을 최근 거래부터 페이지로 읽는다.
+        @Index(name = "idx_transaction_account_id_transacted_at_id", columnList = "account_id, transacted_at, id")
+})
 public class Transaction extends BaseEntity {
 
     @Enumerated(EnumType.STRING)
@@ -29,6 +38,8 @@ public class Transaction extends BaseEntity {
     private Long balanceSnapshot;
 
     private String transactionId;
+    // 이체로 함께 만들어진 상대 계좌의 거래 아이디, 사용 취소는 취소한 사용 거래의 아이디
+    private String linkedTransactionId;
     private LocalDateTime transactedAt;
 
 }
@@ -0,0 +1,28 @@
+package com.example.accountdemo.dto;
+
+import com.example.accountdemo.type.AccountStatus;
+import com.example.accountdemo.type.AccountTier;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * GET /account/{id} 응답, AccountRepository.findDetailById 가 필요한 컬럼만 골라 바로 만든다.
+ * 소유주는 AccountUser 를 읽지 않고 아이디만 내려준다.
+ * 잔액은 계좌 행의 값이라 슬롯, 원장 계좌는 AccountQueryService 가 실제 잔액으로 바꿔 준다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@Builder
+public class AccountDetail {
+    private Long id;
+    private Long userId;
+    private String accountNumber;
+    private AccountStatus accountStatus;
+    private AccountTier accountTier;
+    private Long balance;
+    private Integer slotCount;
+    private LocalDateTime registeredAt;
+    private LocalDateTime unRegisteredAt;
+}
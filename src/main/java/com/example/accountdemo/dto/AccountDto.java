@@ -14,6 +14,7 @@ public class AccountDto {
     private Long userId;
     private String accountNumber;
     private Long balance;
+    private Integer slotCount;
     private LocalDateTime registerAt;
     private LocalDateTime unRegisteredAt;
 
@@ -22,6 +23,7 @@ public class AccountDto {
                 .userId(account.getAccountUser().getId())
                 .accountNumber(account.getAccountNumber())
                 .balance(account.getBalance())
+                .slotCount(account.getSlotCount())
                 .registerAt(account.getRegisteredAt())
                 .unRegisteredAt(account.getUnRegisteredAt())
                 .build();
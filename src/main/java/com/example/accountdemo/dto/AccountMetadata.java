@@ -0,0 +1,17 @@
+package com.example.accountdemo.dto;
+
+import com.example.accountdemo.type.AccountStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 계좌번호로 자주 확인하는 계좌 정보
+ * 아이디와 소유주는 바뀌지 않고, 상태는 IN_USE 에서 UNREGISTERED 로만 바뀐다.
+ */
+@Getter
+@AllArgsConstructor
+public class AccountMetadata {
+    private final Long id;
+    private final Long userId;
+    private final AccountStatus accountStatus;
+}
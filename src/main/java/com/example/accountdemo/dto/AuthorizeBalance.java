@@ -0,0 +1,56 @@
+package com.example.accountdemo.dto;
+
+import com.example.accountdemo.aop.AccountLockIdInterface;
+import com.example.accountdemo.validation.AccountNumber;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+public class AuthorizeBalance {
+    /**
+     * {
+     *    "userId":1,
+     *    "accountNumber":"1000000000",
+     *    "amount":1000
+     * }
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @AccountNumber
+        private String accountNumber;
+
+        @NotNull
+        @Min(10)
+        @Max(1000_000_000)
+        private Long amount;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private String holdId;
+        private Long amount;
+        private LocalDateTime expiresAt;
+
+        public static Response from(HoldDto holdDto) {
+            return Response.builder()
+                    .accountNumber(holdDto.getAccountNumber())
+                    .holdId(holdDto.getHoldId())
+                    .amount(holdDto.getAmount())
+                    .expiresAt(holdDto.getExpiresAt())
+                    .build();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.accountdemo.dto;
 
 import com.example.accountdemo.aop.AccountLockIdInterface;
 import com.example.accountdemo.type.TransactionResultType;
+import com.example.accountdemo.validation.AccountNumber;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
@@ -23,7 +24,7 @@ public class CancelBalance {
         private String transactionId;
 
         @NotBlank
-        @Size(min = 10, max = 10)
+        @AccountNumber
         private String accountNumber;
 
         @NotNull
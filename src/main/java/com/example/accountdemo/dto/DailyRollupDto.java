@@ -0,0 +1,31 @@
+package com.example.accountdemo.dto;
+
+import com.example.accountdemo.domain.DailyRollup;
+import com.example.accountdemo.type.TransactionResultType;
+import com.example.accountdemo.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyRollupDto {
+    private LocalDate date;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResult;
+    private Long count;
+    private Long amount;
+
+    public static DailyRollupDto fromEntity(DailyRollup dailyRollup) {
+        return DailyRollupDto.builder()
+                .date(dailyRollup.getId().getRollupDate())
+                .transactionType(dailyRollup.getId().getTransactionType())
+                .transactionResult(dailyRollup.getId().getTransactionResultType())
+                .count(dailyRollup.getTransactionCount())
+                .amount(dailyRollup.getTotalAmount())
+                .build();
+    }
+}
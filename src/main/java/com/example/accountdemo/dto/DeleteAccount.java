@@ -1,9 +1,9 @@
 package com.example.accountdemo.dto;
 
+import com.example.accountdemo.validation.AccountNumber;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Size;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -18,7 +18,7 @@ public class DeleteAccount {
         private Long userId;
 
         @NotBlank
-        @Size(min = 10, max = 10)
+        @AccountNumber
         private String accountNumber;
     }
 
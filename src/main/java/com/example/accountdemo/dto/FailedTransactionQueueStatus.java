@@ -0,0 +1,17 @@
+package com.example.accountdemo.dto;
+
+import com.example.accountdemo.type.FailedRecordOverflowPolicy;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FailedTransactionQueueStatus {
+    private int queueDepth;
+    private int queueCapacity;
+    private FailedRecordOverflowPolicy overflowPolicy;
+    // DROP_NEWEST, DROP_OLDEST 정책으로 저장하지 못하고 버린 실패 거래 수
+    private long droppedCount;
+}
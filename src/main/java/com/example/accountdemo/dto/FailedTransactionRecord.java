@@ -0,0 +1,20 @@
+package com.example.accountdemo.dto;
+
+import com.example.accountdemo.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 실패한 거래를 저장하기 전까지 대기열에 담아두는 값
+ * 거래 시각은 저장 시점이 아니라 실패한 시점으로 남긴다.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+public class FailedTransactionRecord {
+    private TransactionType transactionType;
+    private String accountNumber;
+    private Long amount;
+    private LocalDateTime transactedAt;
+}
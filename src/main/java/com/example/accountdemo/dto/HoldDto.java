@@ -0,0 +1,30 @@
+package com.example.accountdemo.dto;
+
+import com.example.accountdemo.service.ReservationLedger;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HoldDto {
+    private String holdId;
+    private String accountNumber;
+    private Long amount;
+    private LocalDateTime expiresAt;
+
+    public static HoldDto fromHold(ReservationLedger.Hold hold) {
+        return HoldDto.builder()
+                .holdId(hold.getHoldId())
+                .accountNumber(hold.getAccountNumber())
+                .amount(hold.getAmount())
+                .expiresAt(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(hold.getExpiresAt()), ZoneId.systemDefault()))
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.accountdemo.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LaneStatus {
+    private int lane;
+    private int queueDepth;
+    private int queueCapacity;
+    private int activeCount;
+    private long completedTaskCount;
+    private long rejectedCount;
+}
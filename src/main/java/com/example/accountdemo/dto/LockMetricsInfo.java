@@ -0,0 +1,45 @@
+package com.example.accountdemo.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LockMetricsInfo {
+    private Histogram wait;
+    private Histogram hold;
+    private Histogram failedAcquire;
+    private List<HotAccount> hotAccounts;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Histogram {
+        private long count;
+        private long meanMicros;
+        private long p50Micros;
+        private long p90Micros;
+        private long p99Micros;
+        private long maxMicros;
+    }
+
+    /**
+     * count 는 추정치, count - error 는 실제 경합 횟수의 하한
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class HotAccount {
+        private String accountNumber;
+        private long count;
+        private long error;
+    }
+}
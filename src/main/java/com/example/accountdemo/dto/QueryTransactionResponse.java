@@ -2,6 +2,7 @@ package com.example.accountdemo.dto;
 
 import com.example.accountdemo.type.TransactionResultType;
 import com.example.accountdemo.type.TransactionType;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -16,6 +17,8 @@ public class QueryTransactionResponse {
     private TransactionType transactionType;
     private TransactionResultType transactionResult;
     private String transactionId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String linkedTransactionId;
     private Long amount;
     private LocalDateTime transactedAt;
 
@@ -25,6 +28,7 @@ public class QueryTransactionResponse {
                 .transactionType(transactionDto.getTransactionType())
                 .transactionResult(transactionDto.getTransactionResultType())
                 .transactionId(transactionDto.getTransactionId())
+                .linkedTransactionId(transactionDto.getLinkedTransactionId())
                 .amount(transactionDto.getAmount())
                 .transactedAt(transactionDto.getTransactedAt())
                 .build();
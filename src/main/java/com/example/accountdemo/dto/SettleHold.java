@@ -0,0 +1,34 @@
+package com.example.accountdemo.dto;
+
+import com.example.accountdemo.aop.AccountLockIdInterface;
+import com.example.accountdemo.validation.AccountNumber;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+/**
+ * 승인한 홀드를 확정(capture)하거나 취소(void)하는 요청, 승인한 사용자만 할 수 있다.
+ * {
+ *    "userId":1,
+ *    "holdId":"0DK2RZQ4M8000",
+ *    "accountNumber":"1000000000"
+ * }
+ */
+public class SettleHold {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        private String holdId;
+
+        @NotBlank
+        @AccountNumber
+        private String accountNumber;
+    }
+}
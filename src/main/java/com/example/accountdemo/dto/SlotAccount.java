@@ -0,0 +1,51 @@
+package com.example.accountdemo.dto;
+
+import com.example.accountdemo.aop.AccountLockIdInterface;
+import com.example.accountdemo.validation.AccountNumber;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+public class SlotAccount {
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @AccountNumber
+        private String accountNumber;
+
+        @NotNull
+        @Min(2)
+        @Max(64)
+        private Integer slotCount;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private Long userId;
+        private String accountNumber;
+        private Long balance;
+        private Integer slotCount;
+
+        public static Response from(AccountDto accountDto) {
+            return Response.builder()
+                    .userId(accountDto.getUserId())
+                    .accountNumber(accountDto.getAccountNumber())
+                    .balance(accountDto.getBalance())
+                    .slotCount(accountDto.getSlotCount())
+                    .build();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.accountdemo.dto;
 
 import com.example.accountdemo.domain.Transaction;
+import com.example.accountdemo.type.ErrorCode;
 import com.example.accountdemo.type.TransactionResultType;
 import com.example.accountdemo.type.TransactionType;
 import lombok.*;
@@ -20,7 +21,10 @@ public class TransactionDto {
     private Long amount;
     private Long balanceSnapshot;
     private String transactionId;
+    private String linkedTransactionId;
     private LocalDateTime transactedAt;
+    // 배치 처리에서 실패한 항목의 사유
+    private ErrorCode errorCode;
 
     public static TransactionDto fromEntity(Transaction transaction) {
         return TransactionDto.builder()
@@ -30,7 +34,19 @@ public class TransactionDto {
                 .amount(transaction.getAmount())
                 .balanceSnapshot(transaction.getBalanceSnapshot())
                 .transactionId(transaction.getTransactionId())
+                .linkedTransactionId(transaction.getLinkedTransactionId())
                 .transactedAt(transaction.getTransactedAt())
                 .build();
     }
+
+    // 실패 거래를 남길 계좌가 없거나 락을 잡지 못한 배치 항목
+    public static TransactionDto failedUse(String accountNumber, Long amount, ErrorCode errorCode) {
+        return TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.F)
+                .amount(amount)
+                .errorCode(errorCode)
+                .build();
+    }
 }
@@ -0,0 +1,107 @@
+package com.example.accountdemo.dto;
+
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.TransactionRepository.TransactionHistoryRow;
+import com.example.accountdemo.type.TransactionResultType;
+import com.example.accountdemo.type.TransactionType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+import static com.example.accountdemo.type.ErrorCode.INVALID_REQUEST;
+
+public class TransactionHistory {
+    /**
+     {
+     "accountNumber":"1000000000",
+     "transactions":[
+        {
+        "transactionType":"USE",
+        "transactionResult":"S",
+        "transactionId":"0DK2RZQ4M8000",
+        "amount":1000,
+        "balanceSnapshot":9000,
+        "transactedAt":"2022-06-01T23:26:14.671859"
+        }
+     ],
+     "nextCursor":"MjAyMi0wNi0wMVQyMzoyNjoxNC42NzE4NTlfMTI"
+     }
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private List<Item> transactions;
+        // 마지막 페이지면 null
+        private String nextCursor;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        private TransactionType transactionType;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String linkedTransactionId;
+        private Long amount;
+        private Long balanceSnapshot;
+        private LocalDateTime transactedAt;
+
+        public static Item from(TransactionHistoryRow row) {
+            return Item.builder()
+                    .transactionType(row.getTransactionType())
+                    .transactionResult(row.getTransactionResultType())
+                    .transactionId(row.getTransactionId())
+                    .linkedTransactionId(row.getLinkedTransactionId())
+                    .amount(row.getAmount())
+                    .balanceSnapshot(row.getBalanceSnapshot())
+                    .transactedAt(row.getTransactedAt())
+                    .build();
+        }
+    }
+
+    /**
+     * 페이지의 마지막 거래 (transactedAt, id), 다음 페이지는 이 거래보다 앞선 거래부터 읽는다.
+     * 클라이언트에는 내부 아이디가 드러나지 않게 base64 로 감싼 문자열로 준다.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Cursor {
+        private final LocalDateTime transactedAt;
+        private final Long id;
+
+        public static Cursor from(TransactionHistoryRow row) {
+            return new Cursor(row.getTransactedAt(), row.getId());
+        }
+
+        public String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((transactedAt + "_" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String cursor) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = decoded.lastIndexOf('_');
+                return new Cursor(
+                        LocalDateTime.parse(decoded.substring(0, separator)),
+                        Long.valueOf(decoded.substring(separator + 1))
+                );
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new AccountException(INVALID_REQUEST);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.accountdemo.dto;
+
+import com.example.accountdemo.aop.AccountLockIdInterface;
+import com.example.accountdemo.type.TransactionResultType;
+import com.example.accountdemo.validation.AccountNumber;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+public class TransferBalance {
+    /**
+     * {
+     *    "userId":1,
+     *    "fromAccountNumber":"1000000000",
+     *    "toAccountNumber":"1000000001",
+     *    "amount":1000
+     * }
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @AccountNumber
+        private String fromAccountNumber;
+
+        @NotBlank
+        @AccountNumber
+        private String toAccountNumber;
+
+        @NotNull
+        @Min(10)
+        @Max(1000_000_000)
+        private Long amount;
+
+        // 멱등 키는 보내는 계좌 기준으로 저장한다.
+        @Override
+        public String getAccountNumber() {
+            return fromAccountNumber;
+        }
+    }
+
+    /**
+     {
+     "fromAccountNumber":"1000000000",
+     "toAccountNumber":"1000000001",
+     "transactionResult":"S",
+     "transactionId":"0DK2RZQ4M8000",
+     "linkedTransactionId":"0DK2RZQ4M8001",
+     "amount":1000,
+     "transactedAt":"2022-06-01T23:26:14.671859"
+     }
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String fromAccountNumber;
+        private String toAccountNumber;
+        private TransactionResultType transactionResult;
+        // 보낸 계좌의 거래 아이디
+        private String transactionId;
+        // 받은 계좌의 거래 아이디
+        private String linkedTransactionId;
+        private Long amount;
+        private LocalDateTime transactedAt;
+
+        public static Response from(TransactionDto transactionDto, String toAccountNumber) {
+            return Response.builder()
+                    .fromAccountNumber(transactionDto.getAccountNumber())
+                    .toAccountNumber(toAccountNumber)
+                    .transactionResult(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .linkedTransactionId(transactionDto.getLinkedTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .transactedAt(transactionDto.getTransactedAt())
+                    .build();
+        }
+    }
+}
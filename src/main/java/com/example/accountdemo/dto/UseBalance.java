@@ -1,7 +1,10 @@
 package com.example.accountdemo.dto;
 
 import com.example.accountdemo.aop.AccountLockIdInterface;
+import com.example.accountdemo.type.ErrorCode;
 import com.example.accountdemo.type.TransactionResultType;
+import com.example.accountdemo.validation.AccountNumber;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
@@ -24,7 +27,7 @@ public class UseBalance {
         private Long userId;
 
         @NotBlank
-        @Size(min = 10, max = 10)
+        @AccountNumber
         private String accountNumber;
 
         @NotNull
@@ -53,6 +56,9 @@ public class UseBalance {
         private String transactionId;
         private Long amount;
         private LocalDateTime transactedAt;
+        // 배치 응답에서 실패한 항목에만 내려간다.
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private ErrorCode errorCode;
 
         public static Response from(TransactionDto transactionDto) {
             return Response.builder()
@@ -61,6 +67,7 @@ public class UseBalance {
                     .transactionId(transactionDto.getTransactionId())
                     .amount(transactionDto.getAmount())
                     .transactedAt(transactionDto.getTransactedAt())
+                    .errorCode(transactionDto.getErrorCode())
                     .build();
         }
     }
@@ -0,0 +1,50 @@
+package com.example.accountdemo.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class UseBalanceBatch {
+    /**
+     * {
+     *    "items":[
+     *       {"userId":1, "accountNumber":"1000000000", "amount":1000},
+     *       {"userId":1, "accountNumber":"1000000000", "amount":2000}
+     *    ]
+     * }
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request {
+        @Valid
+        @NotEmpty
+        @Size(max = 1000)
+        private List<UseBalance.Request> items;
+    }
+
+    /**
+     * 요청 항목과 같은 순서의 결과, 실패한 항목은 transactionResult 가 F 이고 errorCode 가 있다.
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private List<UseBalance.Response> results;
+
+        public static Response from(List<TransactionDto> transactionDtos) {
+            return Response.builder()
+                    .results(transactionDtos.stream()
+                            .map(UseBalance.Response::from)
+                            .collect(Collectors.toList()))
+                    .build();
+        }
+    }
+}
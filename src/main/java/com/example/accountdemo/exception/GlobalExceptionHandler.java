@@ -2,8 +2,10 @@ package com.example.accountdemo.exception;
 
 import com.example.accountdemo.dto.ErrorResponse;
 import com.example.accountdemo.type.ErrorCode;
+import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -27,6 +29,21 @@ public class GlobalExceptionHandler {
         return new ErrorResponse(INVALID_REQUEST, INVALID_REQUEST.getDescription());
     }
 
+    // 경로 변수, 요청 파라미터 검증 실패 (예: 형식이 틀린 계좌번호)
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ErrorResponse handleConstraintViolationException(ConstraintViolationException e) {
+        log.error("ConstraintViolationException is occurred", e);
+
+        return new ErrorResponse(INVALID_REQUEST, INVALID_REQUEST.getDescription());
+    }
+
+    // 재시도하지 않는 모드에서 난 version(원장 seq) 충돌, 슬롯 행 락 대기 시간 초과는 락 획득 실패와 같이 응답한다.
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ErrorResponse handleConcurrencyFailureException(ConcurrencyFailureException e) {
+        log.error("ConcurrencyFailureException is occurred", e);
+
+        return new ErrorResponse(ACCOUNT_TRANSACTION_LOCK, ACCOUNT_TRANSACTION_LOCK.getDescription());
+    }
 
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ErrorResponse handleDataIntegrityViolationException(DataIntegrityViolationException e) {
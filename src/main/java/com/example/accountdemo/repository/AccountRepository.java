@@ -2,9 +2,21 @@ package com.example.accountdemo.repository;
 
 import com.example.accountdemo.domain.Account;
 import com.example.accountdemo.domain.AccountUser;
+import com.example.accountdemo.dto.AccountDetail;
+import com.example.accountdemo.dto.AccountMetadata;
+import com.example.accountdemo.type.AccountTier;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,12 +25,102 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     // 제일 마지막에 생성된 계좌, 값이 없을 수도 있기 때문에 옵셔널로
     Optional<Account> findFirstByOrderByIdDesc();
 
-    Integer countByAccountUser(AccountUser accountUser);
-
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    // DB 락 백엔드용, 커밋까지 계좌 행을 잠근다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("select a from Account a where a.accountNumber = :accountNumber")
+    Optional<Account> findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
+
     List<Account> findByAccountUser(AccountUser accountUser);
 
-    Optional<Account> findFirstByAccountUserOrderByIdDesc(AccountUser accountUser);
+    // GET /account, 계좌 엔티티와 소유주를 읽지 않고 잔액 계산에 필요한 컬럼만 읽는다.
+    @Query("select a.id as id, a.accountNumber as accountNumber, " +
+            "a.balance as balance, a.slotCount as slotCount " +
+            "from Account a where a.accountUser.id = :userId order by a.id")
+    List<AccountBalanceRow> findBalancesByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.example.accountdemo.dto.AccountDetail(a.id, a.accountUser.id, a.accountNumber, " +
+            "a.accountStatus, a.accountTier, a.balance, a.slotCount, a.registeredAt, a.unRegisteredAt) " +
+            "from Account a where a.id = :id")
+    Optional<AccountDetail> findDetailById(@Param("id") Long id);
+
+    // 계좌번호 블록 번호, 시퀀스는 data.sql 에서 만든다.
+    @Query(value = "select next value for account_number_block_seq", nativeQuery = true)
+    long nextAccountNumberBlock();
+
+    @Query("select a.id from Account a where a.accountNumber = :accountNumber")
+    Optional<Long> findIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // AccountMetadataCache 가 캐시하는 값, 소유주는 아이디만 읽고 AccountUser 는 읽지 않는다.
+    @Query("select new com.example.accountdemo.dto.AccountMetadata(a.id, a.accountUser.id, a.accountStatus) " +
+            "from Account a where a.accountNumber = :accountNumber")
+    Optional<AccountMetadata> findMetadataByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("select a.accountTier from Account a where a.accountNumber = :accountNumber")
+    Optional<AccountTier> findAccountTierByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // 슬롯으로 나누지 않은 계좌는 0
+    @Query("select coalesce(a.slotCount, 0) from Account a where a.accountNumber = :accountNumber")
+    Optional<Integer> findSlotCountByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // 일별 집계 백필 대상
+    @Query("select a.id from Account a order by a.id")
+    List<Long> findAllIds();
+
+    @Query("select a.id from Account a where a.slotCount > 0")
+    List<Long> findSlottedAccountIds();
+
+    // 토큰이 같거나 커질 때만 기록, 0 이면 더 새로운 락이 이미 이 계좌를 수정한 것
+    @Modifying
+    @Query("update Account a set a.fencingToken = :fencingToken " +
+            "where a.accountNumber = :accountNumber " +
+            "and (a.fencingToken is null or a.fencingToken <= :fencingToken)")
+    int advanceFencingToken(@Param("accountNumber") String accountNumber,
+                            @Param("fencingToken") Long fencingToken);
+
+    // 소유주, 해지 여부, 잔액 조건을 만족할 때만 한 문장으로 차감, 0 이면 차감하지 않은 것
+    // reserved 는 홀드로 잡혀 있어 사용할 수 없는 금액
+    // 낙관적 락으로 이 계좌를 읽은 다른 트랜잭션이 충돌을 감지하도록 version 도 올린다.
+    // 같은 트랜잭션에서 이어서 읽는 계좌가 차감 전 값이 되지 않도록 영속성 컨텍스트를 비운다.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, " +
+            "a.version = coalesce(a.version, 0) + 1, a.updatedAt = :updatedAt " +
+            "where a.accountNumber = :accountNumber " +
+            "and a.accountUser.id = :userId " +
+            "and a.accountStatus = com.example.accountdemo.type.AccountStatus.IN_USE " +
+            "and a.balance - :reserved >= :amount")
+    int debitBalance(@Param("accountNumber") String accountNumber,
+                     @Param("userId") Long userId,
+                     @Param("amount") Long amount,
+                     @Param("reserved") Long reserved,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    // 이체 입금, 해지되지 않은 계좌일 때만 한 문장으로 더한다. 0 이면 입금하지 않은 것
+    // 받는 계좌는 계좌별 동시성 모드의 락 없이도 바뀔 수 있으므로 읽고 쓰지 않고 DB 에서 더한다.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, " +
+            "a.version = coalesce(a.version, 0) + 1, a.updatedAt = :updatedAt " +
+            "where a.accountNumber = :accountNumber " +
+            "and a.accountStatus = com.example.accountdemo.type.AccountStatus.IN_USE")
+    int creditBalance(@Param("accountNumber") String accountNumber,
+                      @Param("amount") Long amount,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    interface AccountBalanceRow {
+        Long getId();
+
+        String getAccountNumber();
+
+        Long getBalance();
+
+        Integer getSlotCount();
 
+        default boolean isSlotted() {
+            return getSlotCount() != null && getSlotCount() > 0;
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.accountdemo.repository;
+
+import com.example.accountdemo.domain.AccountSlot;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AccountSlotRepository extends JpaRepository<AccountSlot, Long> {
+
+    // 잔액이 충분한 슬롯일 때만 차감, 0 이면 차감하지 않은 것
+    @Modifying(flushAutomatically = true)
+    @Query("update AccountSlot s set s.balance = s.balance - :amount " +
+            "where s.account.id = :accountId and s.slotIndex = :slotIndex " +
+            "and s.balance >= :amount")
+    int debitSlot(@Param("accountId") Long accountId,
+                  @Param("slotIndex") Integer slotIndex,
+                  @Param("amount") Long amount);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update AccountSlot s set s.balance = s.balance + :amount " +
+            "where s.account.id = :accountId and s.slotIndex = :slotIndex")
+    int creditSlot(@Param("accountId") Long accountId,
+                   @Param("slotIndex") Integer slotIndex,
+                   @Param("amount") Long amount);
+
+    // 재분배용, 모든 슬롯을 인덱스 순서로 잠가 두 재분배가 서로 기다리며 멈추지 않게 한다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("select s from AccountSlot s where s.account.id = :accountId order by s.slotIndex")
+    List<AccountSlot> findByAccountIdForUpdate(@Param("accountId") Long accountId);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountSlot s where s.account.id = :accountId")
+    long sumBalanceByAccountId(@Param("accountId") Long accountId);
+
+    // [계좌 아이디, 슬롯 잔액 합계]
+    @Query("select s.account.id, sum(s.balance) from AccountSlot s " +
+            "where s.account.id in :accountIds group by s.account.id")
+    List<Object[]> sumBalanceByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+}
@@ -1,11 +1,47 @@
 package com.example.accountdemo.repository;
 
 import com.example.accountdemo.domain.AccountUser;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface AccountUserRepository
         extends JpaRepository<AccountUser, Long> {
 
+    // 한도보다 적을 때만 올린다. 0 이면 사용자가 없거나 이미 한도만큼 계좌가 있는 것
+    // 올린 행은 커밋까지 잠기므로 같은 사용자의 동시 생성은 이 문장에서 차례로 처리된다.
+    @Modifying
+    @Query("update AccountUser u set u.accountCount = u.accountCount + 1 " +
+            "where u.id = :userId and u.accountCount < :maxAccounts")
+    int incrementAccountCount(@Param("userId") Long userId,
+                              @Param("maxAccounts") int maxAccounts);
+
+    @Modifying
+    @Query("update AccountUser u set u.accountCount = u.accountCount - 1 " +
+            "where u.id = :userId and u.accountCount > 0")
+    int decrementAccountCount(@Param("userId") Long userId);
+
+    // 계좌 수 복구 대상
+    @Query("select u.id from AccountUser u order by u.id")
+    List<Long> findAllIds();
+
+    // 복구하는 동안 같은 사용자의 계좌 생성이 끼어들지 않도록 사용자 행을 잠근다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from AccountUser u where u.id in :userIds")
+    List<AccountUser> findByIdInForUpdate(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query(value = "update account_user u set account_count = (" +
+            "select count(*) from account a " +
+            "where a.account_user_id = u.id and a.account_status = 'IN_USE') " +
+            "where u.id in (:userIds)", nativeQuery = true)
+    int recomputeAccountCounts(@Param("userIds") Collection<Long> userIds);
 }
@@ -0,0 +1,12 @@
+package com.example.accountdemo.repository;
+
+import com.example.accountdemo.domain.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    Optional<BalanceSnapshot> findFirstByAccountIdOrderBySeqDesc(Long accountId);
+}
@@ -0,0 +1,64 @@
+package com.example.accountdemo.repository;
+
+import com.example.accountdemo.domain.DailyRollup;
+import com.example.accountdemo.domain.DailyRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailyRollupRepository extends JpaRepository<DailyRollup, DailyRollupId> {
+
+    @Query("select r from DailyRollup r where r.id.accountId = :accountId " +
+            "and r.id.rollupDate between :from and :to " +
+            "order by r.id.rollupDate, r.id.transactionType, r.id.transactionResultType")
+    List<DailyRollup> findByAccountIdBetween(
+            @Param("accountId") Long accountId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    // 행이 있으면 건수와 금액을 더하고 없으면 만든다. 읽고 쓰는 사이에 다른 거래가 끼어들지 않게 한 문장으로 처리한다.
+    @Modifying(flushAutomatically = true)
+    @Query(nativeQuery = true, value = "merge into daily_rollup r " +
+            "using (select cast(:accountId as bigint) as account_id, cast(:rollupDate as date) as rollup_date, " +
+            "cast(:transactionType as varchar(255)) as transaction_type, " +
+            "cast(:transactionResultType as varchar(255)) as transaction_result_type, " +
+            "cast(:count as bigint) as transaction_count, cast(:amount as bigint) as total_amount) s " +
+            "on r.account_id = s.account_id and r.rollup_date = s.rollup_date " +
+            "and r.transaction_type = s.transaction_type " +
+            "and r.transaction_result_type = s.transaction_result_type " +
+            "when matched then update set r.transaction_count = r.transaction_count + s.transaction_count, " +
+            "r.total_amount = r.total_amount + s.total_amount " +
+            "when not matched then insert (account_id, rollup_date, transaction_type, transaction_result_type, " +
+            "transaction_count, total_amount) values (s.account_id, s.rollup_date, s.transaction_type, " +
+            "s.transaction_result_type, s.transaction_count, s.total_amount)")
+    int upsert(
+            @Param("accountId") Long accountId,
+            @Param("rollupDate") LocalDate rollupDate,
+            @Param("transactionType") String transactionType,
+            @Param("transactionResultType") String transactionResultType,
+            @Param("count") long count,
+            @Param("amount") long amount
+    );
+
+    @Modifying
+    @Query("delete from DailyRollup r where r.id.accountId = :accountId and r.id.rollupDate < :until")
+    int deleteByAccountIdBefore(@Param("accountId") Long accountId, @Param("until") LocalDate until);
+
+    // until 이전 거래를 계좌 하나씩 한 문장으로 다시 집계한다.
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into daily_rollup (account_id, rollup_date, transaction_type, " +
+            "transaction_result_type, transaction_count, total_amount) " +
+            "select t.account_id, cast(t.transacted_at as date), t.transaction_type, t.transaction_result_type, " +
+            "count(*), coalesce(sum(t.amount), 0) from transaction t " +
+            "where t.account_id = :accountId and t.transacted_at < :until " +
+            "group by t.account_id, cast(t.transacted_at as date), t.transaction_type, t.transaction_result_type")
+    int insertFromTransactions(@Param("accountId") Long accountId, @Param("until") LocalDateTime until);
+}
@@ -0,0 +1,22 @@
+package com.example.accountdemo.repository;
+
+import com.example.accountdemo.domain.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    // seq 이후 원장 기록의 개수와 금액 합계, seq 는 빈틈없이 늘어나므로 개수로 마지막 seq 를 알 수 있다.
+    @Query("select count(e) as count, coalesce(sum(e.amount), 0) as amount from LedgerEntry e " +
+            "where e.account.id = :accountId and e.seq > :seq")
+    LedgerDelta sumAfter(@Param("accountId") Long accountId, @Param("seq") Long seq);
+
+    interface LedgerDelta {
+        Long getCount();
+
+        Long getAmount();
+    }
+}
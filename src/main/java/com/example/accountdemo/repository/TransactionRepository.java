@@ -3,16 +3,102 @@ package com.example.accountdemo.repository;
 import com.example.accountdemo.domain.Account;
 import com.example.accountdemo.domain.AccountUser;
 import com.example.accountdemo.domain.Transaction;
+import com.example.accountdemo.type.TransactionResultType;
+import com.example.accountdemo.type.TransactionType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository
         extends JpaRepository<Transaction, Long> {
+    // 거래 내역 화면에 필요한 컬럼만 읽는다.
+    String HISTORY_COLUMNS = "t.id as id, t.transactionType as transactionType, " +
+            "t.transactionResultType as transactionResultType, t.transactionId as transactionId, " +
+            "t.linkedTransactionId as linkedTransactionId, t.amount as amount, " +
+            "t.balanceSnapshot as balanceSnapshot, t.transactedAt as transactedAt";
 
     Optional<Transaction> findByTransactionId(String transactionId);
 
+    // 계좌의 최근 거래부터, (account_id, transacted_at, id) 인덱스를 역순으로 읽는다.
+    @Query("select " + HISTORY_COLUMNS + " from Transaction t where t.account.id = :accountId " +
+            "order by t.transactedAt desc, t.id desc")
+    List<TransactionHistoryRow> findHistory(@Param("accountId") Long accountId, Pageable pageable);
+
+    // 이전 페이지의 마지막 거래 (transactedAt, id) 보다 앞선 거래부터, OFFSET 없이 인덱스에서 바로 찾아간다.
+    @Query("select " + HISTORY_COLUMNS + " from Transaction t where t.account.id = :accountId " +
+            "and t.transactedAt <= :transactedAt " +
+            "and (t.transactedAt < :transactedAt or t.id < :id) " +
+            "order by t.transactedAt desc, t.id desc")
+    List<TransactionHistoryRow> findHistoryBefore(
+            @Param("accountId") Long accountId,
+            @Param("transactedAt") LocalDateTime transactedAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+
+    // 내보내기용, 오래된 거래부터 fetch size 만큼씩 앞으로만 읽는 커서. 트랜잭션 안에서 읽고 닫아야 한다.
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select " + HISTORY_COLUMNS + " from Transaction t where t.account.id = :accountId " +
+            "order by t.transactedAt, t.id")
+    Stream<TransactionHistoryRow> streamHistory(@Param("accountId") Long accountId);
+
+    // 사용 한도에 들어가는 성공한 사용, 이체 출금 거래
+    @Query("select t.account.accountNumber as accountNumber, t.account.accountUser.id as userId, " +
+            "t.amount as amount, t.transactedAt as transactedAt from Transaction t " +
+            "where t.transactedAt >= :since and t.transactedAt < :until " +
+            "and t.transactionResultType = com.example.accountdemo.type.TransactionResultType.S " +
+            "and t.transactionType in (com.example.accountdemo.type.TransactionType.USE, " +
+            "com.example.accountdemo.type.TransactionType.TRANSFER_OUT)")
+    List<SpendRecord> findSpendsBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
+    // since 이후에 사용했다가 until 전에 취소된 거래, 취소 거래의 linkedTransactionId 가 원래 사용 거래를 가리킨다.
+    @Query("select o.account.accountNumber as accountNumber, o.account.accountUser.id as userId, " +
+            "o.amount as amount, o.transactedAt as transactedAt from Transaction c " +
+            "join Transaction o on o.transactionId = c.linkedTransactionId " +
+            "where o.transactedAt >= :since and c.transactedAt < :until " +
+            "and c.transactionType = com.example.accountdemo.type.TransactionType.CANCEL " +
+            "and c.transactionResultType = com.example.accountdemo.type.TransactionResultType.S")
+    List<SpendRecord> findCanceledSpendsBetween(
+            @Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
+    interface TransactionHistoryRow {
+        Long getId();
+
+        TransactionType getTransactionType();
+
+        TransactionResultType getTransactionResultType();
+
+        String getTransactionId();
+
+        String getLinkedTransactionId();
+
+        Long getAmount();
+
+        Long getBalanceSnapshot();
+
+        LocalDateTime getTransactedAt();
+    }
+
+    interface SpendRecord {
+        String getAccountNumber();
+
+        Long getUserId();
+
+        Long getAmount();
+
+        LocalDateTime getTransactedAt();
+    }
 }
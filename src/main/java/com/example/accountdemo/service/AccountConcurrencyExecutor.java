@@ -0,0 +1,120 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.aop.LockPolicy;
+import com.example.accountdemo.config.ConcurrencyProperties;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.service.AccountLaneExecutor.LaneTask;
+import com.example.accountdemo.type.ConcurrencyMode;
+import com.example.accountdemo.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 계좌의 동시성 제어 방식(ConcurrencyModeResolver)에 맞춰 작업을 실행한다.
+ * LOCK 은 계좌 락, OPTIMISTIC 은 version 충돌 시 재시도, LANE 은 계좌 레인, SLOTTED 는 락 없이 실행한다.
+ * 단건(@AccountLock), 비동기, 배치 API 가 모두 여기를 거쳐야 같은 계좌의 요청끼리 서로 배제된다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountConcurrencyExecutor {
+    private final LockService lockService;
+    private final ConcurrencyModeResolver concurrencyModeResolver;
+    private final ConcurrencyProperties concurrencyProperties;
+    private final AccountLaneExecutor accountLaneExecutor;
+
+    public <T> T proceed(String accountNumber, LockPolicy policy, LaneTask<T> task) throws Throwable {
+        ConcurrencyMode mode = concurrencyModeResolver.resolve(accountNumber);
+        if (mode == ConcurrencyMode.OPTIMISTIC) {
+            return proceedOptimistic(task);
+        }
+        if (mode == ConcurrencyMode.LANE) {
+            return accountLaneExecutor.execute(accountNumber, policy.getEffectiveWaitTime(), task);
+        }
+        if (mode == ConcurrencyMode.SLOTTED) {
+            // 슬롯마다 조건부 UPDATE 로 차감하므로 계좌 단위 락을 잡지 않는다.
+            return task.run();
+        }
+
+        // lock 취득 시도
+        lockService.lock(accountNumber, policy);
+        long lockedAt = System.nanoTime();
+        try {
+            return task.run();
+        } finally {
+            policy.recordHoldTime(System.nanoTime() - lockedAt);
+            // lock 해제
+            lockService.unlock(accountNumber, policy);
+        }
+    }
+
+    // 검사 예외를 던지지 않는 작업, 배치처럼 AOP 밖에서 호출할 때 사용한다.
+    public <T> T execute(String accountNumber, LockPolicy policy, Supplier<T> action) {
+        return unchecked(() -> proceed(accountNumber, policy, action::get));
+    }
+
+    /**
+     * 락이나 레인 차례를 기다리는 동안 요청 스레드를 점유하지 않는다.
+     * LOCK 은 비동기 락을 얻은 뒤, OPTIMISTIC 과 SLOTTED 는 바로 executor 에서 실행하고
+     * LANE 은 계좌 레인에 넣어 단건 API 와 같은 순서로 실행한다.
+     */
+    public <T> CompletableFuture<T> executeAsync(
+            String accountNumber,
+            LockPolicy policy,
+            Supplier<T> action,
+            Executor executor
+    ) {
+        ConcurrencyMode mode = concurrencyModeResolver.resolve(accountNumber);
+        if (mode == ConcurrencyMode.LANE) {
+            return accountLaneExecutor.submit(accountNumber, action::get);
+        }
+        if (mode == ConcurrencyMode.OPTIMISTIC) {
+            return CompletableFuture.supplyAsync(() -> unchecked(() -> proceedOptimistic(action::get)), executor);
+        }
+        if (mode == ConcurrencyMode.SLOTTED) {
+            return CompletableFuture.supplyAsync(action, executor);
+        }
+        return lockService.executeWithLockAsync(accountNumber, policy, action, executor);
+    }
+
+    /**
+     * 분산 락 없이 실행하고 version 충돌이 나면 지수 백오프(지터 포함)로 재시도한다.
+     * 재시도 횟수를 넘기면 락 획득 실패와 같은 에러로 응답한다.
+     */
+    private <T> T proceedOptimistic(LaneTask<T> task) throws Throwable {
+        int maxAttempts = concurrencyProperties.getOptimisticMaxAttempts();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return task.run();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Optimistic lock conflict, attempts : {}", attempt);
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                long backoff = concurrencyProperties.getOptimisticBackoff() << (attempt - 1);
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff + 1));
+            }
+        }
+    }
+
+    private static <T> T unchecked(LaneTask<T> task) {
+        try {
+            return task.run();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        } catch (Throwable t) {
+            throw new CompletionException(t);
+        }
+    }
+}
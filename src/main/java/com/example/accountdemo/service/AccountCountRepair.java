@@ -0,0 +1,60 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.repository.AccountUserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 사용자별 계좌 수(AccountUser.accountCount)를 계좌 테이블 기준으로 다시 맞추는 복구 작업
+ * 사용자를 batch-size 명씩 나눠 묶음마다 별도 트랜잭션으로 처리하고, 묶음들은 parallelism 개씩 동시에 처리한다.
+ */
+@Slf4j
+@Component
+public class AccountCountRepair {
+    private final AccountUserRepository accountUserRepository;
+    private final AccountService accountService;
+    private final int batchSize;
+    private final int parallelism;
+    private final boolean onStartup;
+
+    public AccountCountRepair(
+            AccountUserRepository accountUserRepository,
+            AccountService accountService,
+            @Value("${account.account-count.repair-batch-size:500}") int batchSize,
+            @Value("${account.account-count.repair-parallelism:4}") int parallelism,
+            @Value("${account.account-count.repair-on-startup:false}") boolean onStartup
+    ) {
+        this.accountUserRepository = accountUserRepository;
+        this.accountService = accountService;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.onStartup = onStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void repairOnStartup() {
+        if (onStartup) {
+            repair();
+        }
+    }
+
+    /**
+     * 다시 맞춘 사용자 수, 실패한 묶음은 로그만 남기고 나머지 묶음을 계속 처리한다.
+     */
+    public int repair() {
+        List<Long> userIds = accountUserRepository.findAllIds();
+        List<List<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            batches.add(userIds.subList(from, Math.min(from + batchSize, userIds.size())));
+        }
+        log.info("Account count repair started for {} users in {} batches", userIds.size(), batches.size());
+        return ParallelBatchRunner.run("Account count repair", batches, parallelism,
+                accountService::recomputeAccountCounts);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.LaneStatus;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.type.ErrorCode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 계좌번호를 N 개의 단일 스레드 레인 중 하나로 보내 순서대로 실행한다.
+ * 같은 계좌의 거래는 항상 같은 스레드에서 실행되므로 락 없이도 한 번에 하나만 처리된다.
+ * 노드 안에서만 보장되므로 계좌 단위로 노드가 정해지는 라우팅(또는 단일 노드)에서 사용한다.
+ * 레인 대기열이 가득 차면 기다리지 않고 ACCOUNT_LANE_SATURATED 로 실패한다.
+ * 대기 시간 안에 차례가 오지 않은 작업도 같은 에러로 실패하고, 나중에 차례가 와도 실행하지 않는다.
+ */
+@Slf4j
+@Component
+public class AccountLaneExecutor {
+    private final ThreadPoolExecutor[] lanes;
+    private final AtomicLong[] rejectedCounts;
+    private final int queueCapacity;
+
+    public AccountLaneExecutor(
+            @Value("${account.lane.count:16}") int laneCount,
+            @Value("${account.lane.queue-capacity:1000}") int queueCapacity
+    ) {
+        this.queueCapacity = queueCapacity;
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        this.rejectedCounts = new AtomicLong[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "account-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, threadName),
+                    new ThreadPoolExecutor.AbortPolicy());
+            rejectedCounts[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * waitTime(ms) 안에 결과가 없으면 아직 시작하지 않은 작업은 버리고 ACCOUNT_LANE_SATURATED
+     * 이미 시작한 작업은 끝날 때까지 기다려 결과를 돌려준다.
+     */
+    public <T> T execute(String accountNumber, long waitTime, LaneTask<T> task) throws Throwable {
+        LaneFuture<T> result = enqueue(accountNumber, task);
+        try {
+            try {
+                return result.get(waitTime, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (result.cancelIfNotStarted()) {
+                    log.error("Account lane wait timed out for accountNumber : {}", accountNumber);
+                    throw new AccountException(ErrorCode.ACCOUNT_LANE_SATURATED);
+                }
+                return result.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            result.cancelIfNotStarted();
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    /**
+     * 레인에 넣고 결과를 기다리지 않는다. 비동기 API 가 레인 순서를 지키면서 요청 스레드를 반환할 때 사용한다.
+     */
+    public <T> CompletableFuture<T> submit(String accountNumber, LaneTask<T> task) {
+        return enqueue(accountNumber, task);
+    }
+
+    private <T> LaneFuture<T> enqueue(String accountNumber, LaneTask<T> task) {
+        int lane = getLane(accountNumber);
+        LaneFuture<T> result = new LaneFuture<>();
+        try {
+            lanes[lane].execute(() -> {
+                if (!result.start()) {
+                    return;
+                }
+                try {
+                    result.complete(task.run());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounts[lane].incrementAndGet();
+            log.error("Account lane {} is saturated", lane);
+            throw new AccountException(ErrorCode.ACCOUNT_LANE_SATURATED);
+        }
+        return result;
+    }
+
+    public List<LaneStatus> getLaneStatuses() {
+        List<LaneStatus> statuses = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            statuses.add(LaneStatus.builder()
+                    .lane(i)
+                    .queueDepth(lanes[i].getQueue().size())
+                    .queueCapacity(queueCapacity)
+                    .activeCount(lanes[i].getActiveCount())
+                    .completedTaskCount(lanes[i].getCompletedTaskCount())
+                    .rejectedCount(rejectedCounts[i].get())
+                    .build());
+        }
+        return statuses;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private int getLane(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    // 레인 스레드의 시작과 기다리던 쪽의 취소 중 먼저 온 쪽만 성공한다.
+    private static class LaneFuture<T> extends CompletableFuture<T> {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private boolean start() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        private boolean cancelIfNotStarted() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            completeExceptionally(new AccountException(ErrorCode.ACCOUNT_LANE_SATURATED));
+            return true;
+        }
+    }
+
+    @FunctionalInterface
+    public interface LaneTask<T> {
+        T run() throws Throwable;
+    }
+}
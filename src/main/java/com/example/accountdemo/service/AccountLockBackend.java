@@ -0,0 +1,46 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.aop.LockPolicy;
+
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * LockService 가 로컬 스트라이프 락 다음에 잡는 계좌 락 저장소
+ * account.lock.backend 값으로 memory / redis / database 중 하나가 등록된다.
+ * 재시도, 지표 기록, 로컬 스트라이프 락은 LockService 가 맡고 구현체는 한 번의 시도만 책임진다.
+ */
+public interface AccountLockBackend {
+    boolean tryLock(String accountNumber, LockPolicy policy, long waitMillis) throws InterruptedException;
+
+    void unlock(String accountNumber, LockPolicy policy);
+
+    /**
+     * 스레드에 묶이지 않는 락, 해제할 때 같은 ownerId 를 넘긴다.
+     */
+    CompletableFuture<Boolean> tryLockAsync(String accountNumber, LockPolicy policy, long ownerId);
+
+    CompletableFuture<Void> unlockAsync(String accountNumber, LockPolicy policy, long ownerId);
+
+    /**
+     * 임대 시간이 있는 락만 펜싱 토큰을 발급한다. 없으면 빈 값
+     */
+    OptionalLong nextFencingToken(String accountNumber);
+
+    CompletableFuture<OptionalLong> nextFencingTokenAsync(String accountNumber);
+
+    /**
+     * true 면 실제 배타 제어는 서비스 트랜잭션의 SELECT ... FOR UPDATE 가 맡는다.
+     */
+    default boolean isRowLockRequired() {
+        return false;
+    }
+
+    /**
+     * 같은 락을 공유하는 계좌는 같은 키를 돌려준다. 여러 계좌를 한 번에 잡을 때
+     * 같은 락을 두 번 잡지 않고, 모든 요청이 키 순서로 잡아 순환 대기가 생기지 않게 한다.
+     */
+    default String lockKey(String accountNumber) {
+        return accountNumber;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.AccountMetadata;
+import com.example.accountdemo.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 계좌번호 → 계좌 아이디, 소유주, 상태 near cache
+ * 최근에 쓴 계좌부터 max-entries 개까지 노드 메모리에 두고, 없는 계좌는 캐시하지 않는다.
+ * 상태가 바뀌면 커밋 뒤에 이 노드에서 지우고 Redis pub/sub(ACMETA)으로 다른 노드에도 알린다.
+ * 알림이 늦어도 해지된 계좌가 사용 중으로 돌아가지는 않으므로 해지로 보이면 해지된 것이고,
+ * 사용 중으로 보이는 계좌는 차감 조건과 계좌 행에서 다시 확인한다.
+ */
+@Slf4j
+@Service
+public class AccountMetadataCache {
+    private static final String TOPIC = "ACMETA";
+
+    private final AccountRepository accountRepository;
+    private final ObjectProvider<RedissonClient> redissonClient;
+    private final boolean redisSync;
+    private final Map<String, AccountMetadata> entries;
+    private volatile RTopic topic;
+
+    public AccountMetadataCache(
+            AccountRepository accountRepository,
+            ObjectProvider<RedissonClient> redissonClient,
+            @Value("${account.metadata-cache.max-entries:10000}") int maxEntries,
+            @Value("${account.metadata-cache.redis-sync:true}") boolean redisSync
+    ) {
+        this.accountRepository = accountRepository;
+        this.redissonClient = redissonClient;
+        this.redisSync = redisSync;
+        this.entries = Collections.synchronizedMap(
+                new LinkedHashMap<>(256, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, AccountMetadata> eldest) {
+                        return size() > maxEntries;
+                    }
+                });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!redisSync) {
+            return;
+        }
+        RedissonClient client = redissonClient.getIfAvailable();
+        if (client == null) {
+            // 단일 노드(memory, database 락 백엔드)는 이 노드의 무효화만으로 충분하다.
+            return;
+        }
+        RTopic metadataTopic = client.getTopic(TOPIC, StringCodec.INSTANCE);
+        metadataTopic.addListener(String.class, (channel, accountNumber) -> evict(accountNumber));
+        topic = metadataTopic;
+    }
+
+    public Optional<AccountMetadata> get(String accountNumber) {
+        AccountMetadata metadata = entries.get(accountNumber);
+        if (metadata != null) {
+            return Optional.of(metadata);
+        }
+        Optional<AccountMetadata> loaded = accountRepository.findMetadataByAccountNumber(accountNumber);
+        loaded.ifPresent(value -> entries.put(accountNumber, value));
+        return loaded;
+    }
+
+    /**
+     * 커밋 전에 지우면 다른 요청이 바뀌기 전 상태를 다시 캐시할 수 있으므로 커밋 뒤에 지운다.
+     */
+    public void evictAfterCommit(String accountNumber) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictAndPublish(accountNumber);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictAndPublish(accountNumber);
+            }
+        });
+    }
+
+    void evict(String accountNumber) {
+        entries.remove(accountNumber);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // 알림을 보내지 못해도 다른 노드의 캐시는 계좌 행에서 다시 확인되므로 요청은 계속한다.
+    private void evictAndPublish(String accountNumber) {
+        evict(accountNumber);
+        RTopic metadataTopic = topic;
+        if (metadataTopic == null) {
+            return;
+        }
+        try {
+            metadataTopic.publishAsync(accountNumber);
+        } catch (RuntimeException e) {
+            log.error("Account metadata invalidation publish failed for accountNumber : {}", accountNumber, e);
+        }
+    }
+}
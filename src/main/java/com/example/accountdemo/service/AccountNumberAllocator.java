@@ -0,0 +1,58 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.validation.AccountNumberValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 계좌번호 발급기
+ * 블록 발급처에서 block-size 개씩 번호 구간을 받아 두고 메모리에서 차례로 꺼내 준다.
+ * 구간은 노드끼리 겹치지 않으므로 계좌를 만들 때 중복 확인 조회가 필요 없고,
+ * 블록 발급처가 잘못 설정되어 겹치더라도 계좌번호 유니크 인덱스가 저장을 막는다.
+ * | 9자리 본번호(100000000 + 일련번호) | 1자리 Luhn 검증 숫자 |
+ * 노드가 재시작하면 쓰다 남은 구간은 버린다.
+ */
+@Slf4j
+@Component
+public class AccountNumberAllocator {
+    private static final long BODY_BASE = 100_000_000L;
+    // 본번호 9자리, 첫 자리는 0 이 아님
+    private static final long MAX_SERIAL = 900_000_000L;
+
+    private final AccountNumberBlockSource blockSource;
+    private final long blockSize;
+    // 현재 구간에서 다음에 줄 일련번호, limit 과 같으면 구간을 다 쓴 것
+    private long next;
+    private long limit;
+
+    public AccountNumberAllocator(
+            AccountNumberBlockSource blockSource,
+            @Value("${account.account-number.block-size:100}") long blockSize
+    ) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("block-size must be positive");
+        }
+        this.blockSource = blockSource;
+        this.blockSize = blockSize;
+    }
+
+    public synchronized String next() {
+        if (next == limit) {
+            reserveBlock();
+        }
+        long body = BODY_BASE + next++;
+        return Long.toString(body * 10 + AccountNumberValidator.checkDigit(body));
+    }
+
+    private void reserveBlock() {
+        long block = blockSource.nextBlock();
+        long start = block * blockSize;
+        if (block < 0 || start + blockSize > MAX_SERIAL) {
+            throw new IllegalStateException("account numbers are exhausted, block : " + block);
+        }
+        next = start;
+        limit = start + blockSize;
+        log.info("Reserved account number block {} ({} numbers)", block, blockSize);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.accountdemo.service;
+
+/**
+ * 계좌번호 블록 발급처
+ * account.account-number.block-source 값으로 sequence(기본, DB 시퀀스) / redis(Redis 카운터) 중 하나가 등록된다.
+ * 노드마다 블록 번호를 겹치지 않게 받아 가므로 블록 안의 계좌번호는 노드 메모리에서 바로 꺼내 쓸 수 있다.
+ */
+public interface AccountNumberBlockSource {
+    /**
+     * 0 부터 1씩 증가하는 블록 번호, 한 번 준 번호는 다시 주지 않는다.
+     */
+    long nextBlock();
+}
@@ -0,0 +1,72 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.AccountDetail;
+import com.example.accountdemo.dto.AccountInfo;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.AccountRepository;
+import com.example.accountdemo.repository.AccountRepository.AccountBalanceRow;
+import com.example.accountdemo.repository.AccountUserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.example.accountdemo.type.ErrorCode.USER_NOT_FOUND;
+
+/**
+ * 계좌 조회(GET /account, GET /account/{id}) 전용 서비스
+ * 응답에 필요한 컬럼만 프로젝션으로 읽으므로 계좌 엔티티와 소유주(AccountUser)를 만들지 않는다.
+ * 읽기 전용 트랜잭션(jakarta Transactional 에는 readOnly 가 없다)이라 flush 와 dirty checking 용 스냅샷도 없다.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AccountQueryService {
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final AccountSlotService accountSlotService;
+    private final LedgerService ledgerService;
+
+    /**
+     * 슬롯으로 나뉜 계좌는 슬롯 잔액의 합계, 원장 모드는 원장을 접은 값이 잔액
+     * 계좌가 없을 때만 사용자가 있는지 확인한다.
+     */
+    public List<AccountInfo> getAccountsByUserId(Long userId) {
+        List<AccountBalanceRow> rows = accountRepository.findBalancesByUserId(userId);
+        if (rows.isEmpty() && !accountUserRepository.existsById(userId)) {
+            throw new AccountException(USER_NOT_FOUND);
+        }
+
+        Map<Long, Long> slotBalances = accountSlotService.getBalances(rows.stream()
+                .filter(AccountBalanceRow::isSlotted)
+                .map(AccountBalanceRow::getId)
+                .toList());
+        return rows.stream()
+                .map(row -> AccountInfo.builder()
+                        .accountNumber(row.getAccountNumber())
+                        .balance(getBalance(row.getId(), row.isSlotted(), row.getBalance(), slotBalances))
+                        .build())
+                .toList();
+    }
+
+    // 잔액은 GET /account 와 같이 슬롯 합계, 원장을 접은 값으로 바꿔 준다.
+    public AccountDetail getAccount(Long id) {
+        AccountDetail accountDetail = accountRepository.findDetailById(id)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+        boolean slotted = accountDetail.getSlotCount() != null && accountDetail.getSlotCount() > 0;
+        Map<Long, Long> slotBalances = slotted ? accountSlotService.getBalances(List.of(id)) : Map.of();
+        accountDetail.setBalance(getBalance(id, slotted, accountDetail.getBalance(), slotBalances));
+        return accountDetail;
+    }
+
+    private long getBalance(Long accountId, boolean slotted, Long balance, Map<Long, Long> slotBalances) {
+        if (slotted) {
+            return slotBalances.getOrDefault(accountId, 0L);
+        }
+        return ledgerService.isEnabled() ? ledgerService.getBalance(accountId, balance) : balance;
+    }
+}
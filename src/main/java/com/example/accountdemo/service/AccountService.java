@@ -15,75 +15,51 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
-import java.util.Random;
-import java.util.stream.Collectors;
 
 import static com.example.accountdemo.type.ErrorCode.*;
 
 @Service
 @RequiredArgsConstructor // 꼭 필요한 아규먼트가 들어간 생성자를 만들어준다.->final 등
 public class AccountService {
+    private static final int MAX_ACCOUNTS_PER_USER = 10;
+
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountSlotService accountSlotService;
+    private final LedgerService ledgerService;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountMetadataCache accountMetadataCache;
 
     /**
-     * 사용자가 있는지 조회하고
-     * 계좌의 번호를 생성하고
-     * 계좌를 저장하고 , 그 정보를 넘긴다.
+     * 사용자의 계좌 수를 한도 안에서 올리고
+     * 계좌번호를 발급받아 계좌를 저장하고 , 그 정보를 넘긴다.
+     * 계좌번호는 노드가 미리 받아 둔 블록에서 꺼내므로 중복 확인 조회를 하지 않는다.
+     * 계좌 저장이 실패하면 올린 계좌 수도 함께 롤백된다.
      */
     @Transactional
     public AccountDto createAccount(Long userId, Long initialBalance) {
-        AccountUser accountUser = getAccountUser(userId);
-
-        String newAccountNumber = generateNewAccountNumber(userId);
-
-        validateCreatedAccount(accountUser);
+        increaseAccountCount(userId);
+        AccountUser accountUser = accountUserRepository.getReferenceById(userId);
 
         return AccountDto.fromEntity(accountRepository.save(
                 Account.builder()
                         .accountUser(accountUser)
                         .accountStatus(AccountStatus.IN_USE)
-                        .accountNumber(newAccountNumber)
+                        .accountNumber(accountNumberAllocator.next())
                         .balance(initialBalance)
                         .registeredAt(LocalDateTime.now())
                         .build()
         ));
     }
-    /**
-     * 1. 첫번째 숫자는 0이 되지 않도록 한다. (1 ~ 9)
-     * 2. 계정 별로 가장 최근에 생성된 계좌를 확인하고 없다면 랜덤으로 생성된 첫자리 숫자 + 나머지 자릿수 랜덤 숫자
-     * 3. 가장 최근 계좌 또는 새로운 계좌에 + 1
-     * 4. 계좌가 사용중이라면 새로운 랜덤 계좌번호 생성
-     */
-    private String generateNewAccountNumber(Long userId) {
-        AccountUser accountUser = getAccountUser(userId);
-        String newAccountNumber;
-        Random random = new Random();
-        int digit = random.nextInt(9) + 1; // 첫 자리 숫자 범위 1~9, 0이 되지 않게 함
-        do {
-            String accountNumber = accountRepository.findFirstByAccountUserOrderByIdDesc(accountUser)
-                    .map(Account::getAccountNumber)
-                    .orElse(digit + String.format("%09d", random.nextInt(1000000000)));
-
-            long accountNumberLong = Long.parseLong(accountNumber) + 1;
-            newAccountNumber = Long.toString(accountNumberLong);
-            // 전체계좌 조회해서 중복확인
-        } while (accountRepository.findByAccountNumber(newAccountNumber).isPresent());
-        return newAccountNumber;
-    }
 
-    private void validateCreatedAccount(AccountUser accountUser) {
-        if (accountRepository.countByAccountUser(accountUser) >= 10) {
-            throw new AccountException(ErrorCode.MAX_ACCOUNT_PER_USER_ID);
+    // 계좌 수를 세지 않고 사용자 행의 계좌 수를 조건부로 올린다. 실패했을 때만 사용자가 있는지 확인한다.
+    private void increaseAccountCount(Long userId) {
+        if (accountUserRepository.incrementAccountCount(userId, MAX_ACCOUNTS_PER_USER) == 0) {
+            throw new AccountException(accountUserRepository.existsById(userId)
+                    ? ErrorCode.MAX_ACCOUNT_PER_USER_ID : USER_NOT_FOUND);
         }
     }
 
-    @Transactional
-    public Account getAccount(Long id) {
-        return accountRepository.findById(id)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
-    }
-
     @Transactional
     public AccountDto deleteAccount(Long userId, String accountNumber) {
         AccountUser accountUser = getAccountUser(userId);
@@ -96,6 +72,9 @@ public class AccountService {
         account.setUnRegisteredAt(LocalDateTime.now());
 
         accountRepository.save(account);
+        // 같은 계좌를 동시에 해지하면 version 충돌로 한 쪽이 롤백되므로 계좌 수는 한 번만 내려간다.
+        accountUserRepository.decrementAccountCount(accountUser.getId());
+        accountMetadataCache.evictAfterCommit(accountNumber);
 
         return AccountDto.fromEntity(account);
     }
@@ -107,19 +86,26 @@ public class AccountService {
         if (account.getAccountStatus() == AccountStatus.UNREGISTERED) {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if (account.getBalance() > 0) {
+        if (getBalance(account) > 0) {
             throw new AccountException(ErrorCode.BALANCE_NOT_EMPTY);
         }
     }
 
+    /**
+     * 사용자 행을 잠그고 계좌 수를 사용 중인 계좌 개수로 다시 맞춘다.
+     * 잠그는 동안 진행 중인 계좌 생성이 커밋되기를 기다리므로 서비스 중에 실행해도 된다.
+     */
     @Transactional
-    public List<AccountDto> getAccountByUserId(Long userId) {
-        AccountUser accountUser = getAccountUser(userId);
+    public int recomputeAccountCounts(List<Long> userIds) {
+        accountUserRepository.findByIdInForUpdate(userIds);
+        return accountUserRepository.recomputeAccountCounts(userIds);
+    }
 
-        List<Account> accounts = accountRepository.findByAccountUser(accountUser);
-        return accounts.stream()
-                .map(AccountDto::fromEntity)
-                .collect(Collectors.toList());
+    private long getBalance(Account account) {
+        if (account.isSlotted()) {
+            return accountSlotService.getBalance(account);
+        }
+        return ledgerService.isEnabled() ? ledgerService.getBalance(account) : account.getBalance();
     }
 
     private AccountUser getAccountUser(Long userId) {
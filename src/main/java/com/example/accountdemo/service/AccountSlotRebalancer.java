@@ -0,0 +1,30 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 슬롯으로 나뉜 계좌마다 따로 트랜잭션을 열어 슬롯 잔액을 고르게 맞춘다.
+ * 한 계좌의 실패가 다른 계좌의 재분배를 막지 않도록 계좌별로 예외를 삼킨다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountSlotRebalancer {
+    private final AccountRepository accountRepository;
+    private final AccountSlotService accountSlotService;
+
+    @Scheduled(fixedDelayString = "${account.slot.rebalance-interval:1000}")
+    public void rebalance() {
+        for (Long accountId : accountRepository.findSlottedAccountIds()) {
+            try {
+                accountSlotService.rebalance(accountId);
+            } catch (RuntimeException e) {
+                log.error("Slot rebalance failed for accountId : {}", accountId, e);
+            }
+        }
+    }
+}
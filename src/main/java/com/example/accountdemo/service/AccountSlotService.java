@@ -0,0 +1,174 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.domain.Account;
+import com.example.accountdemo.domain.AccountSlot;
+import com.example.accountdemo.dto.AccountDto;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.AccountRepository;
+import com.example.accountdemo.repository.AccountSlotRepository;
+import com.example.accountdemo.type.AccountStatus;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static com.example.accountdemo.type.ErrorCode.*;
+
+/**
+ * 거래가 몰리는 계좌의 잔액을 여러 슬롯 행으로 나눠 관리한다.
+ * 차감은 임의의 슬롯부터 잔액이 충분한 슬롯 하나에 조건부 UPDATE 로 하고,
+ * 슬롯마다 조금씩 남아 어느 슬롯으로도 부족하면 한 슬롯으로 모은 뒤 다시 차감한다.
+ * 슬롯 사이의 치우침은 AccountSlotRebalancer 가 주기적으로 고르게 나눠 줄인다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountSlotService {
+    private final AccountRepository accountRepository;
+    private final AccountSlotRepository accountSlotRepository;
+    private final ConcurrencyModeResolver concurrencyModeResolver;
+    private final LedgerService ledgerService;
+
+    /**
+     * 계좌 잔액을 slotCount 개의 슬롯으로 옮기고 계좌 행의 잔액은 0 으로 둔다.
+     * 나누어 떨어지지 않는 나머지는 첫 슬롯에 둔다.
+     */
+    @Transactional
+    public AccountDto enableSlots(Long userId, String accountNumber, Integer slotCount) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+        validateEnableSlots(userId, account);
+
+        // 원장 모드였던 계좌는 원장을 접은 값을 슬롯으로 옮긴다.
+        long balance = ledgerService.isEnabled() ? ledgerService.getBalance(account) : account.getBalance();
+        List<AccountSlot> slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(AccountSlot.builder()
+                    .account(account)
+                    .slotIndex(i)
+                    .balance(balance / slotCount + (i == 0 ? balance % slotCount : 0))
+                    .build());
+        }
+        accountSlotRepository.saveAll(slots);
+
+        account.setBalance(0L);
+        account.setSlotCount(slotCount);
+        concurrencyModeResolver.markSlottedAfterCommit(accountNumber);
+
+        AccountDto accountDto = AccountDto.fromEntity(account);
+        accountDto.setBalance(balance);
+        return accountDto;
+    }
+
+    private void validateEnableSlots(Long userId, Account account) {
+        if (!Objects.equals(account.getAccountUser().getId(), userId)) {
+            throw new AccountException(USER_ACCOUNT_UN_MATCH);
+        }
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (account.isSlotted()) {
+            throw new AccountException(ACCOUNT_ALREADY_SLOTTED);
+        }
+    }
+
+    /**
+     * 차감했으면 true, 슬롯 합계로도 부족하면 false
+     */
+    @Transactional
+    public boolean debit(Account account, Long amount) {
+        int slotCount = account.getSlotCount();
+        // 같은 슬롯부터 시도하면 다시 한 행으로 몰리므로 시작 슬롯을 섞는다.
+        int start = ThreadLocalRandom.current().nextInt(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            if (accountSlotRepository.debitSlot(account.getId(), (start + i) % slotCount, amount) > 0) {
+                return true;
+            }
+        }
+        return gather(account.getId(), start, amount)
+                && accountSlotRepository.debitSlot(account.getId(), start, amount) > 0;
+    }
+
+    @Transactional
+    public void credit(Account account, Long amount) {
+        int slotIndex = ThreadLocalRandom.current().nextInt(account.getSlotCount());
+        accountSlotRepository.creditSlot(account.getId(), slotIndex, amount);
+    }
+
+    public long getBalance(Account account) {
+        return accountSlotRepository.sumBalanceByAccountId(account.getId());
+    }
+
+    /**
+     * 슬롯으로 나뉜 계좌들의 슬롯 잔액 합계를 한 번에 구한다. 키는 계좌 아이디
+     */
+    public Map<Long, Long> getBalances(Collection<Long> slottedAccountIds) {
+        if (slottedAccountIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return accountSlotRepository.sumBalanceByAccountIds(slottedAccountIds).stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
+    }
+
+    /**
+     * 가장 적은 슬롯이 평균의 절반보다 적으면 모든 슬롯을 같은 금액으로 다시 나눈다.
+     * 재분배했으면 true
+     */
+    @Transactional
+    public boolean rebalance(Long accountId) {
+        List<AccountSlot> slots = accountSlotRepository.findByAccountIdForUpdate(accountId);
+        if (slots.isEmpty()) {
+            return false;
+        }
+        long total = slots.stream().mapToLong(AccountSlot::getBalance).sum();
+        long share = total / slots.size();
+        long min = slots.stream().mapToLong(AccountSlot::getBalance).min().orElse(0L);
+        if (min * 2 >= share) {
+            return false;
+        }
+        for (AccountSlot slot : slots) {
+            slot.setBalance(share);
+        }
+        slots.get(0).setBalance(share + total % slots.size());
+        log.debug("Rebalanced slots of accountId : {}", accountId);
+        return true;
+    }
+
+    // 다른 슬롯의 잔액을 targetIndex 슬롯으로 amount 가 될 때까지 옮긴다. 합계가 부족하면 false
+    // 계좌 락 없이 차감하므로 슬롯 하나씩 잡고 있는 두 배치가 함께 모으면 서로 기다리다 락 대기 시간을 넘긴다.
+    // 그 예외(PessimisticLockingFailureException)는 GlobalExceptionHandler 가 락 획득 실패로 응답한다.
+    private boolean gather(Long accountId, int targetIndex, Long amount) {
+        List<AccountSlot> slots = accountSlotRepository.findByAccountIdForUpdate(accountId);
+        long total = slots.stream().mapToLong(AccountSlot::getBalance).sum();
+        if (total < amount) {
+            return false;
+        }
+        AccountSlot target = slots.stream()
+                .filter(slot -> slot.getSlotIndex() == targetIndex)
+                .findFirst()
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        for (AccountSlot slot : slots) {
+            long needed = amount - target.getBalance();
+            if (needed <= 0) {
+                break;
+            }
+            if (slot == target) {
+                continue;
+            }
+            long moved = Math.min(needed, slot.getBalance());
+            slot.setBalance(slot.getBalance() - moved);
+            target.setBalance(target.getBalance() + moved);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.config.ConcurrencyProperties;
+import com.example.accountdemo.repository.AccountRepository;
+import com.example.accountdemo.type.AccountTier;
+import com.example.accountdemo.type.ConcurrencyMode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 계좌번호로 등급을 찾아 동시성 제어 방식을 정한다.
+ * 모든 등급이 같은 방식이면 조회하지 않고, 등급은 바뀌지 않으므로 조회 결과를 캐시한다.
+ * SLOTTED 는 슬롯으로 나뉜 계좌에만 적용하고 나머지 계좌는 LOCK 으로 처리한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConcurrencyModeResolver {
+    private static final int MAX_CACHED_TIERS = 10_000;
+
+    private final AccountRepository accountRepository;
+    private final ConcurrencyProperties concurrencyProperties;
+    private final Map<String, Boolean> slottedAccounts = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_CACHED_TIERS;
+                }
+            });
+    private final Map<String, AccountTier> accountTiers = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AccountTier> eldest) {
+                    return size() > MAX_CACHED_TIERS;
+                }
+            });
+
+    public ConcurrencyMode resolve(String accountNumber) {
+        ConcurrencyMode singleMode = getSingleMode();
+        ConcurrencyMode mode = singleMode != null
+                ? singleMode : concurrencyProperties.getMode(getAccountTier(accountNumber));
+        if (mode == ConcurrencyMode.SLOTTED && !isSlotted(accountNumber)) {
+            return ConcurrencyMode.LOCK;
+        }
+        return mode;
+    }
+
+    /**
+     * SLOTTED 를 쓰는 등급이 없으면 조회하지 않고 false
+     * 슬롯으로 나눈 계좌는 다시 합치지 않으므로 조회 결과를 캐시하고,
+     * 다른 노드에서 나눈 계좌는 서비스가 차감에 실패했을 때 markSlotted 로 알려준다.
+     */
+    public boolean isSlotted(String accountNumber) {
+        boolean slottedModeUsed = Arrays.stream(AccountTier.values())
+                .anyMatch(tier -> concurrencyProperties.getMode(tier) == ConcurrencyMode.SLOTTED);
+        if (!slottedModeUsed) {
+            return false;
+        }
+        Boolean slotted = slottedAccounts.get(accountNumber);
+        if (slotted == null) {
+            return accountRepository.findSlotCountByAccountNumber(accountNumber)
+                    .map(slotCount -> {
+                        slottedAccounts.put(accountNumber, slotCount > 0);
+                        return slotCount > 0;
+                    })
+                    .orElse(false);
+        }
+        return slotted;
+    }
+
+    public void markSlotted(String accountNumber) {
+        slottedAccounts.put(accountNumber, true);
+    }
+
+    // 슬롯으로 나누는 트랜잭션이 롤백되면 없는 슬롯으로 보내지 않도록 커밋된 뒤에 표시한다.
+    public void markSlottedAfterCommit(String accountNumber) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markSlotted(accountNumber);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markSlotted(accountNumber);
+            }
+        });
+    }
+
+    private ConcurrencyMode getSingleMode() {
+        ConcurrencyMode mode = concurrencyProperties.getMode(AccountTier.STANDARD);
+        boolean allSame = Arrays.stream(AccountTier.values())
+                .allMatch(tier -> concurrencyProperties.getMode(tier) == mode);
+        return allSame ? mode : null;
+    }
+
+    private AccountTier getAccountTier(String accountNumber) {
+        AccountTier accountTier = accountTiers.get(accountNumber);
+        if (accountTier == null) {
+            // 없는 계좌는 캐시하지 않고 기본 등급으로 처리, 서비스에서 ACCOUNT_NOT_FOUND 로 실패한다.
+            return accountRepository.findAccountTierByAccountNumber(accountNumber)
+                    .map(tier -> {
+                        accountTiers.put(accountNumber, tier);
+                        return tier;
+                    })
+                    .orElse(AccountTier.STANDARD);
+        }
+        return accountTier;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 일별 집계를 도입하기 전 거래로 집계를 채우는 백필
+ * 계좌마다 별도 트랜잭션으로 오늘 이전 날짜의 집계를 다시 만들고, 계좌들은 parallelism 개씩 동시에 처리한다.
+ * 오늘 이후 집계는 건드리지 않으므로 서비스 중에 실행해도 새 거래의 집계와 겹치지 않는다.
+ * 슬롯, 원장 계좌가 아직 flush 하지 않은 오늘 이전 날짜의 건수는 다시 만든 집계에 들어 있으므로
+ * 계좌를 백필하는 트랜잭션에서 버린다.
+ */
+@Slf4j
+@Component
+public class DailyRollupBackfill {
+    private final AccountRepository accountRepository;
+    private final DailyRollupService dailyRollupService;
+    private final int parallelism;
+    private final boolean onStartup;
+
+    public DailyRollupBackfill(
+            AccountRepository accountRepository,
+            DailyRollupService dailyRollupService,
+            @Value("${account.rollup.backfill-parallelism:4}") int parallelism,
+            @Value("${account.rollup.backfill-on-startup:false}") boolean onStartup
+    ) {
+        this.accountRepository = accountRepository;
+        this.dailyRollupService = dailyRollupService;
+        this.parallelism = parallelism;
+        this.onStartup = onStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (onStartup) {
+            backfill(LocalDate.now());
+        }
+    }
+
+    /**
+     * 다시 만든 집계 행 수, 실패한 계좌는 로그만 남기고 나머지 계좌를 계속 처리한다.
+     */
+    public int backfill(LocalDate until) {
+        List<Long> accountIds = accountRepository.findAllIds();
+        log.info("Daily rollup backfill started for {} accounts until {}", accountIds.size(), until);
+        return ParallelBatchRunner.run("Daily rollup backfill", accountIds, parallelism,
+                accountId -> dailyRollupService.backfillAccount(accountId, until));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.domain.DailyRollupId;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 슬롯, 원장 계좌의 일별 집계를 행마다 따로 트랜잭션을 열어 upsert 한다.
+ * 한 행의 실패가 다른 행을 막지 않도록 행별로 예외를 삼키고, 실패한 행은 다음 주기에 다시 시도한다.
+ * 종료할 때 남은 집계를 한 번 더 내보낸다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DailyRollupFlusher {
+    private final DailyRollupService dailyRollupService;
+
+    @Scheduled(fixedDelayString = "${account.rollup.flush-interval:1000}")
+    public void flush() {
+        for (DailyRollupId id : dailyRollupService.getDeferredIds()) {
+            try {
+                dailyRollupService.flush(id);
+            } catch (RuntimeException e) {
+                log.error("Daily rollup flush failed for accountId : {}", id.getAccountId(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
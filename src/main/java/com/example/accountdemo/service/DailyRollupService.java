@@ -0,0 +1,196 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.domain.Account;
+import com.example.accountdemo.domain.DailyRollupId;
+import com.example.accountdemo.domain.Transaction;
+import com.example.accountdemo.dto.DailyRollupDto;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.AccountRepository;
+import com.example.accountdemo.repository.DailyRollupRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.example.accountdemo.type.ErrorCode.INVALID_REQUEST;
+
+/**
+ * 계좌별 일별 거래 집계
+ * 거래를 저장하는 트랜잭션 안에서 집계 행을 upsert 하므로 거래가 롤백되면 집계도 함께 롤백된다.
+ * 슬롯, 원장 계좌는 계좌 행 락을 피하려고 나눈 계좌라 같은 집계 행에 다시 모이지 않도록
+ * 커밋된 뒤 노드 메모리에 더해 두고 DailyRollupFlusher 가 주기마다 행당 한 번 upsert 한다.
+ * 그래서 이 계좌들의 집계는 flush 주기만큼 늦고, 노드가 비정상 종료되면 backfill 로 다시 만든다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyRollupService {
+    private static final long MAX_RANGE_DAYS = 366L;
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final AccountRepository accountRepository;
+    private final LedgerService ledgerService;
+    private final Map<DailyRollupId, Delta> deferred = new ConcurrentHashMap<>();
+
+    public void record(Transaction transaction) {
+        if (isDeferred(transaction.getAccount())) {
+            deferAfterCommit(rollupId(transaction), transaction.getAmount());
+            return;
+        }
+        dailyRollupRepository.upsert(
+                transaction.getAccount().getId(),
+                transaction.getTransactedAt().toLocalDate(),
+                transaction.getTransactionType().name(),
+                transaction.getTransactionResultType().name(),
+                1L,
+                transaction.getAmount()
+        );
+    }
+
+    public List<DailyRollupId> getDeferredIds() {
+        return new ArrayList<>(deferred.keySet());
+    }
+
+    /**
+     * 모아둔 한 행의 건수와 금액을 upsert 한다. 롤백되면 다음 flush 에서 다시 시도하도록 되돌려 놓는다.
+     */
+    @Transactional
+    public void flush(DailyRollupId id) {
+        Delta delta = deferred.remove(id);
+        if (delta == null) {
+            return;
+        }
+        restoreOnRollback(id, delta);
+        dailyRollupRepository.upsert(
+                id.getAccountId(),
+                id.getRollupDate(),
+                id.getTransactionType().name(),
+                id.getTransactionResultType().name(),
+                delta.count(),
+                delta.amount()
+        );
+    }
+
+    // 모아서 저장한 거래는 같은 집계 행끼리 묶어 행마다 한 번만 upsert 한다.
+    public void recordAll(List<Transaction> transactions) {
+        Map<DailyRollupId, long[]> totals = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            long[] total = totals.computeIfAbsent(new DailyRollupId(
+                    transaction.getAccount().getId(),
+                    transaction.getTransactedAt().toLocalDate(),
+                    transaction.getTransactionType(),
+                    transaction.getTransactionResultType()
+            ), id -> new long[2]);
+            total[0]++;
+            total[1] += transaction.getAmount();
+        }
+        totals.forEach((id, total) -> dailyRollupRepository.upsert(
+                id.getAccountId(),
+                id.getRollupDate(),
+                id.getTransactionType().name(),
+                id.getTransactionResultType().name(),
+                total[0],
+                total[1]
+        ));
+    }
+
+    private boolean isDeferred(Account account) {
+        return ledgerService.isEnabled() || account.isSlotted();
+    }
+
+    private void deferAfterCommit(DailyRollupId id, long amount) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            defer(id, new Delta(1L, amount));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                defer(id, new Delta(1L, amount));
+            }
+        });
+    }
+
+    private void restoreOnRollback(DailyRollupId id, Delta delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    defer(id, delta);
+                }
+            }
+        });
+    }
+
+    private void defer(DailyRollupId id, Delta delta) {
+        deferred.merge(id, delta, Delta::plus);
+    }
+
+    private static DailyRollupId rollupId(Transaction transaction) {
+        return new DailyRollupId(
+                transaction.getAccount().getId(),
+                transaction.getTransactedAt().toLocalDate(),
+                transaction.getTransactionType(),
+                transaction.getTransactionResultType()
+        );
+    }
+
+    /**
+     * from ~ to (양 끝 포함) 의 일별 집계, 읽는 행 수는 거래 수가 아니라 날짜 수에 비례한다.
+     */
+    public List<DailyRollupDto> getRollups(String accountNumber, LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        Long accountId = accountRepository.findIdByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+        return dailyRollupRepository.findByAccountIdBetween(accountId, from, to)
+                .stream()
+                .map(DailyRollupDto::fromEntity)
+                .toList();
+    }
+
+    /**
+     * until 이전 날짜의 집계를 거래 테이블에서 다시 만들고 until 이후 집계는 건드리지 않는다.
+     * 아직 flush 하지 않은 until 이전 날짜의 건수는 다시 만든 집계에 이미 들어 있으므로 버린다.
+     */
+    @Transactional
+    public int backfillAccount(Long accountId, LocalDate until) {
+        discardDeferred(accountId, until);
+        dailyRollupRepository.deleteByAccountIdBefore(accountId, until);
+        return dailyRollupRepository.insertFromTransactions(accountId, until.atStartOfDay());
+    }
+
+    // 롤백되면 다시 만든 집계도 없어지므로 버린 건수를 되돌려 놓는다.
+    private void discardDeferred(Long accountId, LocalDate until) {
+        for (DailyRollupId id : deferred.keySet()) {
+            if (id.getAccountId().equals(accountId) && id.getRollupDate().isBefore(until)) {
+                Delta delta = deferred.remove(id);
+                if (delta != null) {
+                    restoreOnRollback(id, delta);
+                }
+            }
+        }
+    }
+
+    private record Delta(long count, long amount) {
+        private Delta plus(Delta other) {
+            return new Delta(count + other.count, amount + other.amount);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.aop.LockPolicy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 계좌 행 락(SELECT ... FOR UPDATE)
+ * 행 락은 DB 트랜잭션에 묶여 있어 서비스 트랜잭션 밖에서 잡아둘 수 없다.
+ * 그래서 여기서는 바로 허용하고, 서비스가 계좌를 읽을 때
+ * AccountRepository.findByAccountNumberForUpdate 로 커밋까지 행을 잠근다.
+ * 같은 노드의 요청은 LockService 의 로컬 스트라이프 락에서 먼저 줄을 선다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "account.lock", name = "backend", havingValue = "database")
+public class DatabaseAccountLockBackend implements AccountLockBackend {
+    @Override
+    public boolean tryLock(String accountNumber, LockPolicy policy, long waitMillis) {
+        return true;
+    }
+
+    @Override
+    public void unlock(String accountNumber, LockPolicy policy) {
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(String accountNumber, LockPolicy policy, long ownerId) {
+        return CompletableFuture.completedFuture(true);
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String accountNumber, LockPolicy policy, long ownerId) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public OptionalLong nextFencingToken(String accountNumber) {
+        return OptionalLong.empty();
+    }
+
+    @Override
+    public CompletableFuture<OptionalLong> nextFencingTokenAsync(String accountNumber) {
+        return CompletableFuture.completedFuture(OptionalLong.empty());
+    }
+
+    @Override
+    public boolean isRowLockRequired() {
+        return true;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.FailedTransactionRecord;
+import com.example.accountdemo.type.FailedRecordOverflowPolicy;
+import com.example.accountdemo.type.TransactionType;
+import com.example.accountdemo.dto.FailedTransactionQueueStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 실패한 거래(F)를 요청 스레드에서 바로 저장하지 않고 대기열에 넣는다.
+ * 백그라운드 스레드 하나가 대기열을 비우며 모인 만큼 한 트랜잭션으로 저장하므로
+ * 실패 요청이 몰려도 계좌 락을 잡은 채 DB 트랜잭션을 한 번 더 쓰지 않는다.
+ * 대기열이 가득 찼을 때의 동작은 overflow-policy 로 정하고(기본은 버리지 않는 CALLER_RUNS),
+ * 버린 기록 수는 /metrics/failed-transactions 로 확인한다. 종료할 때 남은 기록을 모두 저장한다.
+ * 저장 스레드는 빈 초기화가 끝난 뒤(@PostConstruct) 시작하고, 그 전에 들어온 기록은 호출한 스레드에서 저장한다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionRecorder {
+    private static final long POLL_TIMEOUT_MILLIS = 200L;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5L;
+
+    private final TransactionService transactionService;
+    private final BlockingQueue<FailedTransactionRecord> queue;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final FailedRecordOverflowPolicy overflowPolicy;
+    private final ExecutorService writer;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean running;
+
+    public FailedTransactionRecorder(
+            TransactionService transactionService,
+            @Value("${account.failed-transaction.queue-capacity:10000}") int queueCapacity,
+            @Value("${account.failed-transaction.batch-size:500}") int batchSize,
+            @Value("${account.failed-transaction.overflow-policy:CALLER_RUNS}")
+            FailedRecordOverflowPolicy overflowPolicy
+    ) {
+        this.transactionService = transactionService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.writer = Executors.newSingleThreadExecutor(
+                runnable -> new Thread(runnable, "failed-transaction-writer"));
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer.execute(this::drainLoop);
+    }
+
+    public void recordUse(String accountNumber, Long amount) {
+        record(TransactionType.USE, accountNumber, amount);
+    }
+
+    public void recordCancel(String accountNumber, Long amount) {
+        record(TransactionType.CANCEL, accountNumber, amount);
+    }
+
+    // 이체 실패는 보내는 계좌에만 남긴다.
+    public void recordTransfer(String fromAccountNumber, Long amount) {
+        record(TransactionType.TRANSFER_OUT, fromAccountNumber, amount);
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public FailedTransactionQueueStatus getStatus() {
+        return FailedTransactionQueueStatus.builder()
+                .queueDepth(queue.size())
+                .queueCapacity(queueCapacity)
+                .overflowPolicy(overflowPolicy)
+                .droppedCount(droppedCount.get())
+                .build();
+    }
+
+    private void record(TransactionType transactionType, String accountNumber, Long amount) {
+        FailedTransactionRecord record = FailedTransactionRecord.builder()
+                .transactionType(transactionType)
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .transactedAt(LocalDateTime.now())
+                .build();
+        if (!running) {
+            write(List.of(record));
+            return;
+        }
+        if (queue.offer(record)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case CALLER_RUNS -> write(List.of(record));
+            case DROP_OLDEST -> {
+                queue.poll();
+                countDropped();
+                if (!queue.offer(record)) {
+                    countDropped();
+                }
+            }
+            default -> countDropped();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Failed transaction writer did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 종료 중에 남은 기록은 호출한 스레드에서 모두 저장한다.
+        List<FailedTransactionRecord> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void drainLoop() {
+        List<FailedTransactionRecord> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                FailedTransactionRecord first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<FailedTransactionRecord> records) {
+        try {
+            transactionService.saveFailedTransactions(records);
+        } catch (RuntimeException e) {
+            log.error("Failed to save {} failed transactions", records.size(), e);
+        }
+    }
+
+    private void countDropped() {
+        long dropped = droppedCount.incrementAndGet();
+        if (dropped == 1 || dropped % 1000 == 0) {
+            log.warn("Failed transaction queue is full, {} records dropped", dropped);
+        }
+    }
+}
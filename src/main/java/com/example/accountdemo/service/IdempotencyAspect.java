@@ -0,0 +1,130 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.aop.AccountLockIdInterface;
+import com.example.accountdemo.aop.Idempotent;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 같은 멱등 키로 다시 온 요청은 계좌 락과 DB 를 거치지 않고 저장된 응답을 돌려준다.
+ * 락 AOP 보다 먼저 실행되어야 하므로 순서를 앞에 둔다.
+ * 먼저 온 요청이 아직 처리 중이면 그 결과를 기다리고, 실패하면 같은 예외로 응답한다.
+ * 실패도 저장한다. 잔액 부족 같은 업무 실패는 다시 해도 같고, 락 해제 실패처럼 커밋 뒤에 난 예외는
+ * 다시 실행하면 두 번 차감된다. 락 획득 실패처럼 쓰기 전에 난 것이 확실한 실패만 지워 다시 실행하게 한다.
+ * 같은 키라도 요청 본문(사용자, 금액, 취소할 거래 아이디 등)이 다르면 다른 거래의 응답을 돌려주지 않고 INVALID_REQUEST 로 거절한다.
+ */
+@Aspect
+@Component
+@Order(0)
+@Slf4j
+@RequiredArgsConstructor
+public class IdempotencyAspect {
+    // 락이나 레인 차례를 얻지 못했거나 트랜잭션이 롤백된 실패, 쓰기 전에 끝났으므로 다시 실행해도 된다.
+    private static final Set<ErrorCode> RETRYABLE_ERRORS = EnumSet.of(
+            ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+            ErrorCode.ACCOUNT_LANE_SATURATED,
+            ErrorCode.LOCK_LEASE_EXPIRED,
+            ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS
+    );
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Value("${account.idempotency.wait-time:5000}")
+    private long waitTime;
+
+    @Around("@annotation(idempotent) && args(request, idempotencyKey, ..)")
+    public Object aroundMethod(
+            ProceedingJoinPoint pjp,
+            Idempotent idempotent,
+            AccountLockIdInterface request,
+            String idempotencyKey
+    ) throws Throwable {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return pjp.proceed();
+        }
+        // 다른 계좌에 같은 키를 써도 섞이지 않게 계좌번호를 함께 쓴다.
+        String key = idempotent.value() + ":" + request.getAccountNumber() + ":" + idempotencyKey;
+        String fingerprint = objectMapper.writeValueAsString(request);
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        IdempotencyStore.Entry stored = idempotencyStore.putIfAbsent(key, fingerprint, pending);
+        if (stored != null) {
+            if (!stored.fingerprint().equals(fingerprint)) {
+                log.error("Idempotency key reused with a different request : {}", key);
+                throw new AccountException(ErrorCode.INVALID_REQUEST);
+            }
+            log.info("Replay idempotent request : {}", key);
+            return replay(pjp, stored.response());
+        }
+
+        try {
+            Object result = pjp.proceed();
+            if (result instanceof CompletableFuture<?> future) {
+                future.whenComplete((value, error) -> complete(key, pending, value, error));
+            } else {
+                pending.complete(result);
+            }
+            return result;
+        } catch (Throwable t) {
+            complete(key, pending, null, t);
+            throw t;
+        }
+    }
+
+    private void complete(String key, CompletableFuture<Object> pending, Object value, Throwable error) {
+        if (error == null) {
+            pending.complete(value);
+            return;
+        }
+        Throwable cause = unwrap(error);
+        if (isRetryable(cause)) {
+            idempotencyStore.remove(key, pending);
+        }
+        pending.completeExceptionally(cause);
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof AccountException accountException) {
+            return RETRYABLE_ERRORS.contains(accountException.getErrorCode());
+        }
+        // version, 원장 seq 충돌이나 락 대기 시간 초과는 트랜잭션을 롤백시킨다.
+        return error instanceof ConcurrencyFailureException;
+    }
+
+    private Object replay(ProceedingJoinPoint pjp, CompletableFuture<Object> stored) throws Throwable {
+        Class<?> returnType = ((MethodSignature) pjp.getSignature()).getReturnType();
+        if (CompletableFuture.class.isAssignableFrom(returnType)) {
+            return stored.thenApply(value -> value);
+        }
+        try {
+            return stored.get(waitTime, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            throw new AccountException(ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
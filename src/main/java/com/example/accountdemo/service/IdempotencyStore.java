@@ -0,0 +1,84 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.exception.AccountException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.accountdemo.type.ErrorCode.IDEMPOTENCY_STORE_FULL;
+
+/**
+ * 멱등 키별 응답 저장소, 노드 로컬 메모리에 둔다.
+ * 처리 중인 요청도 미완료 future 로 먼저 넣어 두어 동시에 온 재요청이 결과를 기다리게 한다.
+ * 유효 시간이 모두 같으므로 넣은 순서가 곧 만료 순서이고, 앞에서부터 만료되거나 넘친 항목을 지운다.
+ * 넘칠 때 처리 중인 항목은 지우지 않는다. 지우면 재요청이 처음 요청과 함께 실행되므로 모두 처리 중이면 새 키를 거절한다.
+ * 처음 요청의 본문 지문(fingerprint)을 함께 두어 같은 키로 다른 요청이 오면 구분할 수 있게 한다.
+ */
+@Component
+public class IdempotencyStore {
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(1024);
+
+    public IdempotencyStore(
+            @Value("${account.idempotency.max-entries:100000}") int maxEntries,
+            @Value("${account.idempotency.ttl:600000}") long ttlMillis
+    ) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 키가 없으면 pending 을 넣고 null, 있으면 저장된 항목을 돌려준다.
+     * 가득 찼는데 처리가 끝난 항목이 없으면 IDEMPOTENCY_STORE_FULL
+     */
+    public synchronized Entry putIfAbsent(String key, String fingerprint, CompletableFuture<Object> pending) {
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        if (entries.size() >= maxEntries && !evictEldestCompleted()) {
+            throw new AccountException(IDEMPOTENCY_STORE_FULL);
+        }
+        entries.put(key, new Entry(fingerprint, pending, now + ttlMillis));
+        return null;
+    }
+
+    // 쓰기 전에 실패한 요청만 지운다. 다시 보내면 새로 처리된다.
+    public synchronized void remove(String key, CompletableFuture<Object> pending) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.response == pending) {
+            entries.remove(key);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean evictEldestCompleted() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().response.isDone()) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext() && iterator.next().expiresAt <= now) {
+            iterator.remove();
+        }
+    }
+
+    public record Entry(String fingerprint, CompletableFuture<Object> response, long expiresAt) {
+    }
+}
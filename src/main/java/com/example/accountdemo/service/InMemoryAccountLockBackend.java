@@ -0,0 +1,95 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.aop.LockPolicy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 프로세스 안의 계좌 락, 노드가 하나일 때와 테스트에서 Redis 없이 사용한다.
+ * 비동기 락은 스레드에 묶이면 안 되므로 ReentrantLock 대신 허가 1개짜리 세마포어를 쓴다.
+ * 보유자가 죽으면 프로세스도 같이 내려가므로 임대 시간과 펜싱 토큰은 두지 않는다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "account.lock", name = "backend", havingValue = "memory")
+public class InMemoryAccountLockBackend implements AccountLockBackend {
+    // 2의 거듭제곱이어야 인덱스 계산을 마스킹으로 할 수 있다.
+    private static final int STRIPES = 1024;
+    // 비동기 대기는 스레드를 재우지 않고 이 간격으로 다시 시도한다.
+    private static final long ASYNC_POLL_MILLIS = 5L;
+
+    private final Semaphore[] permits = createPermits();
+
+    @Override
+    public boolean tryLock(String accountNumber, LockPolicy policy, long waitMillis) throws InterruptedException {
+        return getPermit(accountNumber).tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void unlock(String accountNumber, LockPolicy policy) {
+        getPermit(accountNumber).release();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(String accountNumber, LockPolicy policy, long ownerId) {
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(policy.getEffectiveWaitTime());
+        return pollPermit(getPermit(accountNumber), deadline);
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String accountNumber, LockPolicy policy, long ownerId) {
+        getPermit(accountNumber).release();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public OptionalLong nextFencingToken(String accountNumber) {
+        return OptionalLong.empty();
+    }
+
+    @Override
+    public CompletableFuture<OptionalLong> nextFencingTokenAsync(String accountNumber) {
+        return CompletableFuture.completedFuture(OptionalLong.empty());
+    }
+
+    private static CompletableFuture<Boolean> pollPermit(Semaphore permit, long deadline) {
+        if (permit.tryAcquire()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (System.nanoTime() - deadline >= 0) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Executor delayed = CompletableFuture.delayedExecutor(ASYNC_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        return CompletableFuture.supplyAsync(() -> null, delayed)
+                .thenCompose(ignored -> pollPermit(permit, deadline));
+    }
+
+    // 같은 세마포어를 쓰는 계좌는 같은 키, 자릿수를 맞춰 문자열 순서가 인덱스 순서와 같게 한다.
+    @Override
+    public String lockKey(String accountNumber) {
+        return String.format("%04d", getStripe(accountNumber));
+    }
+
+    private Semaphore getPermit(String accountNumber) {
+        return permits[getStripe(accountNumber)];
+    }
+
+    private static int getStripe(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static Semaphore[] createPermits() {
+        Semaphore[] semaphores = new Semaphore[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            semaphores[i] = new Semaphore(1, true);
+        }
+        return semaphores;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.LockMetricsInfo;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 마이크로초 단위 2의 거듭제곱 버킷 히스토그램
+ * 기록은 LongAdder 만 건드리므로 락 경로에서 경합이 없고, 백분위는 버킷 상한으로 근사한다.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(0L, nanos / 1000L);
+        // 0 은 0번 버킷, 그 외에는 [2^(i-1), 2^i) 범위가 i번 버킷
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets[bucket].increment();
+        count.increment();
+        sumMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public LockMetricsInfo.Histogram snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        return LockMetricsInfo.Histogram.builder()
+                .count(total)
+                .meanMicros(total == 0L ? 0L : sumMicros.sum() / Math.max(1L, count.sum()))
+                .p50Micros(percentile(counts, total, 0.50))
+                .p90Micros(percentile(counts, total, 0.90))
+                .p99Micros(percentile(counts, total, 0.99))
+                .maxMicros(maxMicros.get())
+                .build();
+    }
+
+    private static long percentile(long[] counts, long total, double percentile) {
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0L) {
+                return i == 0 ? 0L : 1L << i;
+            }
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.domain.Account;
+import com.example.accountdemo.domain.BalanceSnapshot;
+import com.example.accountdemo.domain.LedgerEntry;
+import com.example.accountdemo.repository.BalanceSnapshotRepository;
+import com.example.accountdemo.repository.LedgerEntryRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 원장 모드의 잔액 계산
+ * 원장 모드에서는 계좌 행의 balance 를 더 이상 바꾸지 않고 시작 잔액으로만 쓴다.
+ * 잔액을 바꾸는 거래는 LedgerEntry 를 추가만 하고, 현재 잔액은 원장을 접은(fold) 값이다.
+ * 접은 값은 계좌별로 캐시하고, 읽을 때마다 캐시한 seq 이후의 원장만 더해 따라잡는다.
+ * 캐시에 없는 계좌는 마지막 스냅샷부터 다시 계산하고, snapshot-interval 번째 기록마다 스냅샷을 남긴다.
+ * 한 번 켠 뒤에 끄면 계좌 행의 balance 가 원장을 반영하지 않으므로 끄지 않는다.
+ */
+@Slf4j
+@Service
+public class LedgerService {
+    private static final int MAX_CACHED_POSITIONS = 10_000;
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final boolean enabled;
+    private final long snapshotInterval;
+    private final Map<Long, Position> positions = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Position> eldest) {
+                    return size() > MAX_CACHED_POSITIONS;
+                }
+            });
+
+    public LedgerService(
+            LedgerEntryRepository ledgerEntryRepository,
+            BalanceSnapshotRepository balanceSnapshotRepository,
+            @Value("${account.ledger.enabled:false}") boolean enabled,
+            @Value("${account.ledger.snapshot-interval:100}") long snapshotInterval
+    ) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.enabled = enabled;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 원장 모드에서만 사용, 원장 모드가 아니면 계좌 행의 balance 가 잔액이다.
+    public long getBalance(Account account) {
+        return current(account).getBalance();
+    }
+
+    // 엔티티 없이 조회할 때, initialBalance 는 원장 모드를 켜기 전 계좌 행의 잔액
+    public long getBalance(Long accountId, Long initialBalance) {
+        return current(accountId, initialBalance).getBalance();
+    }
+
+    /**
+     * 마지막 원장 기록까지 반영한 위치, append 할 때 그대로 넘겨야 한다.
+     */
+    public Position current(Account account) {
+        return current(account.getId(), account.getBalance());
+    }
+
+    private Position current(Long accountId, Long initialBalance) {
+        Position cached = positions.get(accountId);
+        Position base = cached != null ? cached : loadSnapshot(accountId, initialBalance);
+        LedgerEntryRepository.LedgerDelta delta =
+                ledgerEntryRepository.sumAfter(accountId, base.getSeq());
+        Position current = delta.getCount() == 0 ? base
+                : new Position(base.getSeq() + delta.getCount(), base.getBalance() + delta.getAmount());
+        positions.put(accountId, current);
+        return current;
+    }
+
+    /**
+     * position 다음 seq 로 원장을 추가하고 추가한 뒤의 잔액을 돌려준다.
+     * 그 사이 다른 거래가 같은 seq 를 먼저 썼다면 유니크 제약으로 실패하므로 version 충돌과 같이 던진다.
+     * 트랜잭션은 이미 롤백만 가능하므로 OPTIMISTIC 모드라면 트랜잭션째 다시 시도한다.
+     */
+    public long append(Account account, Position position, long amount, String transactionId) {
+        long seq = position.getSeq() + 1;
+        long balance = position.getBalance() + amount;
+        evictOnRollback(account.getId());
+        try {
+            ledgerEntryRepository.saveAndFlush(LedgerEntry.builder()
+                    .account(account)
+                    .seq(seq)
+                    .amount(amount)
+                    .transactionId(transactionId)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            log.error("Ledger seq {} already written for accountId : {}", seq, account.getId());
+            positions.remove(account.getId());
+            throw new OptimisticLockingFailureException("Ledger seq " + seq + " already written", e);
+        }
+        if (seq % snapshotInterval == 0) {
+            balanceSnapshotRepository.save(BalanceSnapshot.builder()
+                    .account(account)
+                    .seq(seq)
+                    .balance(balance)
+                    .build());
+        }
+        return balance;
+    }
+
+    private Position loadSnapshot(Long accountId, Long initialBalance) {
+        return balanceSnapshotRepository.findFirstByAccountIdOrderBySeqDesc(accountId)
+                .map(snapshot -> new Position(snapshot.getSeq(), snapshot.getBalance()))
+                .orElseGet(() -> new Position(0L, initialBalance));
+    }
+
+    // 같은 트랜잭션에서 읽은 값은 커밋 전 원장을 포함하므로 롤백되면 캐시를 버린다.
+    private void evictOnRollback(Long accountId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    positions.remove(accountId);
+                }
+            }
+        });
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Position {
+        private final long seq;
+        private final long balance;
+    }
+}
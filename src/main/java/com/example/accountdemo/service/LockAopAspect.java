@@ -1,33 +1,71 @@
 package com.example.accountdemo.service;
 
+import com.example.accountdemo.aop.AccountLock;
 import com.example.accountdemo.aop.AccountLockIdInterface;
+import com.example.accountdemo.aop.LockPolicy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @AccountLock 이 붙은 메서드를 계좌의 동시성 제어 방식에 맞춰 실행한다.
+ * CompletableFuture 를 돌려주는 메서드(비동기 API)는 락을 기다리는 동안 요청 스레드를 반환하고
+ * 본문은 차례가 오면 transactionExecutor 또는 계좌 레인에서 실행한다.
+ */
 @Aspect
 @Component
+@Order(1)
 @Slf4j
 @RequiredArgsConstructor
 public class LockAopAspect {
-    private final LockService lockService;
+    private final AccountConcurrencyExecutor accountConcurrencyExecutor;
+    private final ThreadPoolTaskExecutor transactionExecutor;
+    // 정책은 메서드마다 따로 두고, @AccountLock(policy) 로 이름을 준 메서드끼리만 함께 쓴다.
+    private final Map<Method, LockPolicy> lockPolicies = new ConcurrentHashMap<>();
+    private final Map<String, LockPolicy> sharedLockPolicies = new ConcurrentHashMap<>();
 
-    @Around("@annotation(com.example.accountdemo.aop.AccountLock) && args(request)")
+    @Around("@annotation(accountLock) && args(request, ..)")
     public Object aroundMethod(
             ProceedingJoinPoint pjp,
+            AccountLock accountLock,
             AccountLockIdInterface request
     ) throws Throwable {
-        // lock 취득 시도
-        lockService.lock(request.getAccountNumber());
-        try {
-            return pjp.proceed();
-        } finally {
-            // lock 해제
-        lockService.unlock(request.getAccountNumber());
+        MethodSignature signature = (MethodSignature) pjp.getSignature();
+        LockPolicy policy = lockPolicies.computeIfAbsent(signature.getMethod(), method -> resolvePolicy(accountLock));
+        Class<?> returnType = signature.getReturnType();
+        if (CompletableFuture.class.isAssignableFrom(returnType)) {
+            return accountConcurrencyExecutor.executeAsync(
+                    request.getAccountNumber(), policy, () -> proceedAndJoin(pjp), transactionExecutor);
+        }
+        return accountConcurrencyExecutor.proceed(request.getAccountNumber(), policy, pjp::proceed);
+    }
+
+    private LockPolicy resolvePolicy(AccountLock accountLock) {
+        if (accountLock.policy().isEmpty()) {
+            return LockPolicy.from(accountLock);
         }
+        return sharedLockPolicies.computeIfAbsent(accountLock.policy(), name -> LockPolicy.from(accountLock));
     }
 
+    private static Object proceedAndJoin(ProceedingJoinPoint pjp) {
+        try {
+            return ((CompletableFuture<?>) pjp.proceed()).join();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new CompletionException(t);
+        }
+    }
 }
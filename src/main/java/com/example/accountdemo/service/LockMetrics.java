@@ -0,0 +1,57 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.LockMetricsInfo;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 락 구간별 지표
+ * 1. wait : 락을 얻기까지 걸린 시간 (재시도 포함)
+ * 2. hold : lock 부터 unlock 까지 점유한 시간
+ * 3. failedAcquire : 락을 얻지 못하고 포기하기까지 걸린 시간
+ * 기다렸거나 실패한 계좌는 경합 계좌로 보고 상위 계좌를 추적한다.
+ */
+@Component
+public class LockMetrics {
+    public static final int HOT_ACCOUNT_CAPACITY = 128;
+    private static final long CONTENDED_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final LatencyHistogram holdTimes = new LatencyHistogram();
+    private final LatencyHistogram failedAcquireTimes = new LatencyHistogram();
+    private final TopKSketch contendedAccounts = new TopKSketch(HOT_ACCOUNT_CAPACITY);
+    // 계좌 락은 배타적이므로 계좌번호 하나에 점유 시작 시각도 하나다.
+    private final Map<String, Long> lockedAt = new ConcurrentHashMap<>();
+
+    public void recordAcquired(String accountNumber, long waitNanos, boolean contended) {
+        waitTimes.record(waitNanos);
+        if (contended || waitNanos >= CONTENDED_WAIT_NANOS) {
+            contendedAccounts.add(accountNumber);
+        }
+        lockedAt.put(accountNumber, System.nanoTime());
+    }
+
+    public void recordFailed(String accountNumber, long waitNanos) {
+        failedAcquireTimes.record(waitNanos);
+        contendedAccounts.add(accountNumber);
+    }
+
+    public void recordReleased(String accountNumber) {
+        Long startedAt = lockedAt.remove(accountNumber);
+        if (startedAt != null) {
+            holdTimes.record(System.nanoTime() - startedAt);
+        }
+    }
+
+    public LockMetricsInfo snapshot(int topK) {
+        return LockMetricsInfo.builder()
+                .wait(waitTimes.snapshot())
+                .hold(holdTimes.snapshot())
+                .failedAcquire(failedAcquireTimes.snapshot())
+                .hotAccounts(contendedAccounts.top(topK))
+                .build();
+    }
+}
@@ -1,43 +1,420 @@
 package com.example.accountdemo.service;
 
+import com.example.accountdemo.aop.AccountLockContext;
+import com.example.accountdemo.aop.LockPolicy;
 import com.example.accountdemo.exception.AccountException;
 import com.example.accountdemo.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
+/**
+ * 계좌 락은 두 단계로 잡는다.
+ * 1. 같은 노드 안의 요청은 계좌번호로 나눈 로컬 스트라이프 락에서 먼저 대기하고
+ * 2. 로컬 락을 잡은 요청만 설정된 락 백엔드(AccountLockBackend)를 시도한다.
+ * 같은 노드에서 경쟁하는 요청이 백엔드로 tryLock 재시도를 보내지 않게 하기 위함
+ * 공정(fair) 정책은 백엔드 락에만 적용되고 로컬 락은 항상 비공정 락이다.
+ * 비동기 경로는 스레드에 묶이지 않아야 하므로 로컬 락 없이 백엔드 락만 사용한다.
+ * 백엔드가 펜싱 토큰을 발급하면 락을 얻을 때마다 AccountLockContext 에 남겨
+ * 임대 시간이 지난 뒤 늦게 도착한 쓰기를 DB 에서 거절할 수 있게 한다.
+ * 여러 계좌를 함께 잠글 때(lockAll)는 로컬 락은 스트라이프 인덱스 순서로,
+ * 백엔드 락은 lockKey 순서로 잡아 서로 겹치는 계좌를 잠그는 요청끼리 교착되지 않는다.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LockService {
-    private final RedissonClient redissonClient;
+    // 2의 거듭제곱이어야 인덱스 계산을 마스킹으로 할 수 있다.
+    private static final int LOCAL_LOCK_STRIPES = 1024;
+    // 비동기 락의 소유자 아이디, 실제 스레드 아이디와 겹치지 않게 큰 값에서 시작한다.
+    private static final long ASYNC_OWNER_ID_BASE = 1L << 40;
+
+    private final AccountLockBackend accountLockBackend;
+    private final LockMetrics lockMetrics;
+    private final ReentrantLock[] localLocks = createLocalLocks();
+    private final AtomicLong asyncOwnerIds = new AtomicLong(ASYNC_OWNER_ID_BASE);
 
     public void lock(String accountNumber) {
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+        lock(accountNumber, LockPolicy.DEFAULT);
+    }
+
+    /**
+     * 정책의 대기 시간 안에 락을 잡지 못하면 retryCount 만큼
+     * 대기 시간을 두 배씩 늘려가며 다시 시도한다.
+     */
+    public void lock(String accountNumber, LockPolicy policy) {
         log.debug("Trying lock for accountNumber : {}", accountNumber);
-        try {
-            boolean isLock = lock.tryLock(1, 15, TimeUnit.SECONDS);
-            if (!isLock) {
+        long startedAt = System.nanoTime();
+        boolean contended = getLocalLock(accountNumber).isLocked();
+        for (int attempt = 0; ; attempt++) {
+            if (tryLock(accountNumber, policy)) {
+                lockMetrics.recordAcquired(accountNumber,
+                        System.nanoTime() - startedAt, contended || attempt > 0);
+                bindLockGrant(accountNumber, policy);
+                return;
+            }
+            if (attempt >= policy.getRetryCount()) {
                 log.error("=========== Lock acquisition failed========");
+                lockMetrics.recordFailed(accountNumber, System.nanoTime() - startedAt);
                 throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
             }
-        } catch (AccountException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Redis lock failed");
+            sleep(policy.getBackoff(attempt));
         }
     }
 
     public void unlock(String accountNumber) {
+        unlock(accountNumber, LockPolicy.DEFAULT);
+    }
+
+    public void unlock(String accountNumber, LockPolicy policy) {
         log.debug("Unlock for accountNumber : {}", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        // 다음 점유자가 기록하기 전에 점유 시간을 먼저 기록한다.
+        lockMetrics.recordReleased(accountNumber);
+        AccountLockContext.clear(accountNumber);
+        try {
+            accountLockBackend.unlock(accountNumber, policy);
+        } finally {
+            getLocalLock(accountNumber).unlock();
+        }
+    }
+
+    /**
+     * 계좌들을 모두 잠그거나 하나도 잠그지 않는다. 일부만 잡은 채로 기다리지 않고
+     * 하나라도 실패하면 잡은 락을 모두 풀었다가 retryCount 만큼 다시 시도한다.
+     */
+    public void lockAll(Collection<String> accountNumbers, LockPolicy policy) {
+        List<String> ordered = accountNumbers.stream().distinct().sorted().toList();
+        log.debug("Trying lock for accountNumbers : {}", ordered);
+        long startedAt = System.nanoTime();
+        for (int attempt = 0; ; attempt++) {
+            if (tryLockAll(ordered, policy)) {
+                long waitNanos = System.nanoTime() - startedAt;
+                for (String accountNumber : ordered) {
+                    lockMetrics.recordAcquired(accountNumber, waitNanos, attempt > 0);
+                }
+                bindLockGrants(ordered, policy);
+                return;
+            }
+            if (attempt >= policy.getRetryCount()) {
+                log.error("=========== Multi lock acquisition failed========");
+                long waitNanos = System.nanoTime() - startedAt;
+                for (String accountNumber : ordered) {
+                    lockMetrics.recordFailed(accountNumber, waitNanos);
+                }
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+            sleep(policy.getBackoff(attempt));
+        }
+    }
+
+    /**
+     * lockAll 로 잡은 락을 잡은 순서의 반대로 푼다.
+     */
+    public void unlockAll(Collection<String> accountNumbers, LockPolicy policy) {
+        List<String> ordered = accountNumbers.stream().distinct().sorted().toList();
+        log.debug("Unlock for accountNumbers : {}", ordered);
+        for (String accountNumber : ordered) {
+            lockMetrics.recordReleased(accountNumber);
+            AccountLockContext.clear(accountNumber);
+        }
+        try {
+            unlockBackends(new ArrayList<>(getBackendLockOwners(ordered).values()), policy);
+        } finally {
+            unlockLocals(getLocalLocks(ordered));
+        }
+    }
+
+    /**
+     * 락을 기다리는 동안 스레드를 점유하지 않고, 락을 얻으면 executor 에서 action 을 실행한 뒤
+     * 성공, 실패와 관계없이 락을 해제한다.
+     */
+    public <T> CompletableFuture<T> executeWithLockAsync(
+            String accountNumber,
+            LockPolicy policy,
+            Supplier<T> action,
+            Executor executor
+    ) {
+        return lockAsync(accountNumber, policy).thenCompose(ownerId -> {
+            long lockedAt = System.nanoTime();
+            CompletableFuture<T> result = nextFencingTokenAsync(accountNumber)
+                    .thenApplyAsync(fencingToken -> {
+                        bindLockGrant(accountNumber, fencingToken);
+                        try {
+                            return action.get();
+                        } finally {
+                            AccountLockContext.clear(accountNumber);
+                        }
+                    }, executor);
+            return result.handle((value, error) -> null)
+                    .thenCompose(ignored -> {
+                        policy.recordHoldTime(System.nanoTime() - lockedAt);
+                        return unlockAsync(accountNumber, policy, ownerId);
+                    })
+                    .handle((ignored, error) -> {
+                        if (error != null) {
+                            log.error("Async unlock failed", error);
+                        }
+                        return null;
+                    })
+                    .thenCompose(ignored -> result);
+        });
     }
 
-    private static String getLockKey(String accountNumber) {
-        return "ACLK:" + accountNumber;
+    /**
+     * 획득한 락의 소유자 아이디를 돌려준다. 해제할 때 같은 아이디를 넘겨야 한다.
+     */
+    public CompletableFuture<Long> lockAsync(String accountNumber, LockPolicy policy) {
+        log.debug("Trying async lock for accountNumber : {}", accountNumber);
+        long ownerId = asyncOwnerIds.incrementAndGet();
+        long startedAt = System.nanoTime();
+        return tryLockAsync(accountNumber, policy, ownerId, 0)
+                .whenComplete((ignored, error) -> {
+                    long waitNanos = System.nanoTime() - startedAt;
+                    if (error == null) {
+                        lockMetrics.recordAcquired(accountNumber, waitNanos, false);
+                    } else {
+                        lockMetrics.recordFailed(accountNumber, waitNanos);
+                    }
+                })
+                .thenApply(ignored -> ownerId);
+    }
+
+    public CompletableFuture<Void> unlockAsync(String accountNumber, LockPolicy policy, long ownerId) {
+        log.debug("Async unlock for accountNumber : {}", accountNumber);
+        lockMetrics.recordReleased(accountNumber);
+        return accountLockBackend.unlockAsync(accountNumber, policy, ownerId);
+    }
+
+    private void bindLockGrant(String accountNumber, LockPolicy policy) {
+        try {
+            bindLockGrant(accountNumber, accountLockBackend.nextFencingToken(accountNumber));
+        } catch (RuntimeException e) {
+            // 토큰 없이 진행하면 만료된 락의 쓰기를 막을 수 없으므로 락을 돌려주고 실패시킨다.
+            log.error("Fencing token issue failed", e);
+            try {
+                unlock(accountNumber, policy);
+            } catch (RuntimeException unlockError) {
+                log.error("Unlock after fencing token failure failed", unlockError);
+            }
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    private void bindLockGrant(String accountNumber, OptionalLong fencingToken) {
+        if (accountLockBackend.isRowLockRequired()) {
+            AccountLockContext.requireRowLock(accountNumber);
+        }
+        fencingToken.ifPresent(token -> AccountLockContext.setFencingToken(accountNumber, token));
+    }
+
+    private void bindLockGrants(List<String> ordered, LockPolicy policy) {
+        try {
+            for (String accountNumber : ordered) {
+                bindLockGrant(accountNumber, accountLockBackend.nextFencingToken(accountNumber));
+            }
+        } catch (RuntimeException e) {
+            log.error("Fencing token issue failed", e);
+            try {
+                unlockAll(ordered, policy);
+            } catch (RuntimeException unlockError) {
+                log.error("Unlock after fencing token failure failed", unlockError);
+            }
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    private CompletableFuture<OptionalLong> nextFencingTokenAsync(String accountNumber) {
+        return accountLockBackend.nextFencingTokenAsync(accountNumber)
+                .handle((fencingToken, error) -> {
+                    if (error != null) {
+                        log.error("Fencing token issue failed", error);
+                        throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                    }
+                    return fencingToken;
+                });
+    }
+
+    private CompletableFuture<Void> tryLockAsync(
+            String accountNumber,
+            LockPolicy policy,
+            long ownerId,
+            int attempt
+    ) {
+        return accountLockBackend.tryLockAsync(accountNumber, policy, ownerId)
+                .thenCompose(isLock -> {
+                    if (isLock) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (attempt >= policy.getRetryCount()) {
+                        log.error("=========== Async lock acquisition failed========");
+                        return CompletableFuture.failedFuture(
+                                new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+                    }
+                    Executor delayed = CompletableFuture.delayedExecutor(
+                            policy.getBackoff(attempt), TimeUnit.MILLISECONDS);
+                    return CompletableFuture.supplyAsync(() -> null, delayed)
+                            .thenCompose(ignored -> tryLockAsync(accountNumber, policy, ownerId, attempt + 1));
+                });
+    }
+
+    // 로컬 대기와 백엔드 대기는 하나의 대기 시간을 나눠 쓴다.
+    private boolean tryLock(String accountNumber, LockPolicy policy) {
+        long waitTime = policy.getEffectiveWaitTime();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTime);
+        ReentrantLock localLock = getLocalLock(accountNumber);
+
+        if (!tryLockLocal(localLock, waitTime)) {
+            return false;
+        }
+        try {
+            long remainingMillis = Math.max(0L,
+                    TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+            boolean isLock = accountLockBackend.tryLock(accountNumber, policy, remainingMillis);
+            if (!isLock) {
+                localLock.unlock();
+            }
+            return isLock;
+        } catch (InterruptedException e) {
+            localLock.unlock();
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        } catch (RuntimeException e) {
+            log.error("Lock backend failed");
+            return true;
+        }
+    }
+
+    // tryLock 과 같이 로컬 대기와 백엔드 대기가 하나의 대기 시간을 나눠 쓴다.
+    private boolean tryLockAll(List<String> ordered, LockPolicy policy) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(policy.getEffectiveWaitTime());
+        List<ReentrantLock> localLocks = getLocalLocks(ordered);
+        List<String> backendLockOwners = new ArrayList<>(getBackendLockOwners(ordered).values());
+        List<ReentrantLock> lockedLocals = new ArrayList<>(localLocks.size());
+        List<String> lockedBackends = new ArrayList<>(backendLockOwners.size());
+        boolean acquired = false;
+        try {
+            for (ReentrantLock localLock : localLocks) {
+                if (!tryLockLocal(localLock, remainingMillis(deadline))) {
+                    return false;
+                }
+                lockedLocals.add(localLock);
+            }
+            for (String accountNumber : backendLockOwners) {
+                if (!tryLockBackend(accountNumber, policy, remainingMillis(deadline))) {
+                    return false;
+                }
+                lockedBackends.add(accountNumber);
+            }
+            acquired = true;
+            return true;
+        } finally {
+            if (!acquired) {
+                try {
+                    unlockBackends(lockedBackends, policy);
+                } finally {
+                    unlockLocals(lockedLocals);
+                }
+            }
+        }
+    }
+
+    // 단건 tryLock 과 같이 백엔드 장애 시에는 로컬 락만으로 진행한다.
+    private boolean tryLockBackend(String accountNumber, LockPolicy policy, long waitMillis) {
+        try {
+            return accountLockBackend.tryLock(accountNumber, policy, waitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        } catch (RuntimeException e) {
+            log.error("Lock backend failed");
+            return true;
+        }
+    }
+
+    private void unlockBackends(List<String> lockedBackends, LockPolicy policy) {
+        for (int i = lockedBackends.size() - 1; i >= 0; i--) {
+            try {
+                accountLockBackend.unlock(lockedBackends.get(i), policy);
+            } catch (RuntimeException e) {
+                log.error("Unlock failed for accountNumber : {}", lockedBackends.get(i), e);
+            }
+        }
+    }
+
+    private static void unlockLocals(List<ReentrantLock> lockedLocals) {
+        for (int i = lockedLocals.size() - 1; i >= 0; i--) {
+            lockedLocals.get(i).unlock();
+        }
+    }
+
+    // 백엔드 락 키마다 그 키를 대표해 잠글 계좌, 키 순서로 정렬된다.
+    private Map<String, String> getBackendLockOwners(List<String> ordered) {
+        Map<String, String> owners = new TreeMap<>();
+        for (String accountNumber : ordered) {
+            owners.putIfAbsent(accountLockBackend.lockKey(accountNumber), accountNumber);
+        }
+        return owners;
+    }
+
+    // 같은 스트라이프를 쓰는 계좌가 있으면 한 번만 잡는다.
+    private List<ReentrantLock> getLocalLocks(List<String> ordered) {
+        return ordered.stream()
+                .mapToInt(LockService::getLocalLockIndex)
+                .distinct()
+                .sorted()
+                .mapToObj(index -> localLocks[index])
+                .toList();
+    }
+
+    private static long remainingMillis(long deadline) {
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    private boolean tryLockLocal(ReentrantLock localLock, long waitTime) {
+        try {
+            return localLock.tryLock(waitTime, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    private ReentrantLock getLocalLock(String accountNumber) {
+        return localLocks[getLocalLockIndex(accountNumber)];
+    }
+
+    private static int getLocalLockIndex(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return (hash ^ (hash >>> 16)) & (LOCAL_LOCK_STRIPES - 1);
+    }
+
+    private static ReentrantLock[] createLocalLocks() {
+        ReentrantLock[] locks = new ReentrantLock[LOCAL_LOCK_STRIPES];
+        for (int i = 0; i < LOCAL_LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
     }
 }
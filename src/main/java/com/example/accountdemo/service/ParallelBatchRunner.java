@@ -0,0 +1,52 @@
+package com.example.accountdemo.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToIntFunction;
+
+/**
+ * 복구, 백필처럼 가끔 돌리는 작업을 parallelism 개씩 동시에 실행하고 결과를 더한다.
+ * 실패한 작업은 로그만 남기고 나머지 작업을 계속 처리하며, 스레드는 실행이 끝나면 정리한다.
+ */
+@Slf4j
+final class ParallelBatchRunner {
+    private ParallelBatchRunner() {
+    }
+
+    /**
+     * 성공한 작업의 결과 합계, 중간에 인터럽트되면 남은 작업을 멈추고 0
+     */
+    static <T> int run(String name, List<T> items, int parallelism, ToIntFunction<T> task) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(items.size());
+            for (T item : items) {
+                futures.add(executor.submit(() -> task.applyAsInt(item)));
+            }
+            int total = 0;
+            int failed = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    total += futures.get(i).get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    log.error("{} failed for : {}", name, items.get(i), e.getCause());
+                }
+            }
+            log.info("{} finished, total : {}, failed : {}", name, total, failed);
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("{} interrupted", name);
+            return 0;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
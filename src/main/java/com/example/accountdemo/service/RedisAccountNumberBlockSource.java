@@ -0,0 +1,23 @@
+package com.example.accountdemo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis 카운터(ACNUMBLOCK)에서 블록 번호를 받는다. lock backend 가 redis 일 때만 사용할 수 있다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "account.account-number", name = "block-source", havingValue = "redis")
+public class RedisAccountNumberBlockSource implements AccountNumberBlockSource {
+    private static final String COUNTER_KEY = "ACNUMBLOCK";
+
+    private final RedissonClient redissonClient;
+
+    @Override
+    public long nextBlock() {
+        return redissonClient.getAtomicLong(COUNTER_KEY).getAndIncrement();
+    }
+}
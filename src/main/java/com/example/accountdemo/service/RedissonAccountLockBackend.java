@@ -0,0 +1,76 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.aop.LockPolicy;
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 분산 락(ACLK:계좌번호)
+ * 여러 노드가 같은 계좌를 처리할 때 사용한다. 락마다 펜싱 토큰(ACFT:계좌번호)을 발급한다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "account.lock", name = "backend", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedissonAccountLockBackend implements AccountLockBackend {
+    private final RedissonClient redissonClient;
+
+    @Override
+    public boolean tryLock(String accountNumber, LockPolicy policy, long waitMillis) throws InterruptedException {
+        return getDistributedLock(accountNumber, policy)
+                .tryLock(waitMillis, policy.getLeaseTime(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void unlock(String accountNumber, LockPolicy policy) {
+        getDistributedLock(accountNumber, policy).unlock();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(String accountNumber, LockPolicy policy, long ownerId) {
+        return getDistributedLock(accountNumber, policy)
+                .tryLockAsync(policy.getEffectiveWaitTime(), policy.getLeaseTime(),
+                        TimeUnit.MILLISECONDS, ownerId)
+                .toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String accountNumber, LockPolicy policy, long ownerId) {
+        return getDistributedLock(accountNumber, policy)
+                .unlockAsync(ownerId)
+                .toCompletableFuture();
+    }
+
+    @Override
+    public OptionalLong nextFencingToken(String accountNumber) {
+        return OptionalLong.of(
+                redissonClient.getAtomicLong(getFencingTokenKey(accountNumber)).incrementAndGet());
+    }
+
+    @Override
+    public CompletableFuture<OptionalLong> nextFencingTokenAsync(String accountNumber) {
+        return redissonClient.getAtomicLong(getFencingTokenKey(accountNumber))
+                .incrementAndGetAsync()
+                .toCompletableFuture()
+                .thenApply(OptionalLong::of);
+    }
+
+    private RLock getDistributedLock(String accountNumber, LockPolicy policy) {
+        String lockKey = getLockKey(accountNumber);
+        return policy.isFair() ? redissonClient.getFairLock(lockKey) : redissonClient.getLock(lockKey);
+    }
+
+    private static String getLockKey(String accountNumber) {
+        return "ACLK:" + accountNumber;
+    }
+
+    private static String getFencingTokenKey(String accountNumber) {
+        return "ACFT:" + accountNumber;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.accountdemo.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 승인(authorize)으로 잡아 둔 금액을 메모리에만 보관하는 장부
+ * 승인마다 DB 에 쓰지 않고 계좌별 홀드 합계만 유지해 사용 가능 잔액(잔액 - 홀드)을 계산한다.
+ * 만료는 타이머 휠로 처리한다. 만료 시각이 속한 칸에 홀드를 넣어 두고,
+ * 틱마다 한 칸씩 넘기며 만료된 홀드를 풀고 아직 남은 홀드는 다음 바퀴 칸에 다시 넣는다.
+ * 노드 메모리에만 있으므로 계좌 단위로 노드가 고정된 경우에만 노드 사이에서 일관된다.
+ */
+@Slf4j
+@Component
+public class ReservationLedger {
+    private final long ttl;
+    private final long tickMillis;
+    private final long startedAt = System.currentTimeMillis();
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final Map<String, Long> heldAmounts = new ConcurrentHashMap<>();
+    private final Queue<Hold>[] wheel;
+    // 다음에 넘길 틱, 틱을 넘기는 스레드만 올린다.
+    private volatile long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public ReservationLedger(
+            @Value("${account.hold.ttl:900000}") long ttl,
+            @Value("${account.hold.tick:100}") long tickMillis,
+            @Value("${account.hold.wheel-size:512}") int wheelSize
+    ) {
+        this.ttl = ttl;
+        this.tickMillis = tickMillis;
+        this.wheel = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    public Hold reserve(String holdId, String accountNumber, Long userId, Long amount) {
+        Hold hold = new Hold(holdId, accountNumber, userId, amount, System.currentTimeMillis() + ttl);
+        heldAmounts.merge(accountNumber, amount, Long::sum);
+        holds.put(holdId, hold);
+        schedule(hold);
+        return hold;
+    }
+
+    public Optional<Hold> get(String holdId) {
+        return Optional.ofNullable(holds.get(holdId));
+    }
+
+    // 이미 풀렸거나 만료된 홀드면 빈 값
+    public Optional<Hold> release(String holdId) {
+        Hold hold = holds.remove(holdId);
+        if (hold == null) {
+            return Optional.empty();
+        }
+        subtractHeldAmount(hold);
+        return Optional.of(hold);
+    }
+
+    /**
+     * 확정(capture)할 홀드를 꺼내고 이 홀드를 뺀 나머지 홀드 합계를 돌려준다.
+     * 꺼낸 홀드는 다른 확정, 취소, 만료가 다시 잡지 못하고 금액은 커밋될 때까지 홀드 합계에 남는다.
+     * 커밋되면 합계에서 빼고, 롤백되면 홀드를 되돌려 놓는다. 이미 꺼냈거나 풀린 홀드면 빈 값
+     */
+    public OptionalLong claim(Hold hold) {
+        if (!holds.remove(hold.getHoldId(), hold)) {
+            return OptionalLong.empty();
+        }
+        long reserved = Math.max(0L, getHeldAmount(hold.getAccountNumber()) - hold.getAmount());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            subtractHeldAmount(hold);
+            return OptionalLong.of(reserved);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    subtractHeldAmount(hold);
+                } else {
+                    restore(hold);
+                }
+            }
+        });
+        return OptionalLong.of(reserved);
+    }
+
+    public long getHeldAmount(String accountNumber) {
+        return heldAmounts.getOrDefault(accountNumber, 0L);
+    }
+
+    public int size() {
+        return holds.size();
+    }
+
+    @Scheduled(fixedDelayString = "${account.hold.tick:100}")
+    public void advance() {
+        advance(System.currentTimeMillis());
+    }
+
+    void advance(long now) {
+        long targetTick = (now - startedAt) / tickMillis;
+        for (; currentTick <= targetTick; currentTick++) {
+            Queue<Hold> bucket = wheel[(int) (currentTick % wheel.length)];
+            // 다시 넣은 홀드를 이번 틱에서 또 꺼내지 않도록 처음 크기만큼만 꺼낸다.
+            for (int i = bucket.size(); i > 0; i--) {
+                Hold hold = bucket.poll();
+                if (hold == null) {
+                    break;
+                }
+                if (holds.get(hold.getHoldId()) != hold) {
+                    continue;
+                }
+                if (hold.getExpiresAt() <= now) {
+                    expire(hold);
+                } else {
+                    schedule(hold);
+                }
+            }
+        }
+    }
+
+    private void expire(Hold hold) {
+        if (holds.remove(hold.getHoldId(), hold)) {
+            subtractHeldAmount(hold);
+            log.debug("Hold expired : {}", hold.getHoldId());
+        }
+    }
+
+    // 꺼내 둔 사이 휠에서 빠졌을 수 있으므로 다시 넣는다. 같은 홀드가 두 번 들어가도 한 번만 만료된다.
+    private void restore(Hold hold) {
+        holds.put(hold.getHoldId(), hold);
+        schedule(hold);
+    }
+
+    private void schedule(Hold hold) {
+        long tick = Math.max((hold.getExpiresAt() - startedAt) / tickMillis, currentTick + 1);
+        wheel[(int) (tick % wheel.length)].add(hold);
+    }
+
+    private void subtractHeldAmount(Hold hold) {
+        heldAmounts.computeIfPresent(hold.getAccountNumber(), (accountNumber, heldAmount) ->
+                heldAmount - hold.getAmount() == 0 ? null : heldAmount - hold.getAmount());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Hold {
+        private final String holdId;
+        private final String accountNumber;
+        private final Long userId;
+        private final Long amount;
+        private final long expiresAt;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * DB 시퀀스(account_number_block_seq)에서 블록 번호를 받는다.
+ * 시퀀스 값은 트랜잭션이 롤백되어도 되돌아가지 않으므로 블록이 두 노드에 나가는 일이 없다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "account.account-number", name = "block-source", havingValue = "sequence", matchIfMissing = true)
+public class SequenceAccountNumberBlockSource implements AccountNumberBlockSource {
+    private final AccountRepository accountRepository;
+
+    @Override
+    public long nextBlock() {
+        return accountRepository.nextAccountNumberBlock();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.accountdemo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시간순으로 증가하는 64비트 거래 아이디
+ * | 41비트 밀리초(2023-01-01 기준) | 10비트 노드 | 12비트 순번 |
+ * 13자리 Crockford base32 로 고정 길이 인코딩하므로 문자열 순서와 생성 순서가 같고,
+ * 거래 아이디 인덱스에 새 값이 항상 끝쪽으로 들어간다.
+ * 같은 밀리초에 순번이 다 차거나 시계가 뒤로 가면 기다리지 않고 다음 밀리초 값을 미리 쓴다.
+ * 노드 아이디가 겹치면 거래 아이디도 겹치므로, node-id 를 지정하지 않았을 때는
+ * memory 락 백엔드(단일 노드)면 0, redis 면 기동할 때 Redis 카운터(TXNODEID)로 받고
+ * database 면 기동하지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "account.transaction-id", name = "generator", havingValue = "snowflake", matchIfMissing = true)
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+    // 2023-01-01T00:00:00Z, 41비트로 약 69년
+    private static final long EPOCH_MILLIS = 1672531200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final String NODE_ID_COUNTER_KEY = "TXNODEID";
+
+    private final long nodeBits;
+    // (밀리초 << SEQUENCE_BITS) | 순번, 마지막으로 발급한 값
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public SnowflakeTransactionIdGenerator(
+            @Value("${account.transaction-id.node-id:#{null}}") Long nodeId,
+            @Value("${account.lock.backend:redis}") String lockBackend,
+            ObjectProvider<RedissonClient> redissonClient
+    ) {
+        this(resolveNodeId(nodeId, lockBackend, redissonClient.getIfAvailable()));
+    }
+
+    public SnowflakeTransactionIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+    }
+
+    static long resolveNodeId(Long nodeId, String lockBackend, RedissonClient redissonClient) {
+        if (nodeId != null) {
+            return nodeId;
+        }
+        if ("memory".equals(lockBackend)) {
+            return 0L;
+        }
+        if (redissonClient == null) {
+            throw new IllegalStateException(
+                    "account.transaction-id.node-id is required for lock backend " + lockBackend);
+        }
+        // 노드가 1024 개를 넘게 동시에 떠 있지 않는 한 살아 있는 노드끼리 겹치지 않는다.
+        long allocated = redissonClient.getAtomicLong(NODE_ID_COUNTER_KEY).getAndIncrement() & MAX_NODE_ID;
+        log.info("Allocated transaction id node-id : {}", allocated);
+        return allocated;
+    }
+
+    @Override
+    public String generate() {
+        return encode(nextId());
+    }
+
+    long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long state = lastState.updateAndGet(last -> Math.max(last + 1, now));
+        long millis = state >>> SEQUENCE_BITS;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
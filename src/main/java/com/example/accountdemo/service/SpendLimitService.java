@@ -0,0 +1,413 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.TransactionRepository;
+import com.example.accountdemo.repository.TransactionRepository.SpendRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.accountdemo.type.ErrorCode.SPEND_LIMIT_EXCEEDED;
+
+/**
+ * 계좌별, 사용자별 최근 1시간, 24시간 사용 한도
+ * 거래 테이블을 합산하지 않고 키마다 시간 칸의 링으로 사용 금액을 메모리에 유지한다.
+ * 링은 합계를 함께 들고 있어 한도 확인과 기록이 칸 개수와 관계없이 O(1) 이다.
+ * 한도 확인과 기록은 한 번에 처리하므로 같은 키의 동시 요청이 함께 한도를 넘지 않는다.
+ * 기동할 때 최근 24시간 거래로 새 링을 만들어 바꿔 끼우고,
+ * redis-sync 를 켜면 다른 노드에서 기록한 금액을 Redis pub/sub 으로 받아 반영한다.
+ * 노드마다 한도를 따로 확인하므로 노드 사이에서는 전파 지연만큼 한도를 넘을 수 있다.
+ */
+@Slf4j
+@Service
+public class SpendLimitService {
+    private static final String TOPIC = "ACSPEND";
+    // 1시간은 1분 칸 60개, 24시간은 15분 칸 96개로 나눠 칸 단위로 밀어낸다.
+    private static final long HOUR_BUCKET_MILLIS = 60_000L;
+    private static final int HOUR_BUCKETS = 60;
+    private static final long DAY_BUCKET_MILLIS = 900_000L;
+    private static final int DAY_BUCKETS = 96;
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectProvider<RedissonClient> redissonClient;
+    private final long accountHourlyLimit;
+    private final long accountDailyLimit;
+    private final long userHourlyLimit;
+    private final long userDailyLimit;
+    private final boolean redisSync;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Object rebuildLock = new Object();
+    private volatile Map<String, Counter> counters = new ConcurrentHashMap<>();
+    // 다시 만드는 동안의 기록, 다시 만들지 않을 때는 null
+    private volatile List<Spend> journal;
+    private volatile RTopic topic;
+
+    public SpendLimitService(
+            TransactionRepository transactionRepository,
+            ObjectProvider<RedissonClient> redissonClient,
+            @Value("${account.spend-limit.account-hourly:0}") long accountHourlyLimit,
+            @Value("${account.spend-limit.account-daily:0}") long accountDailyLimit,
+            @Value("${account.spend-limit.user-hourly:0}") long userHourlyLimit,
+            @Value("${account.spend-limit.user-daily:0}") long userDailyLimit,
+            @Value("${account.spend-limit.redis-sync:false}") boolean redisSync
+    ) {
+        this.transactionRepository = transactionRepository;
+        this.redissonClient = redissonClient;
+        this.accountHourlyLimit = accountHourlyLimit;
+        this.accountDailyLimit = accountDailyLimit;
+        this.userHourlyLimit = userHourlyLimit;
+        this.userDailyLimit = userDailyLimit;
+        this.redisSync = redisSync;
+    }
+
+    public boolean isEnabled() {
+        return isAccountLimited() || isUserLimited();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        // 다시 만드는 동안 들어온 다른 노드의 기록을 놓치지 않도록 구독을 먼저 한다.
+        if (redisSync) {
+            subscribe();
+        }
+        rebuild();
+    }
+
+    /**
+     * 한도 안이면 금액을 기록하고 기록한 시각을 돌려준다. 한도를 넘으면 기록하지 않고 실패한다.
+     */
+    public long consume(String accountNumber, Long userId, long amount) {
+        long now = System.currentTimeMillis();
+        consume(accountNumber, userId, amount, now);
+        return now;
+    }
+
+    void consume(String accountNumber, Long userId, long amount, long now) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (isAccountLimited()) {
+            add(accountKey(accountNumber), amount, now, now, accountHourlyLimit, accountDailyLimit);
+        }
+        if (isUserLimited()) {
+            try {
+                add(userKey(userId), amount, now, now, userHourlyLimit, userDailyLimit);
+            } catch (AccountException e) {
+                if (isAccountLimited()) {
+                    add(accountKey(accountNumber), -amount, now, now, 0L, 0L);
+                }
+                throw e;
+            }
+        }
+        publish(accountNumber, userId, amount, now);
+    }
+
+    /**
+     * consume 으로 기록한 금액을 기록했던 칸에서 뺀다. 이미 창을 벗어난 칸이면 무시한다.
+     */
+    public void refund(String accountNumber, Long userId, long amount, long spentAt) {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        apply(accountNumber, userId, -amount, spentAt, now);
+        publish(accountNumber, userId, -amount, spentAt);
+    }
+
+    // 차감은 성공했지만 트랜잭션이 롤백되면 기록한 금액을 되돌린다.
+    public void refundOnRollback(String accountNumber, Long userId, long amount, long spentAt) {
+        if (!isEnabled() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    refund(accountNumber, userId, amount, spentAt);
+                }
+            }
+        });
+    }
+
+    // 사용 취소는 커밋된 뒤에 원래 사용 시각의 칸에서 뺀다.
+    public void refundAfterCommit(String accountNumber, Long userId, long amount, LocalDateTime spentAt) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refund(accountNumber, userId, amount, toMillis(spentAt));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refund(accountNumber, userId, amount, toMillis(spentAt));
+            }
+        });
+    }
+
+    /**
+     * 최근 24시간의 사용 거래와 그 사이 취소된 사용 거래로 새 링을 만들어 바꿔 끼운다.
+     * 거래는 기준 시각 전까지만 읽고, 기준 시각 이후의 기록(이 노드, 다른 노드)은 journal 에서 다시 더한다.
+     * 만드는 동안에도 한도 확인은 기존 링으로 계속한다.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            journal = new ArrayList<>();
+        }
+        // journal 을 켠 뒤에 기준 시각을 잡아야 기준 시각 이후의 기록이 모두 journal 에 남는다.
+        long cutoff = System.currentTimeMillis();
+        LocalDateTime until = LocalDateTime.ofInstant(Instant.ofEpochMilli(cutoff), ZoneId.systemDefault());
+        LocalDateTime since = until.minusDays(1);
+        try {
+            List<SpendRecord> spends = transactionRepository.findSpendsBetween(since, until);
+            List<SpendRecord> canceled = transactionRepository.findCanceledSpendsBetween(since, until);
+            Map<String, Counter> rebuilt = new ConcurrentHashMap<>();
+            for (SpendRecord spend : spends) {
+                apply(rebuilt, spend.getAccountNumber(), spend.getUserId(), spend.getAmount(),
+                        toMillis(spend.getTransactedAt()), cutoff);
+            }
+            for (SpendRecord spend : canceled) {
+                apply(rebuilt, spend.getAccountNumber(), spend.getUserId(), -spend.getAmount(),
+                        toMillis(spend.getTransactedAt()), cutoff);
+            }
+            synchronized (rebuildLock) {
+                for (Spend spend : journal) {
+                    if (spend.recordedAt() >= cutoff) {
+                        add(rebuilt, spend.key(), spend.amount(), spend.spentAt(), spend.recordedAt(), 0L, 0L);
+                    }
+                }
+                counters = rebuilt;
+            }
+            log.info("Rebuilt spend counters from {} spends, {} canceled", spends.size(), canceled.size());
+        } finally {
+            synchronized (rebuildLock) {
+                journal = null;
+            }
+        }
+    }
+
+    // 24시간 동안 사용이 없어 합계가 0 인 키는 지운다.
+    @Scheduled(fixedDelay = 60000L)
+    public void evictIdle() {
+        evictIdle(System.currentTimeMillis());
+    }
+
+    void evictIdle(long now) {
+        for (String key : counters.keySet()) {
+            counters.computeIfPresent(key, (k, counter) -> counter.isIdle(now) ? null : counter);
+        }
+    }
+
+    long getAccountSpent(String accountNumber, long now, boolean daily) {
+        return getSpent(accountKey(accountNumber), now, daily);
+    }
+
+    long getUserSpent(Long userId, long now, boolean daily) {
+        return getSpent(userKey(userId), now, daily);
+    }
+
+    void applyRemote(String message, long now) {
+        String[] fields = message.split(",");
+        if (fields.length != 5 || nodeId.equals(fields[0])) {
+            return;
+        }
+        apply(fields[1], Long.valueOf(fields[2]), Long.parseLong(fields[3]), Long.parseLong(fields[4]), now);
+    }
+
+    private long getSpent(String key, long now, boolean daily) {
+        long[] spent = new long[1];
+        counters.computeIfPresent(key, (k, counter) -> {
+            spent[0] = daily ? counter.day.sum(now) : counter.hour.sum(now);
+            return counter;
+        });
+        return spent[0];
+    }
+
+    // 한도 확인 없이 기록한다. 되돌리기, 다른 노드의 기록에 쓴다.
+    private void apply(String accountNumber, Long userId, long amount, long spentAt, long now) {
+        if (isAccountLimited()) {
+            add(accountKey(accountNumber), amount, spentAt, now, 0L, 0L);
+        }
+        if (isUserLimited()) {
+            add(userKey(userId), amount, spentAt, now, 0L, 0L);
+        }
+    }
+
+    // 다시 만드는 중인 링에 기록한다.
+    private void apply(Map<String, Counter> target, String accountNumber, Long userId,
+                       long amount, long spentAt, long now) {
+        if (isAccountLimited()) {
+            add(target, accountKey(accountNumber), amount, spentAt, now, 0L, 0L);
+        }
+        if (isUserLimited()) {
+            add(target, userKey(userId), amount, spentAt, now, 0L, 0L);
+        }
+    }
+
+    // 다시 만드는 중이 아니면 락 없이 기록하고, 다시 만드는 중이면 새 링으로 바꿔 끼우는 것과 겹치지 않게 journal 에도 남긴다.
+    private void add(String key, long amount, long spentAt, long now, long hourlyLimit, long dailyLimit) {
+        if (journal == null) {
+            add(counters, key, amount, spentAt, now, hourlyLimit, dailyLimit);
+            return;
+        }
+        synchronized (rebuildLock) {
+            add(counters, key, amount, spentAt, now, hourlyLimit, dailyLimit);
+            List<Spend> pending = journal;
+            if (pending != null) {
+                pending.add(new Spend(key, amount, spentAt, now));
+            }
+        }
+    }
+
+    // 키마다 compute 안에서만 링을 읽고 바꾸므로 확인과 기록 사이에 다른 요청이 끼어들지 않는다.
+    private static void add(Map<String, Counter> target, String key, long amount, long spentAt, long now,
+                            long hourlyLimit, long dailyLimit) {
+        target.compute(key, (k, counter) -> {
+            Counter current = counter == null ? new Counter() : counter;
+            if (amount > 0 && current.exceeds(amount, now, hourlyLimit, dailyLimit)) {
+                throw new AccountException(SPEND_LIMIT_EXCEEDED);
+            }
+            current.add(amount, spentAt, now);
+            return current;
+        });
+    }
+
+    private void subscribe() {
+        RedissonClient client = redissonClient.getIfAvailable();
+        if (client == null) {
+            log.warn("Spend limit redis sync is enabled but no redis client is configured");
+            return;
+        }
+        RTopic spendTopic = client.getTopic(TOPIC, StringCodec.INSTANCE);
+        spendTopic.addListener(String.class,
+                (channel, message) -> applyRemote(message, System.currentTimeMillis()));
+        topic = spendTopic;
+    }
+
+    // 기록을 전파하지 못해도 이 노드의 한도 확인에는 영향이 없으므로 거래는 계속한다.
+    private void publish(String accountNumber, Long userId, long amount, long spentAt) {
+        RTopic spendTopic = topic;
+        if (spendTopic == null) {
+            return;
+        }
+        try {
+            spendTopic.publishAsync(String.join(",", nodeId, accountNumber,
+                    String.valueOf(userId), String.valueOf(amount), String.valueOf(spentAt)));
+        } catch (RuntimeException e) {
+            log.error("Spend publish failed for accountNumber : {}", accountNumber, e);
+        }
+    }
+
+    private boolean isAccountLimited() {
+        return accountHourlyLimit > 0 || accountDailyLimit > 0;
+    }
+
+    private boolean isUserLimited() {
+        return userHourlyLimit > 0 || userDailyLimit > 0;
+    }
+
+    private static String accountKey(String accountNumber) {
+        return "A:" + accountNumber;
+    }
+
+    private static String userKey(Long userId) {
+        return "U:" + userId;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Spend(String key, long amount, long spentAt, long recordedAt) {
+    }
+
+    private static class Counter {
+        private final Window hour = new Window(HOUR_BUCKET_MILLIS, HOUR_BUCKETS);
+        private final Window day = new Window(DAY_BUCKET_MILLIS, DAY_BUCKETS);
+
+        private boolean exceeds(long amount, long now, long hourlyLimit, long dailyLimit) {
+            return (hourlyLimit > 0 && hour.sum(now) + amount > hourlyLimit)
+                    || (dailyLimit > 0 && day.sum(now) + amount > dailyLimit);
+        }
+
+        private void add(long amount, long spentAt, long now) {
+            hour.add(amount, spentAt, now);
+            day.add(amount, spentAt, now);
+        }
+
+        private boolean isIdle(long now) {
+            return day.sum(now) == 0L;
+        }
+    }
+
+    /**
+     * 시간 칸의 링. 칸 번호는 시각 / 칸 길이이고, 링의 자리는 칸 번호 % 칸 개수이다.
+     * 시간이 지나 창을 벗어난 칸은 다음에 읽거나 쓸 때 비우면서 합계에서 뺀다.
+     */
+    private static class Window {
+        private final long bucketMillis;
+        private final long[] amounts;
+        private long total;
+        // 링에 반영된 마지막 칸 번호
+        private long lastBucket = -1L;
+
+        private Window(long bucketMillis, int buckets) {
+            this.bucketMillis = bucketMillis;
+            this.amounts = new long[buckets];
+        }
+
+        private long sum(long now) {
+            advance(now);
+            return Math.max(0L, total);
+        }
+
+        private void add(long amount, long spentAt, long now) {
+            advance(now);
+            // 다른 노드의 시계가 앞서 있으면 지금 칸에 넣는다.
+            long bucket = Math.min(spentAt / bucketMillis, lastBucket);
+            if (bucket <= lastBucket - amounts.length) {
+                return;
+            }
+            amounts[(int) (bucket % amounts.length)] += amount;
+            total += amount;
+        }
+
+        private void advance(long now) {
+            long bucket = now / bucketMillis;
+            if (lastBucket < 0) {
+                lastBucket = bucket;
+                return;
+            }
+            // 링을 한 바퀴 넘게 쉬었으면 모든 칸을 한 번만 비운다.
+            long from = Math.max(lastBucket + 1, bucket - amounts.length + 1);
+            for (long expired = from; expired <= bucket; expired++) {
+                int index = (int) (expired % amounts.length);
+                total -= amounts[index];
+                amounts[index] = 0L;
+            }
+            lastBucket = Math.max(lastBucket, bucket);
+        }
+    }
+}
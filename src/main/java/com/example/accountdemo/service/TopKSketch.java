@@ -0,0 +1,130 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.LockMetricsInfo;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Space-Saving 알고리즘으로 가장 자주 나온 키 k 개를 추적한다.
+ * 카운터는 capacity 개로 고정되어 계좌 수와 관계없이 메모리가 일정하다.
+ * 새 키가 들어왔는데 카운터가 가득 차면 가장 작은 카운터를 물려받고
+ * 물려받은 값은 error 로 남겨 count - error 가 실제 횟수의 하한이 된다.
+ * 카운터는 같은 count 끼리 버킷으로 묶어 count 오름차순 연결 리스트로 두므로(Stream-Summary)
+ * 증가와 최솟값 교체 모두 카운터 수와 관계없이 상수 시간이다. 락 경합 중에 호출되므로 중요하다.
+ */
+public class TopKSketch {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    // count 가 가장 작은 버킷
+    private Bucket head;
+
+    public TopKSketch(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void add(String key) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            Bucket bucket = counter.bucket;
+            bucket.counters.remove(counter);
+            place(counter, bucket, bucket.count + 1L);
+            removeIfEmpty(bucket);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter(key, 0L);
+            counters.put(key, counter);
+            if (head == null || head.count != 1L) {
+                Bucket bucket = new Bucket(1L);
+                bucket.next = head;
+                if (head != null) {
+                    head.prev = bucket;
+                }
+                head = bucket;
+            }
+            head.counters.add(counter);
+            counter.bucket = head;
+            return;
+        }
+        Bucket min = head;
+        Counter evicted = min.counters.iterator().next();
+        min.counters.remove(evicted);
+        counters.remove(evicted.key);
+        counter = new Counter(key, min.count);
+        counters.put(key, counter);
+        place(counter, min, min.count + 1L);
+        removeIfEmpty(min);
+    }
+
+    public synchronized List<LockMetricsInfo.HotAccount> top(int k) {
+        return counters.values().stream()
+                .sorted(Comparator.comparingLong((Counter counter) -> counter.bucket.count).reversed())
+                .limit(k)
+                .map(counter -> LockMetricsInfo.HotAccount.builder()
+                        .accountNumber(counter.key)
+                        .count(counter.bucket.count)
+                        .error(counter.error)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    // after 바로 다음 버킷이 count 가 아니면 사이에 새 버킷을 만든다.
+    private static void place(Counter counter, Bucket after, long count) {
+        Bucket next = after.next;
+        if (next == null || next.count != count) {
+            Bucket bucket = new Bucket(count);
+            bucket.prev = after;
+            bucket.next = next;
+            after.next = bucket;
+            if (next != null) {
+                next.prev = bucket;
+            }
+            next = bucket;
+        }
+        next.counters.add(counter);
+        counter.bucket = next;
+    }
+
+    private void removeIfEmpty(Bucket bucket) {
+        if (!bucket.counters.isEmpty()) {
+            return;
+        }
+        if (bucket.prev == null) {
+            head = bucket.next;
+        } else {
+            bucket.prev.next = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.prev = bucket.prev;
+        }
+    }
+
+    private static class Bucket {
+        private final long count;
+        private final Set<Counter> counters = new LinkedHashSet<>();
+        private Bucket prev;
+        private Bucket next;
+
+        private Bucket(long count) {
+            this.count = count;
+        }
+    }
+
+    private static class Counter {
+        private final String key;
+        private final long error;
+        private Bucket bucket;
+
+        private Counter(String key, long error) {
+            this.key = key;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.aop.LockPolicy;
+import com.example.accountdemo.dto.TransactionDto;
+import com.example.accountdemo.dto.UseBalance;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 잔액 사용 배치
+ * 요청을 계좌번호로 묶어 계좌마다 락을 한 번만 잡고, 묶음 하나를 한 트랜잭션으로 처리한다.
+ * 락은 단건 API 와 같이 AccountConcurrencyExecutor 로 계좌의 동시성 제어 방식에 맞춰 잡는다.
+ * 결과는 요청 항목과 같은 순서로 돌려준다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionBatchService {
+    // 항목 수만큼 점유가 길어지므로 단건보다 임대 시간을 넉넉히 둔다.
+    // 임대가 먼저 끝나도 차감은 조건부 UPDATE 라 잔액이 음수가 되지는 않는다.
+    private static final LockPolicy BATCH_LOCK_POLICY = LockPolicy.builder()
+            .waitTime(5000L)
+            .leaseTime(30000L)
+            .retryCount(1)
+            .retryBackoff(100L)
+            .build();
+
+    private final AccountConcurrencyExecutor accountConcurrencyExecutor;
+    private final TransactionService transactionService;
+
+    public List<TransactionDto> useBalanceBatch(List<UseBalance.Request> requests) {
+        Map<String, List<Integer>> indexesByAccount = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByAccount
+                    .computeIfAbsent(requests.get(i).getAccountNumber(), key -> new ArrayList<>())
+                    .add(i);
+        }
+
+        TransactionDto[] results = new TransactionDto[requests.size()];
+        indexesByAccount.forEach((accountNumber, indexes) -> {
+            List<UseBalance.Request> group = indexes.stream()
+                    .map(requests::get)
+                    .toList();
+            List<TransactionDto> groupResults = useBalanceGroup(accountNumber, group);
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = groupResults.get(i);
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private List<TransactionDto> useBalanceGroup(String accountNumber, List<UseBalance.Request> group) {
+        try {
+            return accountConcurrencyExecutor.execute(accountNumber, BATCH_LOCK_POLICY,
+                    () -> transactionService.useBalanceBatch(accountNumber, group));
+        } catch (AccountException e) {
+            // 단건 API 와 같이 락을 잡지 못한 요청(재시도 초과, 레인 포화 포함)은 실패 거래로 남기지 않는다.
+            log.error("Failed to use balance batch : {}, accountNumber : {}", e.getErrorMessage(), accountNumber);
+            return failAll(accountNumber, group, e.getErrorCode());
+        }
+    }
+
+    private static List<TransactionDto> failAll(
+            String accountNumber,
+            List<UseBalance.Request> group,
+            ErrorCode errorCode
+    ) {
+        return group.stream()
+                .map(request -> TransactionDto.failedUse(accountNumber, request.getAmount(), errorCode))
+                .toList();
+    }
+}
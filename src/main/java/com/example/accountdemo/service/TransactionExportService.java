@@ -0,0 +1,92 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.TransactionHistory;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.AccountRepository;
+import com.example.accountdemo.repository.TransactionRepository;
+import com.example.accountdemo.repository.TransactionRepository.TransactionHistoryRow;
+import com.example.accountdemo.type.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_NOT_FOUND;
+
+/**
+ * 계좌의 전체 거래 내역을 NDJSON 또는 CSV 로 내보낸다.
+ * 거래를 List 로 모으지 않고 DB 커서로 fetch size 만큼씩 읽어 한 줄씩 바로 응답에 쓴다.
+ * 필요한 컬럼만 프로젝션으로 읽으므로 거래 엔티티가 영속성 컨텍스트에 쌓이지 않아
+ * 거래 수와 관계없이 메모리 사용량이 일정하다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+    private static final String CSV_HEADER =
+            "transactionId,transactionType,transactionResult,amount,balanceSnapshot,linkedTransactionId,transactedAt";
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    // 응답을 쓰기 시작하면 오류 응답을 보낼 수 없으므로 계좌는 먼저 확인한다.
+    public Long getAccountId(String accountNumber) {
+        return accountRepository.findIdByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+    }
+
+    /**
+     * 커서는 트랜잭션 안에서만 열려 있으므로 응답을 다 쓸 때까지 트랜잭션을 유지한다.
+     */
+    @Transactional
+    public long export(Long accountId, ExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long count = 0;
+        try (Stream<TransactionHistoryRow> rows = transactionRepository.streamHistory(accountId)) {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            Iterator<TransactionHistoryRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.write(format == ExportFormat.CSV ? toCsv(iterator.next()) : toJson(iterator.next()));
+                writer.write('\n');
+                count++;
+            }
+        }
+        writer.flush();
+        log.info("Exported {} transactions for accountId : {}", count, accountId);
+        return count;
+    }
+
+    private String toJson(TransactionHistoryRow row) throws IOException {
+        return objectMapper.writeValueAsString(TransactionHistory.Item.from(row));
+    }
+
+    // 거래 아이디와 enum 값에는 쉼표가 없으므로 따옴표로 감싸지 않는다. null 은 빈 칸
+    private static String toCsv(TransactionHistoryRow row) {
+        return String.join(",",
+                csvValue(row.getTransactionId()),
+                csvValue(row.getTransactionType()),
+                csvValue(row.getTransactionResultType()),
+                csvValue(row.getAmount()),
+                csvValue(row.getBalanceSnapshot()),
+                csvValue(row.getLinkedTransactionId()),
+                csvValue(row.getTransactedAt()));
+    }
+
+    private static String csvValue(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.accountdemo.service;
+
+/**
+ * 거래 아이디 생성기
+ * account.transaction-id.generator 값으로 snowflake(기본) / uuid 중 하나가 등록된다.
+ * 아이디는 문자열로 저장되고 조회(findByTransactionId)는 생성 방식과 관계없이 같다.
+ */
+public interface TransactionIdGenerator {
+    String generate();
+}
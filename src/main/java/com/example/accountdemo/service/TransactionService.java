@@ -1,44 +1,79 @@
 package com.example.accountdemo.service;
 
+import com.example.accountdemo.aop.AccountLockContext;
 import com.example.accountdemo.domain.Account;
-import com.example.accountdemo.domain.AccountUser;
 import com.example.accountdemo.domain.Transaction;
+import com.example.accountdemo.dto.AccountMetadata;
+import com.example.accountdemo.dto.FailedTransactionRecord;
+import com.example.accountdemo.dto.HoldDto;
+import com.example.accountdemo.dto.TransactionHistory;
 import com.example.accountdemo.dto.TransactionDto;
+import com.example.accountdemo.dto.UseBalance;
 import com.example.accountdemo.exception.AccountException;
 import com.example.accountdemo.repository.AccountRepository;
 import com.example.accountdemo.repository.AccountUserRepository;
 import com.example.accountdemo.repository.TransactionRepository;
+import com.example.accountdemo.repository.TransactionRepository.TransactionHistoryRow;
 import com.example.accountdemo.type.AccountStatus;
+import com.example.accountdemo.type.ErrorCode;
 import com.example.accountdemo.type.TransactionResultType;
 import com.example.accountdemo.type.TransactionType;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.example.accountdemo.type.ErrorCode.*;
 import static com.example.accountdemo.type.TransactionResultType.F;
 import static com.example.accountdemo.type.TransactionResultType.S;
 import static com.example.accountdemo.type.TransactionType.CANCEL;
+import static com.example.accountdemo.type.TransactionType.TRANSFER_IN;
+import static com.example.accountdemo.type.TransactionType.TRANSFER_OUT;
 import static com.example.accountdemo.type.TransactionType.USE;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final ConcurrencyModeResolver concurrencyModeResolver;
+    private final AccountSlotService accountSlotService;
+    private final ReservationLedger reservationLedger;
+    private final LedgerService ledgerService;
+    private final SpendLimitService spendLimitService;
+    private final DailyRollupService dailyRollupService;
+    private final AccountMetadataCache accountMetadataCache;
 
     /**
      * 사용자가 없는 경우, 계좌가 없는 경우
      * 사용자 아이디와 계좌 소유주가 다른 경우,
      * 계좌가 이미 해지 상태인 경우, 거래금액이 잔액보다 큰 경우,
      * 거래 금액이 너무 작거나 큰 경우 실패 응답
+     * 잔액 검사와 차감은 조건부 UPDATE 한 문장으로 처리하고,
+     * 차감되지 않았을 때만 사용자와 계좌를 읽어 실패 사유를 찾는다.
+     * 슬롯으로 나뉜 계좌는 계좌 행 대신 슬롯 행에서 차감한다.
+     * 승인(authorize)으로 잡힌 홀드 금액은 사용할 수 없는 잔액으로 본다.
+     * 원장 모드에서는 계좌 행을 바꾸지 않고 원장 기록을 추가한다.
+     * 계좌별, 사용자별 1시간, 24시간 사용 한도를 넘으면 실패 응답
      */
     @Transactional
     public TransactionDto useBalance(
@@ -46,41 +81,372 @@ public class TransactionService {
             String accountNumber,
             Long amount
     ) {
-        AccountUser user = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        checkFencingToken(accountNumber);
+        return debitAndSaveTransaction(userId, accountNumber, amount,
+                reservationLedger.getHeldAmount(accountNumber));
+    }
 
-        validateUseBalance(user, account, amount);
-        account.useBalance(amount);
+    /**
+     * 잔액을 차감하지 않고 사용 가능 잔액 안에서 금액을 홀드로 잡아 둔다.
+     * 홀드는 ReservationLedger 에만 있으므로 DB 에 쓰지 않고,
+     * capture 로 실제 사용 거래가 되거나 void, 만료로 풀린다.
+     */
+    @Transactional
+    public HoldDto authorizeBalance(
+            Long userId,
+            String accountNumber,
+            Long amount
+    ) {
+        validateUseAmount(amount);
+        validateAccountMetadata(userId, accountNumber);
+        Account account = getAccount(accountNumber);
 
+        validateUseBalance(account, amount,
+                getBalance(account) - reservationLedger.getHeldAmount(accountNumber));
 
-        return TransactionDto.fromEntity(
-                saveAtndGetTransaction(USE, S, amount, account)
-        );
+        return HoldDto.fromHold(reservationLedger.reserve(
+                transactionIdGenerator.generate(), accountNumber, userId, amount));
     }
 
-    private void validateUseBalance(AccountUser user, Account account, Long amount) {
-        if (!Objects.equals(user.getId(), account.getAccountUser().getId())) {
+    /**
+     * 홀드 금액으로 사용 거래를 만든다. 차감할 때는 이 홀드를 뺀 나머지 홀드만 사용할 수 없는 잔액으로 본다.
+     * 계좌 락을 잡지 않는 모드에서도 같은 홀드를 두 번 확정하지 않도록 홀드를 먼저 꺼내고,
+     * 차감이 롤백되면 승인이 그대로 남는다.
+     */
+    @Transactional
+    public TransactionDto captureHold(String holdId, Long userId, String accountNumber) {
+        ReservationLedger.Hold hold = getHold(holdId, userId, accountNumber);
+        checkFencingToken(accountNumber);
+        long reserved = reservationLedger.claim(hold)
+                .orElseThrow(() -> new AccountException(HOLD_NOT_FOUND));
+
+        return debitAndSaveTransaction(hold.getUserId(), accountNumber, hold.getAmount(), reserved);
+    }
+
+    public HoldDto voidHold(String holdId, Long userId, String accountNumber) {
+        getHold(holdId, userId, accountNumber);
+        return reservationLedger.release(holdId)
+                .map(HoldDto::fromHold)
+                .orElseThrow(() -> new AccountException(HOLD_NOT_FOUND));
+    }
+
+    // 홀드 아이디는 시간순이라 추측할 수 있으므로 승인한 사용자인지 확인한다.
+    private ReservationLedger.Hold getHold(String holdId, Long userId, String accountNumber) {
+        ReservationLedger.Hold hold = reservationLedger.get(holdId)
+                .filter(found -> found.getAccountNumber().equals(accountNumber))
+                .orElseThrow(() -> new AccountException(HOLD_NOT_FOUND));
+        if (!Objects.equals(hold.getUserId(), userId)) {
             throw new AccountException(USER_ACCOUNT_UN_MATCH);
         }
+        return hold;
+    }
+
+    /**
+     * 한 계좌의 잔액 사용 요청들을 요청 순서대로 한 트랜잭션에서 처리한다.
+     * 실패한 항목은 실패 거래로 남기고 다음 항목을 계속 처리한다.
+     * 항목의 예외는 트랜잭션 밖으로 나가지 않으므로 성공한 차감은 함께 커밋된다.
+     */
+    @Transactional
+    public List<TransactionDto> useBalanceBatch(
+            String accountNumber,
+            List<UseBalance.Request> requests
+    ) {
+        checkFencingToken(accountNumber);
+        long reserved = reservationLedger.getHeldAmount(accountNumber);
+        List<TransactionDto> results = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            try {
+                results.add(debitAndSaveTransaction(
+                        request.getUserId(), accountNumber, request.getAmount(), reserved));
+            } catch (AccountException e) {
+                // 원장 seq 충돌(OptimisticLockingFailureException)은 트랜잭션을 롤백만 가능하게 만들므로
+                // 항목 실패로 남기지 않고 배치 전체를 밖으로 던져 다시 시도하게 한다.
+                log.error("Failed to use balance in batch : {}", e.getErrorMessage());
+                results.add(saveFailedBatchTransaction(accountNumber, request.getAmount(), e.getErrorCode()));
+            }
+        }
+        return results;
+    }
+
+    private TransactionDto debitAndSaveTransaction(
+            Long userId, String accountNumber, Long amount, long reserved) {
+        return debitAndSaveTransaction(userId, accountNumber, amount, reserved, USE, null);
+    }
+
+    // 이체는 TRANSFER_OUT 으로, 받는 계좌 거래의 아이디를 linkedTransactionId 로 남긴다.
+    private TransactionDto debitAndSaveTransaction(
+            Long userId, String accountNumber, Long amount, long reserved,
+            TransactionType transactionType, String linkedTransactionId) {
+        validateUseAmount(amount);
+        long spentAt = spendLimitService.consume(accountNumber, userId, amount);
+        TransactionDto transactionDto;
+        try {
+            transactionDto = debitWithinSpendLimit(
+                    userId, accountNumber, amount, reserved, transactionType, linkedTransactionId);
+        } catch (RuntimeException e) {
+            // 배치는 항목의 실패를 트랜잭션 밖으로 내보내지 않으므로 바로 되돌린다.
+            spendLimitService.refund(accountNumber, userId, amount, spentAt);
+            throw e;
+        }
+        spendLimitService.refundOnRollback(accountNumber, userId, amount, spentAt);
+        return transactionDto;
+    }
+
+    private TransactionDto debitWithinSpendLimit(
+            Long userId, String accountNumber, Long amount, long reserved,
+            TransactionType transactionType, String linkedTransactionId) {
+        if (concurrencyModeResolver.isSlotted(accountNumber)) {
+            return debitSlotsAndSaveTransaction(userId, getAccount(accountNumber), amount, reserved,
+                    transactionType, linkedTransactionId);
+        }
+        if (ledgerService.isEnabled()) {
+            return appendUseAndSaveTransaction(userId, accountNumber, amount, reserved,
+                    transactionType, linkedTransactionId);
+        }
+        if (accountRepository.debitBalance(accountNumber, userId, amount, reserved, LocalDateTime.now()) == 0) {
+            Optional<Account> slotted = accountRepository.findByAccountNumber(accountNumber)
+                    .filter(Account::isSlotted);
+            if (slotted.isPresent()) {
+                // 다른 노드에서 슬롯으로 나뉜 계좌, 다음 요청부터는 바로 슬롯에서 차감한다.
+                concurrencyModeResolver.markSlotted(accountNumber);
+                return debitSlotsAndSaveTransaction(userId, slotted.get(), amount, reserved,
+                        transactionType, linkedTransactionId);
+            }
+            validateFailedDebit(userId, accountNumber, amount, reserved);
+            // 다시 읽었을 때 조건을 만족한다면 그 사이 다른 거래가 잔액을 바꾼 것
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+        Account account = getAccount(accountNumber);
+
+        return TransactionDto.fromEntity(saveAtndGetTransaction(
+                transactionType, S, amount, account, account.getBalance(),
+                transactionIdGenerator.generate(), linkedTransactionId)
+        );
+    }
+
+    // 슬롯 차감은 계좌 락 없이 진행되므로 홀드 확인은 차감 직전의 슬롯 합계 기준이다.
+    private TransactionDto debitSlotsAndSaveTransaction(
+            Long userId, Account account, Long amount, long reserved,
+            TransactionType transactionType, String linkedTransactionId) {
+        if (!Objects.equals(account.getAccountUser().getId(), userId)
+                || account.getAccountStatus() != AccountStatus.IN_USE) {
+            validateFailedDebit(userId, account.getAccountNumber(), amount, reserved);
+        }
+        if (reserved > 0 && accountSlotService.getBalance(account) - reserved < amount) {
+            throw new AccountException(AMOUNT_EXCEED_BALANCE);
+        }
+        if (!accountSlotService.debit(account, amount)) {
+            throw new AccountException(AMOUNT_EXCEED_BALANCE);
+        }
+
+        return TransactionDto.fromEntity(saveAtndGetTransaction(
+                transactionType, S, amount, account, accountSlotService.getBalance(account),
+                transactionIdGenerator.generate(), linkedTransactionId)
+        );
+    }
+
+    private TransactionDto appendUseAndSaveTransaction(
+            Long userId, String accountNumber, Long amount, long reserved,
+            TransactionType transactionType, String linkedTransactionId) {
+        validateAccountMetadata(userId, accountNumber);
+        Account account = getAccount(accountNumber);
+        LedgerService.Position position = ledgerService.current(account);
+
+        validateUseBalance(account, amount, position.getBalance() - reserved);
+
+        Transaction transaction = saveAtndGetTransaction(
+                transactionType, S, amount, account, position.getBalance() - amount,
+                transactionIdGenerator.generate(), linkedTransactionId);
+        ledgerService.append(account, position, -amount, transaction.getTransactionId());
+        return TransactionDto.fromEntity(transaction);
+    }
+
+    /**
+     * 보내는 계좌의 차감과 받는 계좌의 입금을 한 트랜잭션에서 처리하고
+     * 두 거래가 서로의 거래 아이디를 linkedTransactionId 로 가리키게 한다.
+     * 두 계좌의 락은 TransferService 가 LockService.lockAll 로 함께 잡는다.
+     */
+    @Transactional
+    public TransactionDto transferBalance(
+            Long userId,
+            String fromAccountNumber,
+            String toAccountNumber,
+            Long amount
+    ) {
+        if (fromAccountNumber.equals(toAccountNumber)) {
+            throw new AccountException(TRANSFER_TO_SAME_ACCOUNT);
+        }
+        checkFencingToken(fromAccountNumber);
+        checkFencingToken(toAccountNumber);
+        lockRowsInOrder(fromAccountNumber, toAccountNumber);
+
+        String depositTransactionId = transactionIdGenerator.generate();
+        TransactionDto withdrawal = debitAndSaveTransaction(
+                userId, fromAccountNumber, amount, reservationLedger.getHeldAmount(fromAccountNumber),
+                TRANSFER_OUT, depositTransactionId);
+        depositAndSaveTransaction(toAccountNumber, amount, depositTransactionId, withdrawal.getTransactionId());
+        return withdrawal;
+    }
+
+    // DB 락 백엔드는 행 락이 실제 배타 제어이므로 두 계좌 행도 계좌번호 순서로 잠근다.
+    private void lockRowsInOrder(String fromAccountNumber, String toAccountNumber) {
+        Stream.of(fromAccountNumber, toAccountNumber)
+                .filter(AccountLockContext::isRowLockRequired)
+                .sorted()
+                .forEach(this::getLockedAccount);
+    }
+
+    private void depositAndSaveTransaction(
+            String accountNumber, Long amount, String transactionId, String linkedTransactionId) {
+        Account account = getLockedAccount(accountNumber);
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+
+        long balance;
+        if (account.isSlotted()) {
+            accountSlotService.credit(account, amount);
+            balance = accountSlotService.getBalance(account);
+        } else if (ledgerService.isEnabled()) {
+            LedgerService.Position position = ledgerService.current(account);
+            balance = ledgerService.append(account, position, amount, transactionId);
+        } else {
+            if (accountRepository.creditBalance(accountNumber, amount, LocalDateTime.now()) == 0) {
+                throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            account = getAccount(accountNumber);
+            balance = account.getBalance();
+        }
+        saveAtndGetTransaction(TRANSFER_IN, S, amount, account, balance, transactionId, linkedTransactionId);
+    }
+
+    // 슬롯으로 나뉜 계좌는 슬롯 합계, 원장 모드는 원장을 접은 값이 잔액
+    private long getBalance(Account account) {
+        if (account.isSlotted()) {
+            return accountSlotService.getBalance(account);
+        }
+        return ledgerService.isEnabled() ? ledgerService.getBalance(account) : account.getBalance();
+    }
+
+    private Account getAccount(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+    }
+
+    private TransactionDto saveFailedBatchTransaction(String accountNumber, Long amount, ErrorCode errorCode) {
+        TransactionDto failed = accountRepository.findByAccountNumber(accountNumber)
+                .map(account -> TransactionDto.fromEntity(saveAtndGetTransaction(USE, F, amount, account)))
+                .orElseGet(() -> TransactionDto.failedUse(accountNumber, amount, errorCode));
+        failed.setErrorCode(errorCode);
+        return failed;
+    }
+
+    // 소유주가 아니거나 해지된 계좌는 계좌 행을 다시 읽지 않고 캐시한 계좌 정보로 실패 사유를 정한다.
+    private void validateFailedDebit(Long userId, String accountNumber, Long amount, long reserved) {
+        validateAccountMetadata(userId, accountNumber);
+        Account account = getAccount(accountNumber);
+
+        validateUseBalance(account, amount, getBalance(account) - reserved);
+    }
+
+    /**
+     * 소유주는 바뀌지 않으므로 AccountMetadataCache 의 소유주 아이디와 비교하고 AccountUser 는 읽지 않는다.
+     * 소유주가 아닐 때만 사용자가 있는지 확인해 USER_NOT_FOUND 와 USER_ACCOUNT_UN_MATCH 를 나눈다.
+     */
+    private void validateAccountMetadata(Long userId, String accountNumber) {
+        AccountMetadata metadata = accountMetadataCache.get(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        if (!Objects.equals(userId, metadata.getUserId())) {
+            throw new AccountException(accountUserRepository.existsById(userId)
+                    ? USER_ACCOUNT_UN_MATCH : USER_NOT_FOUND);
+        }
+        if (metadata.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+    }
+
+    /**
+     * 락을 잡고 들어온 요청이면 펜싱 토큰을 계좌 행에 먼저 기록한다.
+     * 계좌를 읽기 전에 기록해야 이후 잔액 변경이 오래된 토큰 값으로 덮어쓰지 않는다.
+     * 기록한 행은 커밋까지 DB 락이 걸리므로 늦게 온 이전 점유자의 쓰기는 여기서 거절된다.
+     */
+    private void checkFencingToken(String accountNumber) {
+        AccountLockContext.getFencingToken(accountNumber).ifPresent(fencingToken -> {
+            if (accountRepository.advanceFencingToken(accountNumber, fencingToken) == 0) {
+                accountRepository.findByAccountNumber(accountNumber)
+                        .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+                log.error("Stale fencing token {} for accountNumber : {}", fencingToken, accountNumber);
+                throw new AccountException(LOCK_LEASE_EXPIRED);
+            }
+        });
+    }
+
+    /**
+     * DB 락 백엔드로 들어온 요청은 계좌 행을 FOR UPDATE 로 읽어 커밋까지 잠근다.
+     */
+    private Account getLockedAccount(String accountNumber) {
+        try {
+            Optional<Account> account = AccountLockContext.isRowLockRequired(accountNumber)
+                    ? accountRepository.findByAccountNumberForUpdate(accountNumber)
+                    : accountRepository.findByAccountNumber(accountNumber);
+            return account.orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        } catch (PessimisticLockingFailureException e) {
+            log.error("Row lock failed for accountNumber : {}", accountNumber);
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    // availableBalance 는 홀드로 잡힌 금액을 뺀 잔액, 소유주는 validateAccountMetadata 에서 확인한다.
+    // 캐시한 상태는 늦게 반영될 수 있으므로 해지 여부는 읽은 계좌 행으로 다시 확인한다.
+    private void validateUseBalance(Account account, Long amount, long availableBalance) {
         if (account.getAccountStatus() != AccountStatus.IN_USE) {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if (account.getBalance() < amount) {
+        if (availableBalance < amount) {
             throw new AccountException(AMOUNT_EXCEED_BALANCE);
         }
+    }
+
+    private void validateUseAmount(Long amount) {
         if(amount < 100L || amount > 1000000000L) {
             throw new AccountException(AMOUNT_MIN_OR_MAX);
         }
     }
 
+    /**
+     * FailedTransactionRecorder 가 모은 실패 거래를 한 트랜잭션으로 저장한다.
+     * 계좌는 한 번에 조회하고, 없는 계좌의 기록은 남기지 않는다.
+     */
     @Transactional
-    public void saveFailedUseTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+    public void saveFailedTransactions(List<FailedTransactionRecord> records) {
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(
+                        records.stream()
+                                .map(FailedTransactionRecord::getAccountNumber)
+                                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
 
-        saveAtndGetTransaction(USE, F, amount, account);
+        Map<String, Long> balances = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>(records.size());
+        for (FailedTransactionRecord record : records) {
+            Account account = accounts.get(record.getAccountNumber());
+            if (account == null) {
+                log.error("Failed transaction for unknown accountNumber : {}", record.getAccountNumber());
+                continue;
+            }
+            transactions.add(Transaction.builder()
+                    .transactionType(record.getTransactionType())
+                    .transactionResultType(F)
+                    .account(account)
+                    .amount(record.getAmount())
+                    .balanceSnapshot(balances.computeIfAbsent(
+                            record.getAccountNumber(), accountNumber -> getBalance(account)))
+                    .transactionId(transactionIdGenerator.generate())
+                    .transactedAt(record.getTransactedAt())
+                    .build());
+        }
+        transactionRepository.saveAll(transactions);
+        dailyRollupService.recordAll(transactions);
     }
 
     private Transaction saveAtndGetTransaction(
@@ -88,17 +454,42 @@ public class TransactionService {
             TransactionResultType transactionResultType,
             Long amount,
             Account account) {
-        return transactionRepository.save(
+        return saveAtndGetTransaction(transactionType, transactionResultType, amount, account,
+                getBalance(account));
+    }
+
+    private Transaction saveAtndGetTransaction(
+            TransactionType transactionType,
+            TransactionResultType transactionResultType,
+            Long amount,
+            Account account,
+            Long balanceSnapshot) {
+        return saveAtndGetTransaction(transactionType, transactionResultType, amount, account,
+                balanceSnapshot, transactionIdGenerator.generate(), null);
+    }
+
+    private Transaction saveAtndGetTransaction(
+            TransactionType transactionType,
+            TransactionResultType transactionResultType,
+            Long amount,
+            Account account,
+            Long balanceSnapshot,
+            String transactionId,
+            String linkedTransactionId) {
+        Transaction transaction = transactionRepository.save(
                 Transaction.builder()
                         .transactionType(transactionType)
                         .transactionResultType(transactionResultType)
                         .account(account)
                         .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
+                        .balanceSnapshot(balanceSnapshot)
+                        .transactionId(transactionId)
+                        .linkedTransactionId(linkedTransactionId)
                         .transactedAt(LocalDateTime.now())
                         .build()
         );
+        dailyRollupService.record(transaction);
+        return transaction;
     }
 
     @Transactional
@@ -109,18 +500,39 @@ public class TransactionService {
     ) {
         Transaction transaction = transactionRepository.findByTransactionId(transactionId)
                 .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        checkFencingToken(accountNumber);
+        Account account = getLockedAccount(accountNumber);
 
         validateCancelBalance(transaction, account, amount);
+        spendLimitService.refundAfterCommit(account.getAccountNumber(), account.getAccountUser().getId(),
+                amount, transaction.getTransactedAt());
 
-        account.cancelBalance(amount);
+        if (account.isSlotted()) {
+            accountSlotService.credit(account, amount);
+        } else if (ledgerService.isEnabled()) {
+            return appendCancelAndSaveTransaction(account, amount, transactionId);
+        } else {
+            account.cancelBalance(amount);
+        }
 
-        return TransactionDto.fromEntity(
-                saveAtndGetTransaction(CANCEL, S, amount, account)
+        return TransactionDto.fromEntity(saveAtndGetTransaction(
+                CANCEL, S, amount, account, getBalance(account),
+                transactionIdGenerator.generate(), transactionId)
         );
     }
 
+    private TransactionDto appendCancelAndSaveTransaction(Account account, Long amount, String canceledTransactionId) {
+        if (amount < 0) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        LedgerService.Position position = ledgerService.current(account);
+        Transaction transaction = saveAtndGetTransaction(
+                CANCEL, S, amount, account, position.getBalance() + amount,
+                transactionIdGenerator.generate(), canceledTransactionId);
+        ledgerService.append(account, position, amount, transaction.getTransactionId());
+        return TransactionDto.fromEntity(transaction);
+    }
+
     /**
      * 거래 아이디에 해당하는 거래가 없는 경우,
      * 거래금액과 거래 취소 금액이 다른 경우(부분취소 불가) 실패 응답
@@ -136,6 +548,10 @@ public class TransactionService {
         if (!Objects.equals(transaction.getAccount().getId(), account.getId())) {
             throw new AccountException(TRANSACTION_ACCOUNT_UN_MATCH);
         }
+        // 이체는 받는 계좌에서 다시 차감해야 하므로 사용 취소로 되돌리지 않는다.
+        if (transaction.getTransactionType() != USE) {
+            throw new AccountException(TRANSACTION_NOT_CANCELABLE);
+        }
         if(!Objects.equals(transaction.getAmount(), amount)) {
             throw new AccountException(CANCEL_MUST_FULLY);
         }
@@ -144,21 +560,38 @@ public class TransactionService {
         }
     }
 
-    @Transactional
-    public void saveFailedCancelTransaction(
-            String accountNumber,
-            Long amount
-    ) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
-
-        saveAtndGetTransaction(CANCEL, F, amount, account);
-    }
-
     public TransactionDto queryTransaction(String transactionId) {
         return TransactionDto.fromEntity(
                 transactionRepository.findByTransactionId(transactionId)
                         .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND))
         );
     }
+
+    /**
+     * 계좌의 거래 내역을 최근 거래부터 size 개씩 돌려준다.
+     * cursor 가 있으면 그 거래보다 앞선 거래부터 인덱스로 바로 찾아가므로
+     * OFFSET 과 달리 몇 번째 페이지든 읽는 비용이 같다.
+     */
+    public TransactionHistory.Response getTransactionHistory(String accountNumber, String cursor, int size) {
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        TransactionHistory.Cursor after = cursor == null ? null : TransactionHistory.Cursor.decode(cursor);
+        Long accountId = accountRepository.findIdByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+        // 한 건 더 읽어 다음 페이지가 있는지 확인한다.
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<TransactionHistoryRow> rows = after == null
+                ? transactionRepository.findHistory(accountId, pageable)
+                : transactionRepository.findHistoryBefore(accountId, after.getTransactedAt(), after.getId(), pageable);
+        boolean hasNext = rows.size() > size;
+        List<TransactionHistoryRow> page = hasNext ? rows.subList(0, size) : rows;
+
+        return TransactionHistory.Response.builder()
+                .accountNumber(accountNumber)
+                .transactions(page.stream().map(TransactionHistory.Item::from).toList())
+                .nextCursor(hasNext ? TransactionHistory.Cursor.from(page.get(size - 1)).encode() : null)
+                .build();
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.aop.LockPolicy;
+import com.example.accountdemo.dto.TransactionDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 계좌 간 이체
+ * 두 계좌의 락을 LockService.lockAll 로 정해진 순서에 따라 함께 잡고
+ * 차감과 입금은 TransactionService 의 한 트랜잭션에서 처리한다.
+ * 이 락은 이체끼리, LOCK 모드 요청과의 순서만 정한다.
+ * LANE, OPTIMISTIC, SLOTTED 모드의 결제와 취소는 이 락을 잡지 않으므로
+ * 차감은 debitBalance, 입금은 creditBalance 처럼 조건부 UPDATE 한 문장으로 잔액을 바꾼다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransferService {
+    // 락 두 개를 한 대기 시간 안에 잡아야 하므로 단건보다 조금 길게 기다린다.
+    private static final LockPolicy TRANSFER_LOCK_POLICY = LockPolicy.builder()
+            .waitTime(3000L)
+            .leaseTime(5000L)
+            .retryCount(2)
+            .retryBackoff(50L)
+            .build();
+
+    private final LockService lockService;
+    private final TransactionService transactionService;
+
+    public TransactionDto transferBalance(
+            Long userId,
+            String fromAccountNumber,
+            String toAccountNumber,
+            Long amount
+    ) {
+        List<String> accountNumbers = List.of(fromAccountNumber, toAccountNumber);
+        lockService.lockAll(accountNumbers, TRANSFER_LOCK_POLICY);
+        try {
+            return transactionService.transferBalance(userId, fromAccountNumber, toAccountNumber, amount);
+        } finally {
+            lockService.unlockAll(accountNumbers, TRANSFER_LOCK_POLICY);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.accountdemo.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * 기존 방식의 32자리 랜덤 거래 아이디
+ */
+@Component
+@ConditionalOnProperty(prefix = "account.transaction-id", name = "generator", havingValue = "uuid")
+public class UuidTransactionIdGenerator implements TransactionIdGenerator {
+    @Override
+    public String generate() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.accountdemo.type;
+
+public enum AccountTier {
+    STANDARD,
+    MERCHANT
+}
@@ -0,0 +1,8 @@
+package com.example.accountdemo.type;
+
+public enum ConcurrencyMode {
+    LOCK,       // Redis 분산 락으로 직렬화
+    OPTIMISTIC, // 락 없이 version 충돌 시 재시도
+    LANE,       // 계좌번호로 정해진 단일 스레드 레인에서 순서대로 실행
+    SLOTTED     // 잔액을 나눈 슬롯 행마다 조건부 UPDATE, 슬롯으로 나누지 않은 계좌는 LOCK
+}
@@ -20,7 +20,17 @@ public enum ErrorCode {
     ACCOUNT_ALREADY_UNREGISTERED("계좌가 이미 해지 되었습니다."),
     BALANCE_NOT_EMPTY("잔액이 있는 계좌는 해지할 수 없습니다."),
     MAX_ACCOUNT_PER_USER_ID("사용자 최대 계좌는 10개 입니다.."),
-    AMOUNT_MIN_OR_MAX("사용하려는 금액이 최소 및 최대 사용 한도에 벗어났습니다.");
+    AMOUNT_MIN_OR_MAX("사용하려는 금액이 최소 및 최대 사용 한도에 벗어났습니다."),
+    ACCOUNT_LANE_SATURATED("거래 대기열이 가득 찼습니다. 잠시 후 다시 시도해 주세요."),
+    LOCK_LEASE_EXPIRED("계좌 락 점유 시간이 만료되어 거래를 처리할 수 없습니다."),
+    IDEMPOTENT_REQUEST_IN_PROGRESS("같은 멱등 키의 요청이 아직 처리 중입니다."),
+    IDEMPOTENCY_STORE_FULL("처리 중인 멱등 요청이 너무 많습니다. 잠시 후 다시 시도해 주세요."),
+    ACCOUNT_ALREADY_SLOTTED("이미 잔액이 슬롯으로 나뉜 계좌입니다."),
+    HOLD_NOT_FOUND("해당 홀드가 없거나 이미 만료되었습니다."),
+    TRANSFER_TO_SAME_ACCOUNT("같은 계좌로 이체할 수 없습니다."),
+    TRANSACTION_NOT_CANCELABLE("잔액 사용 거래만 취소할 수 있습니다."),
+    SPEND_LIMIT_EXCEEDED("기간별 사용 한도를 초과했습니다."),
+    EXPORT_SATURATED("진행 중인 거래 내역 내보내기가 많습니다. 잠시 후 다시 시도해 주세요.");
 
     private final String description;
 }
@@ -0,0 +1,7 @@
+package com.example.accountdemo.type;
+
+public enum FailedRecordOverflowPolicy {
+    DROP_NEWEST, // 대기열이 가득 차면 새 실패 기록을 버린다.
+    DROP_OLDEST, // 가장 오래된 기록을 버리고 새 기록을 넣는다.
+    CALLER_RUNS  // 요청 스레드에서 바로 저장한다. (기존 동기 저장과 같음)
+}
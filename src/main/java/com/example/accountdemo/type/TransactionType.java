@@ -1,5 +1,7 @@
 package com.example.accountdemo.type;
 
 public enum TransactionType {
-    USE, CANCEL
+    USE, CANCEL,
+    TRANSFER_OUT, // 이체로 보낸 계좌의 거래
+    TRANSFER_IN   // 이체로 받은 계좌의 거래
 }
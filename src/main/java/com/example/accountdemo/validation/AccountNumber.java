@@ -0,0 +1,28 @@
+package com.example.accountdemo.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * 첫 자리가 0 이 아닌 10자리 숫자이고 마지막 자리가 앞 9자리의 Luhn 검증 숫자인 계좌번호
+ * 형식이 틀린 계좌번호는 DB 를 조회하기 전에 요청 단계에서 거절한다. null 은 @NotBlank 가 검사한다.
+ */
+@Documented
+@Constraint(validatedBy = AccountNumberValidator.class)
+@Target({FIELD, PARAMETER})
+@Retention(RUNTIME)
+public @interface AccountNumber {
+    String message() default "invalid account number";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,51 @@
+package com.example.accountdemo.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class AccountNumberValidator implements ConstraintValidator<AccountNumber, String> {
+    public static final int LENGTH = 10;
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        return value == null || isValid(value);
+    }
+
+    public static boolean isValid(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != LENGTH || accountNumber.charAt(0) == '0') {
+            return false;
+        }
+        long body = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            if (i < LENGTH - 1) {
+                body = body * 10 + (c - '0');
+            }
+        }
+        return checkDigit(body) == accountNumber.charAt(LENGTH - 1) - '0';
+    }
+
+    /**
+     * Luhn 검증 숫자, 오른쪽 끝 자리부터 한 자리 걸러 두 배 한 합이 10의 배수가 되도록 한다.
+     * 한 자리 오타와 인접한 두 자리가 바뀐 오타 대부분을 잡는다.
+     */
+    public static int checkDigit(long body) {
+        int sum = 0;
+        boolean doubled = true;
+        for (long rest = body; rest > 0; rest /= 10) {
+            int digit = (int) (rest % 10);
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
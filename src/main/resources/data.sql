@@ -1,6 +1,9 @@
-insert into account_user(id, name, created_at, updated_at)
-values (1, 'Loopy', now(), now());
-insert into account_user(id, name, created_at, updated_at)
-values (2, 'Hyoki', now(), now());
-insert into account_user(id, name, created_at, updated_at)
-values (3, 'Woozi', now(), now());
+insert into account_user(id, name, account_count, created_at, updated_at)
+values (1, 'Loopy', 0, now(), now());
+insert into account_user(id, name, account_count, created_at, updated_at)
+values (2, 'Hyoki', 0, now(), now());
+insert into account_user(id, name, account_count, created_at, updated_at)
+values (3, 'Woozi', 0, now(), now());
+
+-- 계좌번호 블록 번호 (AccountNumberAllocator)
+create sequence if not exists account_number_block_seq start with 0 minvalue 0;
@@ -3,7 +3,7 @@ package com.example.accountdemo;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "account.lock.backend=memory")
 class AccountDemoApplicationTests {
 
     @Test
@@ -0,0 +1,100 @@
+package com.example.accountdemo.benchmark;
+
+import com.example.accountdemo.config.ConcurrencyProperties;
+import com.example.accountdemo.controller.TransactionController;
+import com.example.accountdemo.domain.AccountUser;
+import com.example.accountdemo.dto.UseBalance;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.AccountUserRepository;
+import com.example.accountdemo.service.AccountService;
+import com.example.accountdemo.service.AccountSlotService;
+import com.example.accountdemo.type.ConcurrencyMode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 계좌 수(경합 수준)에 따라 LOCK, OPTIMISTIC, SLOTTED 모드의 처리량과 실패 수를 비교한다.
+ * 계좌 1개는 모든 요청이 한 계좌에 몰리는 경우, 64개는 경합이 거의 없는 경우이다.
+ * SLOTTED 는 일별 집계까지 포함해 한 계좌에서도 LOCK 보다 처리량이 높아야 한다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ConcurrencyModeBenchmark {
+    private static final int THREADS = 16;
+    private static final int REQUESTS = 2000;
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+    private static final int SLOT_COUNT = 16;
+
+    @Autowired
+    private TransactionController transactionController;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountSlotService accountSlotService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private ConcurrencyProperties concurrencyProperties;
+
+    @ParameterizedTest
+    @CsvSource({"LOCK,1", "OPTIMISTIC,1", "SLOTTED,1", "LOCK,8", "OPTIMISTIC,8", "SLOTTED,8",
+            "LOCK,64", "OPTIMISTIC,64", "SLOTTED,64"})
+    void useBalance(ConcurrencyMode mode, int accountCount) throws Exception {
+        concurrencyProperties.getModes().clear();
+        concurrencyProperties.setDefaultMode(mode);
+        List<UseBalance.Request> requests = createRequests(accountCount, mode == ConcurrencyMode.SLOTTED);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            UseBalance.Request request = requests.get(i % requests.size());
+            futures.add(executor.submit(() -> {
+                try {
+                    transactionController.useBalance(request, null);
+                } catch (AccountException | InterruptedException e) {
+                    failures.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedMillis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        executor.shutdown();
+
+        System.out.printf("[%s accounts=%d] elapsed=%dms throughput=%d/s failures=%d%n",
+                mode, accountCount, elapsedMillis, REQUESTS * 1000L / elapsedMillis, failures.get());
+    }
+
+    private List<UseBalance.Request> createRequests(int accountCount, boolean slotted) {
+        List<UseBalance.Request> requests = new ArrayList<>();
+        AccountUser user = null;
+        for (int i = 0; i < accountCount; i++) {
+            if (i % MAX_ACCOUNT_PER_USER == 0) {
+                user = accountUserRepository.save(AccountUser.builder().name("bench").build());
+            }
+            String accountNumber = accountService.createAccount(user.getId(), 1_000_000_000L)
+                    .getAccountNumber();
+            if (slotted) {
+                accountSlotService.enableSlots(user.getId(), accountNumber, SLOT_COUNT);
+            }
+            requests.add(new UseBalance.Request(user.getId(), accountNumber, 100L));
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.accountdemo.benchmark;
+
+import com.example.accountdemo.controller.TransactionController;
+import com.example.accountdemo.domain.AccountUser;
+import com.example.accountdemo.dto.UseBalance;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.AccountUserRepository;
+import com.example.accountdemo.service.AccountService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 락 백엔드(memory / redis / database)별로 경합 상황의 처리량과 실패 수를 비교한다.
+ * 백엔드는 기동 시점에 정해지므로 백엔드마다 스프링 컨텍스트를 따로 띄운다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+abstract class LockBackendBenchmark {
+    private static final int THREADS = 16;
+    private static final int REQUESTS = 2000;
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
+    @Autowired
+    private TransactionController transactionController;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Value("${account.lock.backend}")
+    private String backend;
+
+    @SpringBootTest(properties = "account.lock.backend=memory")
+    static class InMemory extends LockBackendBenchmark {
+    }
+
+    @SpringBootTest(properties = "account.lock.backend=redis")
+    static class Redis extends LockBackendBenchmark {
+    }
+
+    @SpringBootTest(properties = "account.lock.backend=database")
+    static class Database extends LockBackendBenchmark {
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 8, 64})
+    void useBalance(int accountCount) throws Exception {
+        List<UseBalance.Request> requests = createRequests(accountCount);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            UseBalance.Request request = requests.get(i % requests.size());
+            futures.add(executor.submit(() -> {
+                try {
+                    transactionController.useBalance(request, null);
+                } catch (AccountException | InterruptedException e) {
+                    failures.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedMillis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        executor.shutdown();
+
+        System.out.printf("[%s accounts=%d] elapsed=%dms throughput=%d/s failures=%d%n",
+                backend, accountCount, elapsedMillis, REQUESTS * 1000L / elapsedMillis, failures.get());
+    }
+
+    private List<UseBalance.Request> createRequests(int accountCount) {
+        List<UseBalance.Request> requests = new ArrayList<>();
+        AccountUser user = null;
+        for (int i = 0; i < accountCount; i++) {
+            if (i % MAX_ACCOUNT_PER_USER == 0) {
+                user = accountUserRepository.save(AccountUser.builder().name("bench").build());
+            }
+            String accountNumber = accountService.createAccount(user.getId(), 1_000_000_000L)
+                    .getAccountNumber();
+            requests.add(new UseBalance.Request(user.getId(), accountNumber, 100L));
+        }
+        return requests;
+    }
+}
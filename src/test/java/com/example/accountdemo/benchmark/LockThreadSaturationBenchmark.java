@@ -0,0 +1,130 @@
+package com.example.accountdemo.benchmark;
+
+import com.example.accountdemo.aop.LockPolicy;
+import com.example.accountdemo.service.LockMetrics;
+import com.example.accountdemo.service.LockService;
+import com.example.accountdemo.service.RedissonAccountLockBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 한 계좌에 요청이 몰릴 때 요청 스레드 풀(톰캣 워커 대용)이 얼마나 묶이는지 비교한다.
+ * - blocking : LockAopAspect 와 같이 요청 스레드에서 락을 기다린다.
+ * - async    : executeWithLockAsync 로 락을 기다리는 동안 요청 스레드를 반환한다.
+ * probe 는 몰린 요청 뒤에 들어온 다른 계좌 요청이 워커를 얻기까지 기다린 시간이다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+class LockThreadSaturationBenchmark {
+    private static final int REDIS_PORT = 6390;
+    private static final int WORKER_THREADS = 20;
+    private static final int REQUESTS = 200;
+    private static final long HOLD_MILLIS = 10L;
+    private static final String HOT_ACCOUNT = "1000000000";
+    private static final LockPolicy POLICY = LockPolicy.builder()
+            .waitTime(10000L)
+            .leaseTime(15000L)
+            .build();
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+    private static LockService lockService;
+
+    @BeforeAll
+    static void setUp() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+        lockService = new LockService(new RedissonAccountLockBackend(redissonClient), new LockMetrics());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @Test
+    void blockingLock() throws Exception {
+        run("blocking", () -> {
+            lockService.lock(HOT_ACCOUNT, POLICY);
+            try {
+                sleep(HOLD_MILLIS);
+            } finally {
+                lockService.unlock(HOT_ACCOUNT, POLICY);
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    @Test
+    void asyncLock() throws Exception {
+        ExecutorService dbExecutor = Executors.newFixedThreadPool(4);
+        try {
+            run("async", () -> lockService.executeWithLockAsync(
+                    HOT_ACCOUNT, POLICY, () -> {
+                        sleep(HOLD_MILLIS);
+                        return null;
+                    }, dbExecutor));
+        } finally {
+            dbExecutor.shutdown();
+        }
+    }
+
+    private void run(String name, Callable<CompletableFuture<?>> request) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(WORKER_THREADS);
+        AtomicInteger busyWorkers = new AtomicInteger();
+        AtomicInteger peakBusyWorkers = new AtomicInteger();
+        List<Future<CompletableFuture<?>>> submitted = new ArrayList<>();
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            submitted.add(workers.submit(() -> {
+                peakBusyWorkers.accumulateAndGet(busyWorkers.incrementAndGet(), Math::max);
+                try {
+                    return request.call();
+                } finally {
+                    busyWorkers.decrementAndGet();
+                }
+            }));
+        }
+        long probeSubmittedAt = System.nanoTime();
+        long probeWaitNanos = workers.submit(() -> System.nanoTime() - probeSubmittedAt).get();
+
+        int completed = 0;
+        for (Future<CompletableFuture<?>> future : submitted) {
+            future.get().get();
+            completed++;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        workers.shutdown();
+
+        System.out.printf("[%s] requests=%d elapsed=%dms peakBusyWorkers=%d/%d probeWait=%.2fms%n",
+                name, completed, elapsedMillis, peakBusyWorkers.get(), WORKER_THREADS,
+                probeWaitNanos / 1_000_000.0);
+        assertEquals(REQUESTS, completed);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
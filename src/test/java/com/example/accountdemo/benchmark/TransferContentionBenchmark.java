@@ -0,0 +1,138 @@
+package com.example.accountdemo.benchmark;
+
+import com.example.accountdemo.config.ConcurrencyProperties;
+import com.example.accountdemo.controller.TransactionController;
+import com.example.accountdemo.domain.AccountUser;
+import com.example.accountdemo.dto.AccountInfo;
+import com.example.accountdemo.dto.UseBalance;
+import com.example.accountdemo.repository.AccountUserRepository;
+import com.example.accountdemo.service.AccountQueryService;
+import com.example.accountdemo.service.AccountService;
+import com.example.accountdemo.service.AccountSlotService;
+import com.example.accountdemo.service.TransferService;
+import com.example.accountdemo.type.ConcurrencyMode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 몇 개 안 되는 계좌 사이로 양방향 이체가 몰릴 때 TransferService 의 처리 시간과 실패 수를 본다.
+ * 계좌 A -> B, B -> A 이체가 동시에 들어와도 락을 정해진 순서로 잡으므로 서로 기다리지 않는다.
+ * 같은 계좌로 결제도 함께 보내, 이체 락을 잡지 않는 모드에서도 입금이 사라지지 않는지 확인한다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class TransferContentionBenchmark {
+    private static final int WORKER_THREADS = 32;
+    private static final int REQUESTS = 4000;
+    private static final int ACCOUNT_COUNT = 5;
+    private static final int SLOT_COUNT = 8;
+    private static final long AMOUNT = 100L;
+    private static final long INITIAL_BALANCE = 1_000_000_000L;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransactionController transactionController;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountSlotService accountSlotService;
+
+    @Autowired
+    private AccountQueryService accountQueryService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private ConcurrencyProperties concurrencyProperties;
+
+    @ParameterizedTest
+    @EnumSource(value = ConcurrencyMode.class, names = {"LOCK", "OPTIMISTIC", "LANE", "SLOTTED"})
+    void crossTransfers(ConcurrencyMode mode) throws Exception {
+        concurrencyProperties.getModes().clear();
+        concurrencyProperties.setDefaultMode(mode);
+        Long userId = accountUserRepository.save(AccountUser.builder().name("bench").build()).getId();
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            String accountNumber = accountService.createAccount(userId, INITIAL_BALANCE).getAccountNumber();
+            if (mode == ConcurrencyMode.SLOTTED) {
+                accountSlotService.enableSlots(userId, accountNumber, SLOT_COUNT);
+            }
+            accounts.add(accountNumber);
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(WORKER_THREADS);
+        AtomicInteger transferFailures = new AtomicInteger();
+        AtomicInteger uses = new AtomicInteger();
+        AtomicLong maxLatencyNanos = new AtomicLong();
+        long[] latencies = new long[REQUESTS];
+        List<Future<?>> submitted = new ArrayList<>();
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            int index = i;
+            submitted.add(workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int from = random.nextInt(ACCOUNT_COUNT);
+                int to = (from + 1 + random.nextInt(ACCOUNT_COUNT - 1)) % ACCOUNT_COUNT;
+                long requestedAt = System.nanoTime();
+                if (index % 2 == 1) {
+                    // 받는 계좌에 이체 락 없이 들어오는 결제
+                    try {
+                        transactionController.useBalance(
+                                new UseBalance.Request(userId, accounts.get(to), AMOUNT), null);
+                        uses.incrementAndGet();
+                    } catch (Exception e) {
+                        // 결제 실패는 잔액을 바꾸지 않는다.
+                    }
+                    return;
+                }
+                try {
+                    transferService.transferBalance(userId, accounts.get(from), accounts.get(to), AMOUNT);
+                } catch (RuntimeException e) {
+                    transferFailures.incrementAndGet();
+                    return;
+                }
+                long latency = System.nanoTime() - requestedAt;
+                latencies[index] = latency;
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            }));
+        }
+        for (Future<?> future : submitted) {
+            future.get();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        workers.shutdown();
+
+        long[] sorted = Arrays.stream(latencies).filter(latency -> latency > 0).sorted().toArray();
+        long total = accountQueryService.getAccountsByUserId(userId).stream()
+                .mapToLong(AccountInfo::getBalance)
+                .sum();
+        System.out.printf("[transfer %s] requests=%d elapsed=%dms p50=%.2fms p99=%.2fms max=%.2fms "
+                        + "transferFailures=%d uses=%d%n",
+                mode, REQUESTS, elapsedMillis,
+                sorted.length == 0 ? 0 : sorted[sorted.length / 2] / 1_000_000.0,
+                sorted.length == 0 ? 0 : sorted[sorted.length * 99 / 100] / 1_000_000.0,
+                maxLatencyNanos.get() / 1_000_000.0,
+                transferFailures.get(), uses.get());
+        // 이체는 합계를 바꾸지 않으므로 줄어든 금액은 성공한 결제뿐이어야 한다.
+        assertEquals(INITIAL_BALANCE * ACCOUNT_COUNT - AMOUNT * uses.get(), total);
+    }
+}
@@ -1,13 +1,26 @@
 package com.example.accountdemo.controller;
 
-import com.example.accountdemo.domain.Account;
+import com.example.accountdemo.config.ExportAsyncSupport;
+import com.example.accountdemo.dto.AccountDetail;
 import com.example.accountdemo.dto.AccountDto;
+import com.example.accountdemo.dto.AccountInfo;
 import com.example.accountdemo.dto.CreateAccount;
+import com.example.accountdemo.dto.DailyRollupDto;
 import com.example.accountdemo.dto.DeleteAccount;
+import com.example.accountdemo.dto.SlotAccount;
+import com.example.accountdemo.dto.TransactionHistory;
 import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.service.AccountQueryService;
 import com.example.accountdemo.service.AccountService;
+import com.example.accountdemo.service.AccountSlotService;
+import com.example.accountdemo.service.DailyRollupService;
+import com.example.accountdemo.service.TransactionExportService;
+import com.example.accountdemo.service.TransactionService;
 import com.example.accountdemo.type.AccountStatus;
 import com.example.accountdemo.type.ErrorCode;
+import com.example.accountdemo.type.ExportFormat;
+import com.example.accountdemo.type.TransactionResultType;
+import com.example.accountdemo.type.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,17 +28,30 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AccountController.class)
@@ -33,19 +59,63 @@ class AccountControllerTest {
     @MockBean
     private AccountService accountService;
 
+    @MockBean
+    private AccountQueryService accountQueryService;
+
+    @MockBean
+    private AccountSlotService accountSlotService;
+
+    @MockBean
+    private TransactionService transactionService;
+
+    @MockBean
+    private TransactionExportService transactionExportService;
+
+    @MockBean
+    private DailyRollupService dailyRollupService;
+
+    @MockBean
+    private ExportAsyncSupport exportAsyncSupport;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Test
+    void successEnableSlots() throws Exception {
+        //given
+        given(accountSlotService.enableSlots(anyLong(), anyString(), anyInt()))
+                .willReturn(AccountDto.builder()
+                        .userId(1L)
+                        .accountNumber("1234567897")
+                        .balance(10000L)
+                        .slotCount(4)
+                        .build()
+                );
+        // when
+
+        // then
+        mockMvc.perform(post("/account/slots")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new SlotAccount.Request(1L, "1234567897", 4)
+                        )))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1234567897"))
+                .andExpect(jsonPath("$.balance").value(10000))
+                .andExpect(jsonPath("$.slotCount").value(4))
+                .andDo(print());
+    }
+
     @Test
     void successCreatedAccount() throws Exception {
         //given
         given(accountService.createAccount(anyLong(), anyLong()))
                 .willReturn(AccountDto.builder()
                         .userId(1L)
-                        .accountNumber("1234567890")
+                        .accountNumber("1234567897")
                         .registerAt(LocalDateTime.now())
                         .unRegisteredAt(LocalDateTime.now())
                         .build()
@@ -60,17 +130,19 @@ class AccountControllerTest {
                         )))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.userId").value(1))
-                .andExpect(jsonPath("$.accountNumber").value("1234567890"))
+                .andExpect(jsonPath("$.accountNumber").value("1234567897"))
                 .andDo(print());
     }
 
     @Test
     void successGetAccount() throws Exception {
         //given
-        given(accountService
+        given(accountQueryService
                 .getAccount(anyLong()))
                 .willReturn(
-                        Account.builder()
+                        AccountDetail.builder()
+                                .id(876L)
+                                .userId(1L)
                                 .accountNumber("3456")
                                 .accountStatus(AccountStatus.IN_USE)
                                 .build()
@@ -82,6 +154,8 @@ class AccountControllerTest {
                 .andDo(print())
                 .andExpect(jsonPath("$.accountNumber").value("3456"))
                 .andExpect(jsonPath("$.accountStatus").value("IN_USE"))
+                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.accountUser").doesNotExist())
                 .andExpect(status().isOk());
     }
 
@@ -92,7 +166,7 @@ class AccountControllerTest {
         given(accountService.deleteAccount(anyLong(), anyString()))
                 .willReturn(AccountDto.builder()
                         .userId(1L)
-                        .accountNumber("1234567890")
+                        .accountNumber("1234567897")
                         .registerAt(LocalDateTime.now())
                         .unRegisteredAt(LocalDateTime.now())
                         .build()
@@ -103,39 +177,39 @@ class AccountControllerTest {
         mockMvc.perform(delete("/account")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(
-                                new DeleteAccount.Request(3333L, "1234567899")
+                                new DeleteAccount.Request(3333L, "1234567897")
                         )))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.userId").value(1))
-                .andExpect(jsonPath("$.accountNumber").value("1234567890"))
+                .andExpect(jsonPath("$.accountNumber").value("1234567897"))
                 .andDo(print());
     }
 
     @Test
     void successGetAccountsByUserId() throws Exception {
         //given
-        List<AccountDto> accountDtoList =
+        List<AccountInfo> accountInfoList =
                 Arrays.asList(
-                        AccountDto.builder()
-                                .accountNumber("1234567890")
+                        AccountInfo.builder()
+                                .accountNumber("1234567897")
                                 .balance(10000L)
                                 .build(),
-                        AccountDto.builder()
+                        AccountInfo.builder()
                                 .accountNumber("1111111111")
                                 .balance(10000L)
                                 .build(),
-                        AccountDto.builder()
+                        AccountInfo.builder()
                                 .accountNumber("22222222222")
                                 .balance(10000L)
                                 .build()
                 );
-        given(accountService.getAccountByUserId(anyLong()))
-                .willReturn(accountDtoList);
+        given(accountQueryService.getAccountsByUserId(anyLong()))
+                .willReturn(accountInfoList);
         // when
         // then
         mockMvc.perform(get("/account?user_id=1"))
                 .andDo(print())
-                .andExpect(jsonPath("$[0].accountNumber").value("1234567890"))
+                .andExpect(jsonPath("$[0].accountNumber").value("1234567897"))
                 .andExpect(jsonPath("$[0].balance").value(10000))
                 .andExpect(jsonPath("$[1].accountNumber").value("1111111111"))
                 .andExpect(jsonPath("$[1].balance").value(10000))
@@ -146,7 +220,7 @@ class AccountControllerTest {
     @Test
     void failGetAccount() throws  Exception {
         //given
-        given(accountService.getAccount(anyLong()))
+        given(accountQueryService.getAccount(anyLong()))
                 .willThrow(new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
         // when
 
@@ -157,4 +231,90 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.errorMessage").value("계좌가 없습니다."))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void successGetTransactionHistory() throws Exception {
+        //given
+        given(transactionService.getTransactionHistory(eq("1234567897"), isNull(), eq(20)))
+                .willReturn(TransactionHistory.Response.builder()
+                        .accountNumber("1234567897")
+                        .transactions(List.of(TransactionHistory.Item.builder()
+                                .transactionType(TransactionType.USE)
+                                .transactionResult(TransactionResultType.S)
+                                .transactionId("transactionId")
+                                .amount(1000L)
+                                .balanceSnapshot(9000L)
+                                .transactedAt(LocalDateTime.now())
+                                .build()))
+                        .nextCursor("nextCursor")
+                        .build());
+        // when
+        // then
+        mockMvc.perform(get("/account/1234567897/transactions"))
+                .andDo(print())
+                .andExpect(jsonPath("$.accountNumber").value("1234567897"))
+                .andExpect(jsonPath("$.transactions[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.transactions[0].balanceSnapshot").value(9000))
+                .andExpect(jsonPath("$.nextCursor").value("nextCursor"));
+    }
+
+    @Test
+    void successExportTransactions() throws Exception {
+        //given
+        given(transactionExportService.getAccountId("1234567897"))
+                .willReturn(7L);
+        given(transactionExportService.export(eq(7L), eq(ExportFormat.CSV), any()))
+                .willAnswer(invocation -> {
+                    invocation.getArgument(2, OutputStream.class)
+                            .write("transactionId\ntx1\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+        // when
+        MvcResult mvcResult = mockMvc.perform(get("/account/1234567897/transactions/export")
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"1234567897.csv\""))
+                .andExpect(content().string("transactionId\ntx1\n"));
+        verify(exportAsyncSupport).apply(any(), any());
+    }
+
+    @Test
+    void successGetDailyRollups() throws Exception {
+        //given
+        given(dailyRollupService.getRollups("1234567897",
+                LocalDate.of(2022, 6, 1), LocalDate.of(2022, 6, 30)))
+                .willReturn(List.of(DailyRollupDto.builder()
+                        .date(LocalDate.of(2022, 6, 1))
+                        .transactionType(TransactionType.USE)
+                        .transactionResult(TransactionResultType.S)
+                        .count(3L)
+                        .amount(4500L)
+                        .build()));
+        // when
+        // then
+        mockMvc.perform(get("/account/1234567897/rollups")
+                        .param("from", "2022-06-01")
+                        .param("to", "2022-06-30"))
+                .andDo(print())
+                .andExpect(jsonPath("$[0].date").value("2022-06-01"))
+                .andExpect(jsonPath("$[0].transactionType").value("USE"))
+                .andExpect(jsonPath("$[0].count").value(3))
+                .andExpect(jsonPath("$[0].amount").value(4500));
+    }
+
+    @Test
+    void failGetTransactionHistory_InvalidAccountNumber() throws Exception {
+        //given
+        // when
+        // then
+        mockMvc.perform(get("/account/1234567890/transactions"))
+                .andDo(print())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+        verify(transactionService, never()).getTransactionHistory(anyString(), any(), anyInt());
+    }
+}
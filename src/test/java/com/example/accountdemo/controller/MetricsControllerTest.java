@@ -0,0 +1,116 @@
+package com.example.accountdemo.controller;
+
+import com.example.accountdemo.dto.FailedTransactionQueueStatus;
+import com.example.accountdemo.dto.LaneStatus;
+import com.example.accountdemo.dto.LockMetricsInfo;
+import com.example.accountdemo.service.AccountLaneExecutor;
+import com.example.accountdemo.service.FailedTransactionRecorder;
+import com.example.accountdemo.service.LockMetrics;
+import com.example.accountdemo.type.FailedRecordOverflowPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(MetricsController.class)
+class MetricsControllerTest {
+    @MockBean
+    private AccountLaneExecutor accountLaneExecutor;
+
+    @MockBean
+    private LockMetrics lockMetrics;
+
+    @MockBean
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void successGetLaneStatuses() throws Exception {
+        //given
+        given(accountLaneExecutor.getLaneStatuses())
+                .willReturn(List.of(LaneStatus.builder()
+                        .lane(0)
+                        .queueDepth(3)
+                        .queueCapacity(1000)
+                        .rejectedCount(1L)
+                        .build()));
+        // when
+        // then
+        mockMvc.perform(get("/metrics/lanes"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].lane").value(0))
+                .andExpect(jsonPath("$[0].queueDepth").value(3))
+                .andExpect(jsonPath("$[0].rejectedCount").value(1));
+    }
+
+    @Test
+    void successGetLockMetrics() throws Exception {
+        //given
+        given(lockMetrics.snapshot(anyInt()))
+                .willReturn(LockMetricsInfo.builder()
+                        .wait(LockMetricsInfo.Histogram.builder()
+                                .count(10L)
+                                .p99Micros(2048L)
+                                .build())
+                        .hotAccounts(List.of(LockMetricsInfo.HotAccount.builder()
+                                .accountNumber("1000000000")
+                                .count(7L)
+                                .build()))
+                        .build());
+        // when
+        // then
+        mockMvc.perform(get("/metrics/locks?top=5"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.wait.count").value(10))
+                .andExpect(jsonPath("$.wait.p99Micros").value(2048))
+                .andExpect(jsonPath("$.hotAccounts[0].accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.hotAccounts[0].count").value(7));
+    }
+
+    @Test
+    void failGetLockMetrics_InvalidTop() throws Exception {
+        //given
+        // when
+        // then
+        mockMvc.perform(get("/metrics/locks?top=-1"))
+                .andDo(print())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+        verify(lockMetrics, never()).snapshot(anyInt());
+    }
+
+    @Test
+    void successGetFailedTransactionQueueStatus() throws Exception {
+        //given
+        given(failedTransactionRecorder.getStatus())
+                .willReturn(FailedTransactionQueueStatus.builder()
+                        .queueDepth(12)
+                        .queueCapacity(10000)
+                        .overflowPolicy(FailedRecordOverflowPolicy.DROP_NEWEST)
+                        .droppedCount(3L)
+                        .build());
+        // when
+        // then
+        mockMvc.perform(get("/metrics/failed-transactions"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queueDepth").value(12))
+                .andExpect(jsonPath("$.overflowPolicy").value("DROP_NEWEST"))
+                .andExpect(jsonPath("$.droppedCount").value(3));
+    }
+}
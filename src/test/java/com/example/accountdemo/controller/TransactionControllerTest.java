@@ -1,31 +1,47 @@
 package com.example.accountdemo.controller;
 
 import com.example.accountdemo.dto.AccountDto;
+import com.example.accountdemo.dto.AuthorizeBalance;
 import com.example.accountdemo.dto.CancelBalance;
+import com.example.accountdemo.dto.HoldDto;
+import com.example.accountdemo.dto.SettleHold;
 import com.example.accountdemo.dto.TransactionDto;
+import com.example.accountdemo.dto.TransferBalance;
 import com.example.accountdemo.dto.UseBalance;
+import com.example.accountdemo.dto.UseBalanceBatch;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.service.FailedTransactionRecorder;
+import com.example.accountdemo.service.TransactionBatchService;
 import com.example.accountdemo.service.TransactionService;
+import com.example.accountdemo.service.TransferService;
 import com.example.accountdemo.type.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
+import static com.example.accountdemo.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
 import static com.example.accountdemo.type.TransactionResultType.S;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransactionController.class)
@@ -33,6 +49,15 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionBatchService transactionBatchService;
+
+    @MockBean
+    private TransferService transferService;
+
+    @MockBean
+    private FailedTransactionRecorder failedTransactionRecorder;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -44,7 +69,7 @@ class TransactionControllerTest {
         //given
         given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
                 .willReturn(TransactionDto.builder()
-                        .accountNumber("1000000000")
+                        .accountNumber("1000000008")
                         .transactionResultType(S)
                         .amount(12345L)
                         .transactionId("transactionId")
@@ -56,22 +81,220 @@ class TransactionControllerTest {
         mockMvc.perform(post("/transaction/use")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(
-                        new UseBalance.Request(1L, "1000000000", 3000L)
+                        new UseBalance.Request(1L, "1000000008", 3000L)
                 ))
         ).andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.accountNumber").value("1000000008"))
                 .andExpect(jsonPath("$.transactionResult").value("S"))
                 .andExpect(jsonPath("$.transactionId").value("transactionId"))
                 .andExpect(jsonPath("$.amount").value(12345));
     }
 
+    @Test
+    void successAuthorizeBalance() throws Exception {
+        //given
+        given(transactionService.authorizeBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(HoldDto.builder()
+                        .holdId("holdId")
+                        .accountNumber("1000000008")
+                        .amount(3000L)
+                        .expiresAt(LocalDateTime.now().plusMinutes(15))
+                        .build());
+        // when
+
+        // then
+        mockMvc.perform(post("/transaction/authorize")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new AuthorizeBalance.Request(1L, "1000000008", 3000L)
+                ))
+        ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.holdId").value("holdId"))
+                .andExpect(jsonPath("$.amount").value(3000));
+    }
+
+    @Test
+    void successCaptureHold() throws Exception {
+        //given
+        given(transactionService.captureHold(anyString(), anyLong(), anyString()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000008")
+                        .transactionResultType(S)
+                        .amount(3000L)
+                        .transactionId("transactionId")
+                        .transactedAt(LocalDateTime.now())
+                        .build());
+        // when
+
+        // then
+        mockMvc.perform(post("/transaction/capture")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new SettleHold.Request(1L, "holdId", "1000000008")
+                ))
+        ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionResult").value("S"))
+                .andExpect(jsonPath("$.amount").value(3000));
+    }
+
+    @Test
+    void successTransferBalance() throws Exception {
+        //given
+        given(transferService.transferBalance(anyLong(), anyString(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000008")
+                        .transactionType(TransactionType.TRANSFER_OUT)
+                        .transactionResultType(S)
+                        .amount(3000L)
+                        .transactionId("transactionId")
+                        .linkedTransactionId("linkedTransactionId")
+                        .transactedAt(LocalDateTime.now())
+                        .build());
+        // when
+
+        // then
+        mockMvc.perform(post("/transaction/transfer")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new TransferBalance.Request(1L, "1000000008", "1000000016", 3000L)
+                ))
+        ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fromAccountNumber").value("1000000008"))
+                .andExpect(jsonPath("$.toAccountNumber").value("1000000016"))
+                .andExpect(jsonPath("$.transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.linkedTransactionId").value("linkedTransactionId"))
+                .andExpect(jsonPath("$.amount").value(3000));
+    }
+
+    @Test
+    void failUseBalance_RecordFailedTransaction() throws Exception {
+        //given
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(new AccountException(AMOUNT_EXCEED_BALANCE));
+        // when
+
+        // then
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, "1000000008", 3000L)
+                        ))
+                ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("AMOUNT_EXCEED_BALANCE"));
+        verify(failedTransactionRecorder).recordUse("1000000008", 3000L);
+    }
+
+    @Test
+    void successUseBalanceAsync() throws Exception {
+        //given
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000008")
+                        .transactionResultType(S)
+                        .amount(12345L)
+                        .transactionId("transactionId")
+                        .transactedAt(LocalDateTime.now())
+                        .build());
+        // when
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/use/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, "1000000008", 3000L)
+                        ))
+                ).andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000008"))
+                .andExpect(jsonPath("$.transactionResult").value("S"))
+                .andExpect(jsonPath("$.transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.amount").value(12345));
+    }
+
+    @Test
+    void successUseBalanceBatch() throws Exception {
+        //given
+        given(transactionBatchService.useBalanceBatch(any()))
+                .willReturn(Arrays.asList(
+                        TransactionDto.builder()
+                                .accountNumber("1000000008")
+                                .transactionResultType(S)
+                                .amount(1000L)
+                                .transactionId("transactionId")
+                                .transactedAt(LocalDateTime.now())
+                                .build(),
+                        TransactionDto.failedUse("1000000008", 900000L, AMOUNT_EXCEED_BALANCE)
+                ));
+        // when
+
+        // then
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(List.of(
+                                        new UseBalance.Request(1L, "1000000008", 1000L),
+                                        new UseBalance.Request(1L, "1000000008", 900000L)
+                                ))
+                        ))
+                ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].transactionResult").value("S"))
+                .andExpect(jsonPath("$.results[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.results[0].errorCode").doesNotExist())
+                .andExpect(jsonPath("$.results[1].transactionResult").value("F"))
+                .andExpect(jsonPath("$.results[1].errorCode").value("AMOUNT_EXCEED_BALANCE"));
+    }
+
+    @Test
+    void failUseBalanceBatch_SlotLockTimeout() throws Exception {
+        //given
+        given(transactionBatchService.useBalanceBatch(any()))
+                .willThrow(new PessimisticLockingFailureException("slot lock timeout"));
+        // when
+
+        // then
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(List.of(
+                                        new UseBalance.Request(1L, "1000000008", 1000L)
+                                ))
+                        ))
+                ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("ACCOUNT_TRANSACTION_LOCK"));
+    }
+
+    @Test
+    void failUseBalanceBatch_EmptyItems() throws Exception {
+        //given
+        // when
+
+        // then
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(List.of())
+                        ))
+                ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+    }
+
     @Test
     void successCancelBalance() throws Exception {
         //given
         given(transactionService.cancelBalance(anyString(), anyString(), anyLong()))
                 .willReturn(TransactionDto.builder()
-                        .accountNumber("1000000000")
+                        .accountNumber("1000000008")
                         .transactionResultType(S)
                         .amount(54321L)
                         .transactionId("transactionId")
@@ -83,11 +306,11 @@ class TransactionControllerTest {
         mockMvc.perform(post("/transaction/cancel")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(
-                                new CancelBalance.Request("transactionId", "1000000000", 3000L)
+                                new CancelBalance.Request("transactionId", "1000000008", 3000L)
                         ))
                 ).andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.accountNumber").value("1000000008"))
                 .andExpect(jsonPath("$.transactionResult").value("S"))
                 .andExpect(jsonPath("$.transactionId").value("transactionId"))
                 .andExpect(jsonPath("$.amount").value(54321));
@@ -98,7 +321,7 @@ class TransactionControllerTest {
         //given
         given(transactionService.queryTransaction(anyString()))
                 .willReturn(TransactionDto.builder()
-                        .accountNumber("1000000000")
+                        .accountNumber("1000000008")
                         .transactionType(TransactionType.USE)
                         .transactionResultType(S)
                         .amount(54321L)
@@ -110,7 +333,7 @@ class TransactionControllerTest {
         mockMvc.perform(get("/transaction/12345"))
                 .andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.accountNumber").value("1000000008"))
                 .andExpect(jsonPath("$.amount").value(54321))
                 .andExpect(jsonPath("$.transactionId").value("transactionIdForCancel"))
                 .andExpect(jsonPath("$.transactionResult").value("S"))
@@ -0,0 +1,44 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.repository.AccountUserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountCountRepairTest {
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    @Test
+    @DisplayName("사용자를 묶음으로 나눠 복구하고 실패한 묶음이 있어도 나머지 묶음은 계속 처리한다")
+    void repairInBatches() {
+        //given
+        AccountCountRepair repair = new AccountCountRepair(accountUserRepository, accountService, 2, 2, false);
+        given(accountUserRepository.findAllIds())
+                .willReturn(List.of(1L, 2L, 3L, 4L, 5L));
+        given(accountService.recomputeAccountCounts(List.of(1L, 2L)))
+                .willReturn(2);
+        given(accountService.recomputeAccountCounts(List.of(3L, 4L)))
+                .willThrow(new IllegalStateException("db down"));
+        given(accountService.recomputeAccountCounts(List.of(5L)))
+                .willReturn(1);
+        // when
+        int users = repair.repair();
+        // then
+        assertEquals(3, users);
+        verify(accountService, times(1)).recomputeAccountCounts(List.of(5L));
+    }
+}
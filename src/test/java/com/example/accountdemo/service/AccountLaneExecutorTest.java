@@ -0,0 +1,136 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.LaneStatus;
+import com.example.accountdemo.exception.AccountException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_LANE_SATURATED;
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLaneExecutorTest {
+    private static final long WAIT_TIME = 1000L;
+
+    private AccountLaneExecutor accountLaneExecutor;
+
+    @AfterEach
+    void tearDown() {
+        accountLaneExecutor.shutdown();
+    }
+
+    @Test
+    void executeInOrderOnSameLane() throws Throwable {
+        //given
+        accountLaneExecutor = new AccountLaneExecutor(4, 100);
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        // when
+        for (int i = 0; i < 10; i++) {
+            int order = i;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return accountLaneExecutor.execute("1000000000", WAIT_TIME, () -> {
+                        executed.add(order);
+                        return order;
+                    });
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            }));
+        }
+        futures.forEach(CompletableFuture::join);
+        // then
+        assertEquals(10, executed.size());
+        assertEquals("account-lane", accountLaneExecutor.execute("1000000000",
+                () -> Thread.currentThread().getName().substring(0, 12)));
+    }
+
+    @Test
+    @DisplayName("작업에서 발생한 예외는 그대로 전달된다")
+    void propagateTaskException() {
+        //given
+        accountLaneExecutor = new AccountLaneExecutor(4, 100);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountLaneExecutor.execute("1000000000", WAIT_TIME, () -> {
+                    throw new AccountException(ACCOUNT_NOT_FOUND);
+                }));
+        // then
+        assertEquals(ACCOUNT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("레인 대기열이 가득 차면 바로 실패")
+    void rejectWhenSaturated() throws Exception {
+        //given
+        accountLaneExecutor = new AccountLaneExecutor(1, 1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> executeQuietly(() -> {
+            running.countDown();
+            release.await();
+            return null;
+        }));
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+        CompletableFuture<Object> queued = CompletableFuture.supplyAsync(() -> executeQuietly(() -> null));
+        while (accountLaneExecutor.getLaneStatuses().get(0).getQueueDepth() == 0) {
+            Thread.sleep(1L);
+        }
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountLaneExecutor.execute("1000000000", WAIT_TIME, () -> null));
+        release.countDown();
+        first.join();
+        queued.join();
+        // then
+        LaneStatus status = accountLaneExecutor.getLaneStatuses().get(0);
+        assertEquals(ACCOUNT_LANE_SATURATED, exception.getErrorCode());
+        assertEquals(1L, status.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("대기 시간 안에 차례가 오지 않으면 실패하고 나중에 차례가 와도 실행하지 않는다")
+    void skipTaskAfterWaitTimeout() throws Exception {
+        //given
+        accountLaneExecutor = new AccountLaneExecutor(1, 10);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean executed = new AtomicBoolean();
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> executeQuietly(() -> {
+            running.countDown();
+            release.await();
+            return null;
+        }));
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountLaneExecutor.execute("1000000000", 50L, () -> {
+                    executed.set(true);
+                    return null;
+                }));
+        release.countDown();
+        first.join();
+        accountLaneExecutor.execute("1000000000", WAIT_TIME, () -> null);
+        // then
+        assertEquals(ACCOUNT_LANE_SATURATED, exception.getErrorCode());
+        assertFalse(executed.get());
+    }
+
+    private Object executeQuietly(AccountLaneExecutor.LaneTask<Object> task) {
+        try {
+            return accountLaneExecutor.execute("1000000000", WAIT_TIME, task);
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.AccountMetadata;
+import com.example.accountdemo.repository.AccountRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Optional;
+
+import static com.example.accountdemo.type.AccountStatus.IN_USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountMetadataCacheTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private ObjectProvider<RedissonClient> redissonClient;
+
+    @Test
+    @DisplayName("한 번 읽은 계좌 정보는 다시 조회하지 않고, 커밋 뒤 무효화하면 다시 읽는다")
+    void loadOnceAndEvict() {
+        //given
+        AccountMetadataCache cache = new AccountMetadataCache(accountRepository, redissonClient, 100, false);
+        given(accountRepository.findMetadataByAccountNumber("1000000008"))
+                .willReturn(Optional.of(new AccountMetadata(1L, 12L, IN_USE)));
+        // when
+        cache.get("1000000008");
+        AccountMetadata metadata = cache.get("1000000008").get();
+        cache.evictAfterCommit("1000000008");
+        cache.get("1000000008");
+        // then
+        assertEquals(12L, metadata.getUserId());
+        verify(accountRepository, times(2)).findMetadataByAccountNumber("1000000008");
+    }
+
+    @Test
+    @DisplayName("없는 계좌는 캐시하지 않는다")
+    void notCacheMissingAccount() {
+        //given
+        AccountMetadataCache cache = new AccountMetadataCache(accountRepository, redissonClient, 100, false);
+        given(accountRepository.findMetadataByAccountNumber(anyString()))
+                .willReturn(Optional.empty());
+        // when
+        cache.get("1000000008");
+        Optional<AccountMetadata> metadata = cache.get("1000000008");
+        // then
+        assertTrue(metadata.isEmpty());
+        verify(accountRepository, times(2)).findMetadataByAccountNumber("1000000008");
+    }
+
+    @Test
+    @DisplayName("최대 개수를 넘으면 가장 오래 쓰지 않은 계좌부터 뺀다")
+    void evictLeastRecentlyUsed() {
+        //given
+        AccountMetadataCache cache = new AccountMetadataCache(accountRepository, redissonClient, 2, false);
+        given(accountRepository.findMetadataByAccountNumber(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 12L, IN_USE)));
+        // when
+        cache.get("1000000008");
+        cache.get("1000000016");
+        cache.get("1000000008");
+        cache.get("1000000024");
+        cache.get("1000000008");
+        cache.get("1000000016");
+        // then
+        assertEquals(2, cache.size());
+        verify(accountRepository, times(1)).findMetadataByAccountNumber("1000000008");
+        verify(accountRepository, times(2)).findMetadataByAccountNumber("1000000016");
+    }
+}
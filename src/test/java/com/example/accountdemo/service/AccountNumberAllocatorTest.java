@@ -0,0 +1,56 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.validation.AccountNumberValidator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+    @Mock
+    private AccountNumberBlockSource blockSource;
+
+    @Test
+    @DisplayName("블록 안에서는 메모리에서 꺼내고 다 쓰면 다음 블록을 받는다")
+    void allocateFromBlocks() {
+        //given
+        AccountNumberAllocator allocator = new AccountNumberAllocator(blockSource, 3);
+        given(blockSource.nextBlock())
+                .willReturn(0L, 5L);
+        // when
+        Set<String> numbers = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            numbers.add(allocator.next());
+        }
+        // then
+        verify(blockSource, times(2)).nextBlock();
+        assertEquals(5, numbers.size());
+        assertTrue(numbers.contains("1000000008"));
+        assertTrue(numbers.contains("1000000016"));
+        // 블록 5 는 일련번호 15 부터
+        assertTrue(numbers.contains("1000000156"));
+        numbers.forEach(number -> assertTrue(AccountNumberValidator.isValid(number), number));
+    }
+
+    @Test
+    @DisplayName("계좌번호 범위를 넘는 블록은 쓰지 않는다")
+    void allocate_Exhausted() {
+        //given
+        AccountNumberAllocator allocator = new AccountNumberAllocator(blockSource, 100);
+        given(blockSource.nextBlock())
+                .willReturn(9_000_000L);
+        // when
+        // then
+        assertThrows(IllegalStateException.class, allocator::next);
+    }
+}
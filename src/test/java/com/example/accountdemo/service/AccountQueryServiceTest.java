@@ -0,0 +1,198 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.AccountDetail;
+import com.example.accountdemo.dto.AccountInfo;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.AccountRepository;
+import com.example.accountdemo.repository.AccountRepository.AccountBalanceRow;
+import com.example.accountdemo.repository.AccountUserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.example.accountdemo.type.AccountStatus.IN_USE;
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.example.accountdemo.type.ErrorCode.USER_NOT_FOUND;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountQueryServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private AccountSlotService accountSlotService;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @InjectMocks
+    private AccountQueryService accountQueryService;
+
+    @Test
+    void successGetAccountsByUserId() {
+        //given
+        given(accountRepository.findBalancesByUserId(1L))
+                .willReturn(List.of(
+                        balanceRow(1L, "1000000008", 10000L, null),
+                        balanceRow(2L, "1000000016", 20000L, null)
+                ));
+        given(accountSlotService.getBalances(List.of()))
+                .willReturn(Map.of());
+        // when
+        List<AccountInfo> accounts = accountQueryService.getAccountsByUserId(1L);
+
+        // then
+        assertEquals(2, accounts.size());
+        assertEquals("1000000008", accounts.get(0).getAccountNumber());
+        assertEquals(10000L, accounts.get(0).getBalance());
+        assertEquals("1000000016", accounts.get(1).getAccountNumber());
+        assertEquals(20000L, accounts.get(1).getBalance());
+        verify(accountUserRepository, times(0)).existsById(anyLong());
+    }
+
+    @Test
+    @DisplayName("슬롯으로 나뉜 계좌는 슬롯 잔액 합계, 원장 모드의 나머지 계좌는 원장 잔액으로 조회")
+    void getAccountsByUserId_SlottedAndLedgerBalance() {
+        //given
+        given(accountRepository.findBalancesByUserId(1L))
+                .willReturn(List.of(
+                        balanceRow(1L, "1000000008", 0L, 4),
+                        balanceRow(2L, "1000000016", 20000L, null)
+                ));
+        given(accountSlotService.getBalances(List.of(1L)))
+                .willReturn(Map.of(1L, 40000L));
+        given(ledgerService.isEnabled())
+                .willReturn(true);
+        given(ledgerService.getBalance(2L, 20000L))
+                .willReturn(15000L);
+        // when
+        List<AccountInfo> accounts = accountQueryService.getAccountsByUserId(1L);
+
+        // then
+        assertEquals(40000L, accounts.get(0).getBalance());
+        assertEquals(15000L, accounts.get(1).getBalance());
+    }
+
+    @Test
+    void failedToGetAccounts() {
+        //given
+        given(accountRepository.findBalancesByUserId(anyLong()))
+                .willReturn(List.of());
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(false);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountQueryService.getAccountsByUserId(1L));
+        // then
+        assertEquals(USER_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    void successGetAccount() {
+        //given
+        given(accountRepository.findDetailById(5L))
+                .willReturn(Optional.of(AccountDetail.builder()
+                        .id(5L)
+                        .userId(1L)
+                        .accountNumber("1000000008")
+                        .accountStatus(IN_USE)
+                        .balance(10000L)
+                        .build()));
+        // when
+        AccountDetail account = accountQueryService.getAccount(5L);
+        // then
+        assertEquals(1L, account.getUserId());
+        assertEquals("1000000008", account.getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("단건 조회도 슬롯으로 나뉜 계좌는 슬롯 잔액 합계로 조회")
+    void getAccount_SlottedBalance() {
+        //given
+        given(accountRepository.findDetailById(5L))
+                .willReturn(Optional.of(AccountDetail.builder()
+                        .id(5L)
+                        .accountNumber("1000000008")
+                        .balance(0L)
+                        .slotCount(4)
+                        .build()));
+        given(accountSlotService.getBalances(List.of(5L)))
+                .willReturn(Map.of(5L, 40000L));
+        // when
+        AccountDetail account = accountQueryService.getAccount(5L);
+        // then
+        assertEquals(40000L, account.getBalance());
+        verify(ledgerService, times(0)).getBalance(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("단건 조회도 원장 모드에서는 원장을 접은 잔액으로 조회")
+    void getAccount_LedgerBalance() {
+        //given
+        given(accountRepository.findDetailById(5L))
+                .willReturn(Optional.of(AccountDetail.builder()
+                        .id(5L)
+                        .accountNumber("1000000008")
+                        .balance(20000L)
+                        .build()));
+        given(ledgerService.isEnabled())
+                .willReturn(true);
+        given(ledgerService.getBalance(5L, 20000L))
+                .willReturn(15000L);
+        // when
+        AccountDetail account = accountQueryService.getAccount(5L);
+        // then
+        assertEquals(15000L, account.getBalance());
+    }
+
+    @Test
+    void getAccount_AccountNotFound() {
+        //given
+        given(accountRepository.findDetailById(anyLong()))
+                .willReturn(Optional.empty());
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountQueryService.getAccount(5L));
+        // then
+        assertEquals(ACCOUNT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    private static AccountBalanceRow balanceRow(Long id, String accountNumber, Long balance, Integer slotCount) {
+        return new AccountBalanceRow() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getAccountNumber() {
+                return accountNumber;
+            }
+
+            @Override
+            public Long getBalance() {
+                return balance;
+            }
+
+            @Override
+            public Integer getSlotCount() {
+                return slotCount;
+            }
+        };
+    }
+}
@@ -12,19 +12,20 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 import static com.example.accountdemo.type.ErrorCode.USER_NOT_FOUND;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
@@ -35,21 +36,31 @@ class AccountServiceTest {
     private AccountRepository accountRepository;
     @Mock
     private AccountUserRepository accountUserRepository;
+    @Mock
+    private AccountSlotService accountSlotService;
+    @Mock
+    private LedgerService ledgerService;
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+    @Mock
+    private AccountMetadataCache accountMetadataCache;
     @InjectMocks
     private AccountService accountService;
 
     @Test
-    void createFirstRandomAccountSuccess() {
+    @DisplayName("계좌번호는 발급기에서 받고 중복 확인 조회를 하지 않는다")
+    void createAccountSuccess_AllocatedNumber() {
         //given
         AccountUser user = AccountUser.builder()
                 .name("Pobi").build();
         user.setId(12L);
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-        given(accountRepository.findFirstByAccountUserOrderByIdDesc(any()))
-                .willReturn(Optional.empty());
-        given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.empty());
+        given(accountUserRepository.incrementAccountCount(12L, 10))
+                .willReturn(1);
+        given(accountUserRepository.getReferenceById(12L))
+                .willReturn(user);
+        given(accountNumberAllocator.next())
+                .willReturn("1000000008");
         given(accountRepository.save(any())).willAnswer(invocation -> {
             Account account = invocation.getArgument(0, Account.class);
             account.setAccountUser(user);
@@ -63,43 +74,12 @@ class AccountServiceTest {
 
         // then
         verify(accountRepository, times(1)).save(captor.capture());
-        Account savedAccount = captor.getValue();
+        verify(accountRepository, never()).findByAccountNumber(anyString());
         assertEquals(12L, accountDto.getUserId());
-        assertTrue(Pattern.matches("\\d{10}", savedAccount.getAccountNumber()));
+        assertEquals("1000000008", captor.getValue().getAccountNumber());
         assertEquals(1000L, accountDto.getBalance());
     }
 
-    @Test
-    void createSecondAccount() {
-        //given
-        AccountUser user = AccountUser.builder()
-                .name("Pobi").build();
-        user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-        given(accountRepository.findFirstByAccountUserOrderByIdDesc(any()))
-                .willReturn(Optional.of(Account.builder()
-                        .accountNumber("1000000012")
-                        .accountUser(user)
-                        .build()));
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.empty());
-        given(accountRepository.save(any()))
-                .willReturn(Account.builder()
-                        .accountUser(user)
-                        .accountNumber("1000000013").build());
-
-        ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
-
-        // when
-        AccountDto accountDto = accountService.createAccount(1L, 1000L);
-
-        // then
-        verify(accountRepository, times(1)).save(captor.capture());
-        assertEquals(12L, accountDto.getUserId());
-        assertEquals("1000000013", captor.getValue().getAccountNumber());
-    }
-
 //    @Test
 //    void createAccountSuccess() {
 //        //given
@@ -158,8 +138,10 @@ class AccountServiceTest {
     void createAccount_UserNotFound() {
         //given
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+        given(accountUserRepository.incrementAccountCount(anyLong(), anyInt()))
+                .willReturn(0);
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(false);
 
         // when
         AccountException accountException = assertThrows(AccountException.class,
@@ -174,19 +156,17 @@ class AccountServiceTest {
     @DisplayName("유저 당 최대 계좌는 10개")
     void createAccount_maxAccountIs10() {
         //given
-        AccountUser user = AccountUser.builder()
-                .name("Pobi").build();
-        user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-        given(accountRepository.countByAccountUser(any()))
-                .willReturn(10);
+        given(accountUserRepository.incrementAccountCount(anyLong(), anyInt()))
+                .willReturn(0);
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(true);
         // when
         AccountException accountException = assertThrows(AccountException.class,
                 () -> accountService.createAccount(1L, 1000L));
 
         // then
         assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_ID, accountException.getErrorCode());
+        verify(accountNumberAllocator, never()).next();
     }
 
     @Test
@@ -215,6 +195,8 @@ class AccountServiceTest {
         assertEquals(12L, accountDto.getUserId());
         assertEquals("1000000002", captor.getValue().getAccountNumber());
         assertEquals(AccountStatus.UNREGISTERED, captor.getValue().getAccountStatus());
+        verify(accountUserRepository, times(1)).decrementAccountCount(12L);
+        verify(accountMetadataCache, times(1)).evictAfterCommit("1234567890");
     }
 
     // 실패 케이스
@@ -353,55 +335,17 @@ class AccountServiceTest {
     }
 
     @Test
-    void successGetAccountsByUserId() {
-        //given
-        AccountUser loopy = AccountUser.builder()
-                .name("Loopy").build();
-        loopy.setId(12L);
-
-        List<Account> accounts = Arrays.asList(
-                Account.builder()
-                        .accountUser(loopy)
-                        .accountNumber("1111111111")
-                        .balance(10000L)
-                        .build(),
-                Account.builder()
-                        .accountUser(loopy)
-                        .accountNumber("2222222222")
-                        .balance(20000L)
-                        .build(),
-                Account.builder()
-                        .accountUser(loopy)
-                        .accountNumber("3333333333")
-                        .balance(30000L)
-                        .build()
-        );
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(loopy));
-        given(accountRepository.findByAccountUser(any()))
-                .willReturn(accounts);
-        // when
-        List<AccountDto> accountDtoList = accountService.getAccountByUserId(1L);
-
-        // then
-        assertEquals(3, accountDtoList.size());
-        assertEquals("1111111111", accountDtoList.get(0).getAccountNumber());
-        assertEquals(10000, accountDtoList.get(0).getBalance());
-        assertEquals("2222222222", accountDtoList.get(1).getAccountNumber());
-        assertEquals(20000, accountDtoList.get(1).getBalance());
-        assertEquals("3333333333", accountDtoList.get(2).getAccountNumber());
-        assertEquals(30000, accountDtoList.get(2).getBalance());
-    }
-
-    @Test
-    void failedToGetAccounts() {
+    @DisplayName("계좌 수 복구 - 사용자 행을 잠근 뒤 다시 센다")
+    void recomputeAccountCounts() {
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+        given(accountUserRepository.recomputeAccountCounts(List.of(1L, 2L)))
+                .willReturn(2);
         // when
-        AccountException exception = assertThrows(AccountException.class,
-                () -> accountService.getAccountByUserId(1L));
+        int users = accountService.recomputeAccountCounts(List.of(1L, 2L));
         // then
-        assertEquals(USER_NOT_FOUND, exception.getErrorCode());
+        assertEquals(2, users);
+        InOrder inOrder = inOrder(accountUserRepository);
+        inOrder.verify(accountUserRepository).findByIdInForUpdate(List.of(1L, 2L));
+        inOrder.verify(accountUserRepository).recomputeAccountCounts(List.of(1L, 2L));
     }
-}
\ No newline at end of file
+}
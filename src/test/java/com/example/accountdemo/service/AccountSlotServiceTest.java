@@ -0,0 +1,153 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.domain.Account;
+import com.example.accountdemo.domain.AccountSlot;
+import com.example.accountdemo.domain.AccountUser;
+import com.example.accountdemo.dto.AccountDto;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.AccountRepository;
+import com.example.accountdemo.repository.AccountSlotRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.accountdemo.type.AccountStatus.IN_USE;
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_ALREADY_SLOTTED;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountSlotServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountSlotRepository accountSlotRepository;
+
+    @Mock
+    private ConcurrencyModeResolver concurrencyModeResolver;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @InjectMocks
+    private AccountSlotService accountSlotService;
+
+    @Test
+    @DisplayName("잔액을 슬롯으로 나누고 나머지는 첫 슬롯에 둔다")
+    @SuppressWarnings("unchecked")
+    void enableSlots() {
+        //given
+        Account account = account(10003L, null);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        ArgumentCaptor<List<AccountSlot>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        AccountDto accountDto = accountSlotService.enableSlots(12L, "1000000012", 4);
+        // then
+        verify(accountSlotRepository, times(1)).saveAll(captor.capture());
+        List<AccountSlot> slots = captor.getValue();
+        assertEquals(4, slots.size());
+        assertEquals(2503L, slots.get(0).getBalance());
+        assertEquals(2500L, slots.get(3).getBalance());
+        assertEquals(0L, account.getBalance());
+        assertEquals(10003L, accountDto.getBalance());
+        verify(concurrencyModeResolver, times(1)).markSlottedAfterCommit("1000000012");
+        verify(concurrencyModeResolver, times(0)).markSlotted(anyString());
+    }
+
+    @Test
+    void enableSlots_AlreadySlotted() {
+        //given
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account(0L, 4)));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountSlotService.enableSlots(12L, "1000000012", 4));
+        // then
+        assertEquals(ACCOUNT_ALREADY_SLOTTED, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("한 슬롯으로 부족하면 다른 슬롯 잔액을 모아서 차감")
+    void debit_GatherSlots() {
+        //given
+        Account account = account(0L, 2);
+        List<AccountSlot> slots = List.of(slot(account, 0, 600L), slot(account, 1, 600L));
+        given(accountSlotRepository.debitSlot(anyLong(), anyInt(), anyLong()))
+                .willReturn(0, 0, 1);
+        given(accountSlotRepository.findByAccountIdForUpdate(anyLong()))
+                .willReturn(slots);
+        // when
+        boolean debited = accountSlotService.debit(account, 1000L);
+        // then
+        assertTrue(debited);
+        assertEquals(1200L, slots.stream().mapToLong(AccountSlot::getBalance).sum());
+        assertTrue(slots.stream().anyMatch(slot -> slot.getBalance() >= 1000L));
+    }
+
+    @Test
+    @DisplayName("슬롯 합계로도 부족하면 차감하지 않음")
+    void debit_ExceedBalance() {
+        //given
+        Account account = account(0L, 2);
+        given(accountSlotRepository.debitSlot(anyLong(), anyInt(), anyLong()))
+                .willReturn(0);
+        given(accountSlotRepository.findByAccountIdForUpdate(anyLong()))
+                .willReturn(List.of(slot(account, 0, 300L), slot(account, 1, 300L)));
+        // when
+        boolean debited = accountSlotService.debit(account, 1000L);
+        // then
+        assertFalse(debited);
+        verify(accountSlotRepository, times(2)).debitSlot(anyLong(), anyInt(), anyLong());
+    }
+
+    @Test
+    void rebalance() {
+        //given
+        Account account = account(0L, 3);
+        List<AccountSlot> slots = List.of(
+                slot(account, 0, 10L), slot(account, 1, 500L), slot(account, 2, 401L));
+        given(accountSlotRepository.findByAccountIdForUpdate(anyLong()))
+                .willReturn(slots);
+        // when
+        boolean rebalanced = accountSlotService.rebalance(1L);
+        // then
+        assertTrue(rebalanced);
+        assertEquals(305L, slots.get(0).getBalance());
+        assertEquals(303L, slots.get(1).getBalance());
+        assertEquals(303L, slots.get(2).getBalance());
+    }
+
+    private static Account account(Long balance, Integer slotCount) {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(balance)
+                .slotCount(slotCount)
+                .accountNumber("1000000012").build();
+        account.setId(1L);
+        return account;
+    }
+
+    private static AccountSlot slot(Account account, int slotIndex, Long balance) {
+        return AccountSlot.builder()
+                .account(account)
+                .slotIndex(slotIndex)
+                .balance(balance)
+                .build();
+    }
+}
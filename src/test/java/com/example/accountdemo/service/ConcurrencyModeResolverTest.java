@@ -0,0 +1,104 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.config.ConcurrencyProperties;
+import com.example.accountdemo.repository.AccountRepository;
+import com.example.accountdemo.type.AccountTier;
+import com.example.accountdemo.type.ConcurrencyMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ConcurrencyModeResolverTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Spy
+    private ConcurrencyProperties concurrencyProperties = new ConcurrencyProperties();
+
+    @InjectMocks
+    private ConcurrencyModeResolver concurrencyModeResolver;
+
+    @Test
+    void singleModeWithoutLookup() {
+        //given
+        concurrencyProperties.setDefaultMode(ConcurrencyMode.OPTIMISTIC);
+        // when
+        ConcurrencyMode mode = concurrencyModeResolver.resolve("1000000000");
+        // then
+        assertEquals(ConcurrencyMode.OPTIMISTIC, mode);
+        verify(accountRepository, never()).findAccountTierByAccountNumber(anyString());
+    }
+
+    @Test
+    void resolveByAccountTier() {
+        //given
+        concurrencyProperties.getModes().put(AccountTier.STANDARD, ConcurrencyMode.OPTIMISTIC);
+        concurrencyProperties.getModes().put(AccountTier.MERCHANT, ConcurrencyMode.LOCK);
+        given(accountRepository.findAccountTierByAccountNumber(anyString()))
+                .willReturn(Optional.of(AccountTier.MERCHANT));
+        // when
+        ConcurrencyMode first = concurrencyModeResolver.resolve("1000000000");
+        ConcurrencyMode second = concurrencyModeResolver.resolve("1000000000");
+        // then
+        assertEquals(ConcurrencyMode.LOCK, first);
+        assertEquals(ConcurrencyMode.LOCK, second);
+        verify(accountRepository, times(1)).findAccountTierByAccountNumber(anyString());
+    }
+
+    @Test
+    void slottedModeFallbackToLock() {
+        //given
+        concurrencyProperties.getModes().put(AccountTier.STANDARD, ConcurrencyMode.LOCK);
+        concurrencyProperties.getModes().put(AccountTier.MERCHANT, ConcurrencyMode.SLOTTED);
+        given(accountRepository.findAccountTierByAccountNumber(anyString()))
+                .willReturn(Optional.of(AccountTier.MERCHANT));
+        given(accountRepository.findSlotCountByAccountNumber("1000000000"))
+                .willReturn(Optional.of(0));
+        given(accountRepository.findSlotCountByAccountNumber("2000000000"))
+                .willReturn(Optional.of(4));
+        // when
+        ConcurrencyMode notSlotted = concurrencyModeResolver.resolve("1000000000");
+        ConcurrencyMode slotted = concurrencyModeResolver.resolve("2000000000");
+        concurrencyModeResolver.resolve("2000000000");
+        // then
+        assertEquals(ConcurrencyMode.LOCK, notSlotted);
+        assertEquals(ConcurrencyMode.SLOTTED, slotted);
+        verify(accountRepository, times(1)).findSlotCountByAccountNumber("2000000000");
+    }
+
+    @Test
+    void markSlottedOnlyAfterCommit() {
+        //given
+        concurrencyProperties.getModes().put(AccountTier.STANDARD, ConcurrencyMode.SLOTTED);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            concurrencyModeResolver.markSlottedAfterCommit("1000000000");
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        given(accountRepository.findSlotCountByAccountNumber("1000000000"))
+                .willReturn(Optional.of(0));
+        // then
+        assertFalse(concurrencyModeResolver.isSlotted("1000000000"));
+    }
+}
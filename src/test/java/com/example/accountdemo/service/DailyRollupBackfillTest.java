@@ -0,0 +1,47 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.repository.AccountRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class DailyRollupBackfillTest {
+    private static final LocalDate UNTIL = LocalDate.of(2022, 6, 2);
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private DailyRollupService dailyRollupService;
+
+    @Test
+    @DisplayName("계좌마다 백필하고 실패한 계좌가 있어도 나머지 계좌는 계속 처리한다")
+    void backfillAllAccounts() {
+        //given
+        DailyRollupBackfill backfill = new DailyRollupBackfill(accountRepository, dailyRollupService, 2, false);
+        given(accountRepository.findAllIds())
+                .willReturn(List.of(1L, 2L, 3L));
+        given(dailyRollupService.backfillAccount(1L, UNTIL))
+                .willReturn(3);
+        given(dailyRollupService.backfillAccount(2L, UNTIL))
+                .willThrow(new IllegalStateException("db down"));
+        given(dailyRollupService.backfillAccount(3L, UNTIL))
+                .willReturn(4);
+        // when
+        int rows = backfill.backfill(UNTIL);
+        // then
+        assertEquals(7, rows);
+        verify(dailyRollupService, times(1)).backfillAccount(3L, UNTIL);
+    }
+}
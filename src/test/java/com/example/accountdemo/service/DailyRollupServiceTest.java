@@ -0,0 +1,171 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.domain.Account;
+import com.example.accountdemo.domain.DailyRollupId;
+import com.example.accountdemo.domain.Transaction;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.AccountRepository;
+import com.example.accountdemo.repository.DailyRollupRepository;
+import com.example.accountdemo.type.TransactionResultType;
+import com.example.accountdemo.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.accountdemo.type.ErrorCode.INVALID_REQUEST;
+import static com.example.accountdemo.type.TransactionResultType.F;
+import static com.example.accountdemo.type.TransactionResultType.S;
+import static com.example.accountdemo.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class DailyRollupServiceTest {
+    @Mock
+    private DailyRollupRepository dailyRollupRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @InjectMocks
+    private DailyRollupService dailyRollupService;
+
+    @Test
+    @DisplayName("거래 하나는 해당 날짜, 종류, 결과 행에 1건과 금액을 더한다")
+    void record() {
+        //given
+        Transaction transaction = transaction(USE, S, 1000L, LocalDateTime.of(2022, 6, 1, 23, 59));
+        // when
+        dailyRollupService.record(transaction);
+        // then
+        verify(dailyRollupRepository, times(1))
+                .upsert(7L, LocalDate.of(2022, 6, 1), "USE", "S", 1L, 1000L);
+    }
+
+    @Test
+    @DisplayName("슬롯 계좌의 거래는 거래 중에 upsert 하지 않고 모았다가 행당 한 번 내보낸다")
+    void recordSlotted() {
+        //given
+        LocalDateTime transactedAt = LocalDateTime.of(2022, 6, 1, 10, 0);
+        Transaction first = transaction(USE, S, 1000L, transactedAt);
+        first.getAccount().setSlotCount(8);
+        Transaction second = transaction(USE, S, 2000L, transactedAt.plusMinutes(1));
+        second.getAccount().setSlotCount(8);
+        // when
+        dailyRollupService.record(first);
+        dailyRollupService.record(second);
+        verifyNoInteractions(dailyRollupRepository);
+        List<DailyRollupId> deferredIds = dailyRollupService.getDeferredIds();
+        deferredIds.forEach(dailyRollupService::flush);
+        // then
+        assertEquals(1, deferredIds.size());
+        verify(dailyRollupRepository, times(1))
+                .upsert(7L, LocalDate.of(2022, 6, 1), "USE", "S", 2L, 3000L);
+        assertTrue(dailyRollupService.getDeferredIds().isEmpty());
+    }
+
+    @Test
+    @DisplayName("원장 모드의 거래도 모았다가 내보낸다")
+    void recordLedger() {
+        //given
+        given(ledgerService.isEnabled())
+                .willReturn(true);
+        // when
+        dailyRollupService.record(transaction(USE, S, 1000L, LocalDateTime.of(2022, 6, 1, 10, 0)));
+        // then
+        verifyNoInteractions(dailyRollupRepository);
+        assertEquals(1, dailyRollupService.getDeferredIds().size());
+    }
+
+    @Test
+    @DisplayName("모아서 저장한 거래는 같은 집계 행끼리 묶어 한 번씩 upsert")
+    void recordAll() {
+        //given
+        LocalDateTime failedAt = LocalDateTime.of(2022, 6, 1, 10, 0);
+        // when
+        dailyRollupService.recordAll(List.of(
+                transaction(USE, F, 1000L, failedAt),
+                transaction(USE, F, 2000L, failedAt.plusHours(1)),
+                transaction(USE, F, 3000L, failedAt.plusDays(1))
+        ));
+        // then
+        verify(dailyRollupRepository, times(1))
+                .upsert(7L, LocalDate.of(2022, 6, 1), "USE", "F", 2L, 3000L);
+        verify(dailyRollupRepository, times(1))
+                .upsert(7L, LocalDate.of(2022, 6, 2), "USE", "F", 1L, 3000L);
+    }
+
+    @Test
+    @DisplayName("조회 기간이 366일을 넘으면 DB 를 조회하지 않고 실패")
+    void getRollups_RangeTooLong() {
+        //given
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> dailyRollupService.getRollups("1000000000",
+                        LocalDate.of(2022, 1, 1), LocalDate.of(2023, 1, 2)));
+        // then
+        assertEquals(INVALID_REQUEST, exception.getErrorCode());
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    @DisplayName("백필은 기준일 이전 집계를 지우고 거래 테이블에서 다시 만든다")
+    void backfillAccount() {
+        //given
+        given(dailyRollupRepository.insertFromTransactions(7L, LocalDateTime.of(2022, 6, 2, 0, 0)))
+                .willReturn(3);
+        // when
+        int rows = dailyRollupService.backfillAccount(7L, LocalDate.of(2022, 6, 2));
+        // then
+        verify(dailyRollupRepository, times(1)).deleteByAccountIdBefore(7L, LocalDate.of(2022, 6, 2));
+        assertEquals(3, rows);
+    }
+
+    @Test
+    @DisplayName("백필은 기준일 이전 날짜의 모아둔 건수를 버려 flush 때 두 번 더하지 않는다")
+    void backfillAccount_DiscardDeferred() {
+        //given
+        given(ledgerService.isEnabled())
+                .willReturn(true);
+        dailyRollupService.record(transaction(USE, S, 1000L, LocalDateTime.of(2022, 6, 1, 10, 0)));
+        dailyRollupService.record(transaction(USE, S, 2000L, LocalDateTime.of(2022, 6, 2, 10, 0)));
+        given(dailyRollupRepository.insertFromTransactions(7L, LocalDateTime.of(2022, 6, 2, 0, 0)))
+                .willReturn(1);
+        // when
+        dailyRollupService.backfillAccount(7L, LocalDate.of(2022, 6, 2));
+        // then
+        List<DailyRollupId> deferredIds = dailyRollupService.getDeferredIds();
+        assertEquals(1, deferredIds.size());
+        assertEquals(LocalDate.of(2022, 6, 2), deferredIds.get(0).getRollupDate());
+    }
+
+    private static Transaction transaction(
+            TransactionType transactionType,
+            TransactionResultType transactionResultType,
+            Long amount,
+            LocalDateTime transactedAt) {
+        Account account = Account.builder()
+                .accountNumber("1000000000").build();
+        account.setId(7L);
+        return Transaction.builder()
+                .account(account)
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .amount(amount)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.FailedTransactionRecord;
+import com.example.accountdemo.type.FailedRecordOverflowPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.accountdemo.type.TransactionType.CANCEL;
+import static com.example.accountdemo.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.willAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionRecorderTest {
+    @Mock
+    private TransactionService transactionService;
+
+    private final List<FailedTransactionRecord> saved = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        // 첫 저장은 release 될 때까지 붙잡아 대기열이 차도록 만든다.
+        willAnswer(invocation -> {
+            if (writing.getCount() > 0) {
+                writing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            saved.addAll(invocation.getArgument(0));
+            return null;
+        }).given(transactionService).saveFailedTransactions(anyList());
+    }
+
+    @Test
+    @DisplayName("종료할 때 대기열에 남은 실패 거래를 모두 저장")
+    void flushOnShutdown() {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, 100, 500, FailedRecordOverflowPolicy.DROP_NEWEST);
+        recorder.start();
+        release.countDown();
+        // when
+        recorder.recordUse("1000000000", 1000L);
+        recorder.recordCancel("1000000001", 2000L);
+        recorder.recordUse("1000000002", 3000L);
+        recorder.shutdown();
+        // then
+        assertEquals(3, saved.size());
+        assertEquals(USE, saved.get(0).getTransactionType());
+        assertEquals(CANCEL, saved.get(1).getTransactionType());
+        assertEquals("1000000002", saved.get(2).getAccountNumber());
+        assertEquals(0, recorder.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 차면 새 기록을 버린다")
+    void dropNewestOnOverflow() throws InterruptedException {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, 1, 500, FailedRecordOverflowPolicy.DROP_NEWEST);
+        recorder.start();
+        recorder.recordUse("1000000000", 1000L);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        // when
+        recorder.recordUse("1000000001", 1000L);
+        recorder.recordUse("1000000002", 1000L);
+        release.countDown();
+        recorder.shutdown();
+        // then
+        assertEquals(1, recorder.getDroppedCount());
+        assertEquals(List.of("1000000000", "1000000001"),
+                saved.stream().map(FailedTransactionRecord::getAccountNumber).toList());
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 차면 가장 오래된 기록을 버린다")
+    void dropOldestOnOverflow() throws InterruptedException {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, 1, 500, FailedRecordOverflowPolicy.DROP_OLDEST);
+        recorder.start();
+        recorder.recordUse("1000000000", 1000L);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        // when
+        recorder.recordUse("1000000001", 1000L);
+        recorder.recordUse("1000000002", 1000L);
+        release.countDown();
+        recorder.shutdown();
+        // then
+        assertEquals(1, recorder.getDroppedCount());
+        assertEquals(List.of("1000000000", "1000000002"),
+                saved.stream().map(FailedTransactionRecord::getAccountNumber).toList());
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 차면 요청 스레드에서 바로 저장하고 버리지 않는다")
+    void callerRunsOnOverflow() throws InterruptedException {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, 1, 500, FailedRecordOverflowPolicy.CALLER_RUNS);
+        recorder.start();
+        recorder.recordUse("1000000000", 1000L);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        // when
+        recorder.recordUse("1000000001", 1000L);
+        recorder.recordUse("1000000002", 1000L);
+        release.countDown();
+        recorder.shutdown();
+        // then
+        assertEquals(0, recorder.getDroppedCount());
+        assertEquals(3, saved.size());
+        assertEquals("1000000002", saved.get(0).getAccountNumber());
+    }
+}
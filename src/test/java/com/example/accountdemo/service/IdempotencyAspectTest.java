@@ -0,0 +1,144 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.aop.Idempotent;
+import com.example.accountdemo.controller.TransactionController;
+import com.example.accountdemo.dto.UseBalance;
+import com.example.accountdemo.exception.AccountException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Method;
+
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static com.example.accountdemo.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static com.example.accountdemo.type.ErrorCode.INVALID_REQUEST;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyAspectTest {
+    @Mock
+    private ProceedingJoinPoint proceedingJoinPoint;
+
+    @Mock
+    private MethodSignature methodSignature;
+
+    private final IdempotencyStore idempotencyStore = new IdempotencyStore(100, 60000L);
+
+    private final IdempotencyAspect idempotencyAspect = new IdempotencyAspect(idempotencyStore, new ObjectMapper());
+
+    private Idempotent useIdempotent() throws NoSuchMethodException {
+        Method method = TransactionController.class
+                .getMethod("useBalance", UseBalance.Request.class, String.class);
+        return method.getAnnotation(Idempotent.class);
+    }
+
+    @Test
+    @DisplayName("같은 멱등 키의 재요청은 실행하지 않고 저장된 응답을 돌려준다")
+    void replayStoredResponse() throws Throwable {
+        //given
+        UseBalance.Response response = UseBalance.Response.builder()
+                .accountNumber("1000000000")
+                .transactionId("transactionId")
+                .build();
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 1000L);
+        given(proceedingJoinPoint.proceed()).willReturn(response);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn((Class) UseBalance.Response.class);
+        // when
+        Object first = idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(), request, "key-1");
+        Object second = idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(), request, "key-1");
+        // then
+        verify(proceedingJoinPoint, times(1)).proceed();
+        assertSame(response, first);
+        assertSame(response, second);
+    }
+
+    @Test
+    @DisplayName("같은 멱등 키로 본문이 다른 요청이 오면 저장된 응답을 돌려주지 않고 거절한다")
+    void rejectDifferentRequestWithSameKey() throws Throwable {
+        //given
+        given(proceedingJoinPoint.proceed()).willReturn(UseBalance.Response.builder()
+                .accountNumber("1000000000")
+                .transactionId("transactionId")
+                .build());
+        idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(),
+                new UseBalance.Request(1L, "1000000000", 1000L), "key-1");
+        // when
+        AccountException differentAmount = assertThrows(AccountException.class, () ->
+                idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(),
+                        new UseBalance.Request(1L, "1000000000", 5000L), "key-1"));
+        AccountException differentUser = assertThrows(AccountException.class, () ->
+                idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(),
+                        new UseBalance.Request(2L, "1000000000", 1000L), "key-1"));
+        // then
+        assertEquals(INVALID_REQUEST, differentAmount.getErrorCode());
+        assertEquals(INVALID_REQUEST, differentUser.getErrorCode());
+        verify(proceedingJoinPoint, times(1)).proceed();
+    }
+
+    @Test
+    @DisplayName("락 획득 실패처럼 쓰기 전에 난 실패는 저장하지 않아 다시 실행된다")
+    void doNotStoreRetryableFailure() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 1000L);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ACCOUNT_TRANSACTION_LOCK));
+        // when
+        assertThrows(AccountException.class, () ->
+                idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(), request, "key-1"));
+        assertThrows(AccountException.class, () ->
+                idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(), request, "key-1"));
+        // then
+        verify(proceedingJoinPoint, times(2)).proceed();
+        assertEquals(0, idempotencyStore.size());
+    }
+
+    @Test
+    @DisplayName("업무 실패와 커밋 뒤에 났을 수 있는 실패는 저장해 다시 실행하지 않는다")
+    void storeTerminalFailure() throws Throwable {
+        //given
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(AMOUNT_EXCEED_BALANCE))
+                .willThrow(new IllegalMonitorStateException("lock lease expired"));
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn((Class) UseBalance.Response.class);
+        UseBalance.Request exceed = new UseBalance.Request(1L, "1000000000", 1000L);
+        UseBalance.Request unlockFailed = new UseBalance.Request(1L, "1000000000", 2000L);
+        assertThrows(AccountException.class, () ->
+                idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(), exceed, "key-1"));
+        assertThrows(IllegalMonitorStateException.class, () ->
+                idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(), unlockFailed, "key-2"));
+        // when
+        AccountException replayedExceed = assertThrows(AccountException.class, () ->
+                idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(), exceed, "key-1"));
+        assertThrows(IllegalMonitorStateException.class, () ->
+                idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(), unlockFailed, "key-2"));
+        // then
+        assertEquals(AMOUNT_EXCEED_BALANCE, replayedExceed.getErrorCode());
+        verify(proceedingJoinPoint, times(2)).proceed();
+        assertEquals(2, idempotencyStore.size());
+    }
+
+    @Test
+    @DisplayName("멱등 키가 없으면 저장하지 않는다")
+    void proceedWithoutKey() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 1000L);
+        // when
+        idempotencyAspect.aroundMethod(proceedingJoinPoint, useIdempotent(), request, null);
+        // then
+        verify(proceedingJoinPoint, times(1)).proceed();
+        verify(proceedingJoinPoint, never()).getSignature();
+        assertEquals(0, idempotencyStore.size());
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.exception.AccountException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.accountdemo.type.ErrorCode.IDEMPOTENCY_STORE_FULL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    @Test
+    void evictEldestOverMaxEntries() {
+        //given
+        IdempotencyStore store = new IdempotencyStore(2, 60000L);
+        // when
+        store.putIfAbsent("a", "{}", CompletableFuture.completedFuture("a"));
+        store.putIfAbsent("b", "{}", CompletableFuture.completedFuture("b"));
+        store.putIfAbsent("c", "{}", new CompletableFuture<>());
+        // then
+        assertEquals(2, store.size());
+        assertNull(store.putIfAbsent("a", "{}", new CompletableFuture<>()));
+        assertNotNull(store.putIfAbsent("c", "{}", new CompletableFuture<>()));
+    }
+
+    @Test
+    void keepPendingOverMaxEntries() {
+        //given
+        IdempotencyStore store = new IdempotencyStore(2, 60000L);
+        store.putIfAbsent("a", "{}", new CompletableFuture<>());
+        store.putIfAbsent("b", "{}", CompletableFuture.completedFuture("b"));
+        // when
+        store.putIfAbsent("c", "{}", new CompletableFuture<>());
+        AccountException exception = assertThrows(AccountException.class,
+                () -> store.putIfAbsent("d", "{}", new CompletableFuture<>()));
+        // then
+        assertEquals(IDEMPOTENCY_STORE_FULL, exception.getErrorCode());
+        assertNotNull(store.putIfAbsent("a", "{}", new CompletableFuture<>()));
+    }
+
+    @Test
+    void evictExpired() throws InterruptedException {
+        //given
+        IdempotencyStore store = new IdempotencyStore(100, 10L);
+        CompletableFuture<Object> first = new CompletableFuture<>();
+        store.putIfAbsent("a", "{}", first);
+        // when
+        Thread.sleep(20L);
+        IdempotencyStore.Entry stored = store.putIfAbsent("a", "{}", new CompletableFuture<>());
+        // then
+        assertNull(stored);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void removeOnlyOwnPending() {
+        //given
+        IdempotencyStore store = new IdempotencyStore(100, 60000L);
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        store.putIfAbsent("a", "{}", pending);
+        // when
+        store.remove("a", new CompletableFuture<>());
+        int afterOther = store.size();
+        store.remove("a", pending);
+        // then
+        assertEquals(1, afterOther);
+        assertEquals(0, store.size());
+    }
+}
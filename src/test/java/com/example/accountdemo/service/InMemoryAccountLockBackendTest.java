@@ -0,0 +1,62 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.aop.LockPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryAccountLockBackendTest {
+    private final InMemoryAccountLockBackend backend = new InMemoryAccountLockBackend();
+
+    @Test
+    void lockExcludeOtherHolder() throws InterruptedException {
+        //given
+        LockPolicy policy = LockPolicy.DEFAULT;
+        // when
+        boolean first = backend.tryLock("1000000000", policy, 0L);
+        boolean second = backend.tryLock("1000000000", policy, 10L);
+        backend.unlock("1000000000", policy);
+        boolean third = backend.tryLock("1000000000", policy, 0L);
+        // then
+        assertTrue(first);
+        assertFalse(second);
+        assertTrue(third);
+        assertTrue(backend.nextFencingToken("1000000000").isEmpty());
+    }
+
+    @Test
+    void asyncLockWaitForRelease() throws Exception {
+        //given
+        LockPolicy policy = LockPolicy.builder()
+                .waitTime(1000L)
+                .leaseTime(5000L)
+                .build();
+        backend.tryLock("1000000000", policy, 0L);
+        // when
+        CompletableFuture<Boolean> waiting = backend.tryLockAsync("1000000000", policy, 1L);
+        Thread.sleep(20L);
+        boolean lockedBeforeRelease = waiting.isDone();
+        backend.unlock("1000000000", policy);
+        // then
+        assertFalse(lockedBeforeRelease);
+        assertTrue(waiting.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void asyncLockTimeout() throws Exception {
+        //given
+        LockPolicy policy = LockPolicy.builder()
+                .waitTime(20L)
+                .leaseTime(5000L)
+                .build();
+        backend.tryLock("1000000000", policy, 0L);
+        // when
+        Boolean isLock = backend.tryLockAsync("1000000000", policy, 1L)
+                .get(1, TimeUnit.SECONDS);
+        // then
+        assertFalse(isLock);
+    }
+}
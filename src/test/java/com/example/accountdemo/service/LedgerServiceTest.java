@@ -0,0 +1,132 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.domain.Account;
+import com.example.accountdemo.domain.BalanceSnapshot;
+import com.example.accountdemo.domain.LedgerEntry;
+import com.example.accountdemo.repository.BalanceSnapshotRepository;
+import com.example.accountdemo.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    private LedgerService ledgerService;
+
+    @BeforeEach
+    void setUp() {
+        ledgerService = new LedgerService(ledgerEntryRepository, balanceSnapshotRepository, true, 2);
+    }
+
+    @Test
+    @DisplayName("마지막 스냅샷 이후의 원장만 더해 잔액을 계산")
+    void rebuildFromSnapshot() {
+        //given
+        Account account = account();
+        given(balanceSnapshotRepository.findFirstByAccountIdOrderBySeqDesc(1L))
+                .willReturn(Optional.of(BalanceSnapshot.builder().seq(100L).balance(5000L).build()));
+        given(ledgerEntryRepository.sumAfter(1L, 100L))
+                .willReturn(delta(3L, -1200L));
+        // when
+        LedgerService.Position position = ledgerService.current(account);
+        // then
+        assertEquals(103L, position.getSeq());
+        assertEquals(3800L, position.getBalance());
+    }
+
+    @Test
+    @DisplayName("캐시한 계좌는 스냅샷을 읽지 않고 캐시한 seq 이후만 따라잡는다")
+    void catchUpFromCache() {
+        //given
+        Account account = account();
+        given(balanceSnapshotRepository.findFirstByAccountIdOrderBySeqDesc(1L))
+                .willReturn(Optional.empty());
+        given(ledgerEntryRepository.sumAfter(1L, 0L))
+                .willReturn(delta(2L, -300L));
+        given(ledgerEntryRepository.sumAfter(1L, 2L))
+                .willReturn(delta(1L, 100L));
+        // when
+        ledgerService.current(account);
+        LedgerService.Position position = ledgerService.current(account);
+        // then
+        assertEquals(3L, position.getSeq());
+        assertEquals(10000L - 300L + 100L, position.getBalance());
+        verify(balanceSnapshotRepository, times(1)).findFirstByAccountIdOrderBySeqDesc(1L);
+    }
+
+    @Test
+    @DisplayName("snapshot-interval 번째 기록마다 스냅샷을 남긴다")
+    void appendWithSnapshot() {
+        //given
+        Account account = account();
+        ArgumentCaptor<BalanceSnapshot> captor = ArgumentCaptor.forClass(BalanceSnapshot.class);
+        // when
+        long odd = ledgerService.append(account, new LedgerService.Position(0L, 1000L), -200L, "tx1");
+        long even = ledgerService.append(account, new LedgerService.Position(1L, 800L), -300L, "tx2");
+        // then
+        assertEquals(800L, odd);
+        assertEquals(500L, even);
+        verify(ledgerEntryRepository, times(2)).saveAndFlush(any(LedgerEntry.class));
+        verify(balanceSnapshotRepository, times(1)).save(captor.capture());
+        assertEquals(2L, captor.getValue().getSeq());
+        assertEquals(500L, captor.getValue().getBalance());
+    }
+
+    @Test
+    @DisplayName("같은 seq 를 먼저 쓴 거래가 있으면 version 충돌로 던진다")
+    void appendConflict() {
+        //given
+        Account account = account();
+        given(ledgerEntryRepository.saveAndFlush(any(LedgerEntry.class)))
+                .willThrow(new DataIntegrityViolationException("duplicate"));
+        // when
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> ledgerService.append(account, new LedgerService.Position(1L, 800L), -300L, "tx"));
+        // then
+        verify(balanceSnapshotRepository, never()).save(any());
+    }
+
+    private static Account account() {
+        Account account = Account.builder()
+                .accountNumber("1000000012")
+                .balance(10000L)
+                .build();
+        account.setId(1L);
+        return account;
+    }
+
+    private static LedgerEntryRepository.LedgerDelta delta(Long count, Long amount) {
+        return new LedgerEntryRepository.LedgerDelta() {
+            @Override
+            public Long getCount() {
+                return count;
+            }
+
+            @Override
+            public Long getAmount() {
+                return amount;
+            }
+        };
+    }
+}
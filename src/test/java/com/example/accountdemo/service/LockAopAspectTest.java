@@ -1,18 +1,41 @@
 package com.example.accountdemo.service;
 
+import com.example.accountdemo.aop.AccountLock;
+import com.example.accountdemo.aop.LockPolicy;
+import com.example.accountdemo.config.ConcurrencyProperties;
+import com.example.accountdemo.controller.TransactionController;
+import com.example.accountdemo.dto.AuthorizeBalance;
+import com.example.accountdemo.dto.CancelBalance;
+import com.example.accountdemo.dto.SettleHold;
 import com.example.accountdemo.dto.UseBalance;
 import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.type.ConcurrencyMode;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static com.example.accountdemo.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -24,20 +47,51 @@ class LockAopAspectTest {
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
-    @InjectMocks
+    @Mock
+    private MethodSignature methodSignature;
+
+    @Mock
+    private ConcurrencyModeResolver concurrencyModeResolver;
+
+    @Spy
+    private ConcurrencyProperties concurrencyProperties = new ConcurrencyProperties();
+
+    @Mock
+    private AccountLaneExecutor accountLaneExecutor;
+
+    @Mock
+    private ThreadPoolTaskExecutor transactionExecutor;
+
     private LockAopAspect lockAopAspect;
 
+    private Method useBalanceMethod;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        lockAopAspect = new LockAopAspect(
+                new AccountConcurrencyExecutor(lockService, concurrencyModeResolver,
+                        concurrencyProperties, accountLaneExecutor),
+                transactionExecutor);
+        useBalanceMethod = TransactionController.class
+                .getMethod("useBalance", UseBalance.Request.class, String.class);
+    }
+
     @Test
     void lockAndUnlock() throws Throwable {
         //given
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.LOCK);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
         ArgumentCaptor<String> lockArgumentCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> unLockArgumentCaptor = ArgumentCaptor.forClass(String.class);
         UseBalance.Request request = new UseBalance.Request(123L, "1234", 100L);
+        given(methodSignature.getReturnType()).willReturn(UseBalance.Response.class);
+        given(methodSignature.getMethod()).willReturn(useBalanceMethod);
         // when
-        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint,
+                useBalanceMethod.getAnnotation(AccountLock.class), request);
         // then
-        verify(lockService, times(1)).lock(lockArgumentCaptor.capture());
-        verify(lockService, times(1)).unlock(unLockArgumentCaptor.capture());
+        verify(lockService, times(1)).lock(lockArgumentCaptor.capture(), any());
+        verify(lockService, times(1)).unlock(unLockArgumentCaptor.capture(), any());
         assertEquals("1234", lockArgumentCaptor.getValue());
         assertEquals("1234", unLockArgumentCaptor.getValue());
     }
@@ -45,19 +99,225 @@ class LockAopAspectTest {
     @Test
     void lockAndUnlock_evenIfThrow() throws Throwable {
         //given
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.LOCK);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
         ArgumentCaptor<String> lockArgumentCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> unLockArgumentCaptor = ArgumentCaptor.forClass(String.class);
         UseBalance.Request request = new UseBalance.Request(123L, "54321", 100L);
+        given(methodSignature.getReturnType()).willReturn(UseBalance.Response.class);
+        given(methodSignature.getMethod()).willReturn(useBalanceMethod);
         given(proceedingJoinPoint.proceed())
                 .willThrow(new AccountException(ACCOUNT_NOT_FOUND));
         // when
         assertThrows(AccountException.class, ()->
-        lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+        lockAopAspect.aroundMethod(proceedingJoinPoint,
+                useBalanceMethod.getAnnotation(AccountLock.class), request));
         // then
-        verify(lockService, times(1)).lock(lockArgumentCaptor.capture());
-        verify(lockService, times(1)).unlock(unLockArgumentCaptor.capture());
+        verify(lockService, times(1)).lock(lockArgumentCaptor.capture(), any());
+        verify(lockService, times(1)).unlock(unLockArgumentCaptor.capture(), any());
         assertEquals("54321", lockArgumentCaptor.getValue());
         assertEquals("54321", unLockArgumentCaptor.getValue());
     }
 
-}
\ No newline at end of file
+    @Test
+    void resolvePolicyPerMethod() throws Throwable {
+        //given
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.LOCK);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        Method cancelBalanceMethod = TransactionController.class
+                .getMethod("cancelBalance", CancelBalance.Request.class, String.class);
+        ArgumentCaptor<LockPolicy> policyCaptor = ArgumentCaptor.forClass(LockPolicy.class);
+        given(methodSignature.getReturnType()).willReturn(CancelBalance.Response.class);
+        given(methodSignature.getMethod()).willReturn(cancelBalanceMethod);
+        CancelBalance.Request request = new CancelBalance.Request("transactionId", "1234", 100L);
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint,
+                cancelBalanceMethod.getAnnotation(AccountLock.class), request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint,
+                cancelBalanceMethod.getAnnotation(AccountLock.class), request);
+        // then
+        verify(lockService, times(2)).lock(anyString(), policyCaptor.capture());
+        assertSame(policyCaptor.getAllValues().get(0), policyCaptor.getAllValues().get(1));
+        assertEquals(5000L, policyCaptor.getValue().getWaitTime());
+        assertTrue(policyCaptor.getValue().isFair());
+        assertEquals(2, policyCaptor.getValue().getRetryCount());
+    }
+
+    @Test
+    @DisplayName("낙관적 락 모드 - 분산 락 없이 충돌 시 재시도")
+    void optimisticMode_retryOnConflict() throws Throwable {
+        //given
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.OPTIMISTIC);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn(UseBalance.Response.class);
+        given(methodSignature.getMethod()).willReturn(useBalanceMethod);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L))
+                .willReturn("result");
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 100L);
+        // when
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint,
+                useBalanceMethod.getAnnotation(AccountLock.class), request);
+        // then
+        assertEquals("result", result);
+        verify(proceedingJoinPoint, times(2)).proceed();
+        verify(lockService, never()).lock(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("낙관적 락 모드 - 재시도 횟수 초과 시 실패")
+    void optimisticMode_exceedAttempts() throws Throwable {
+        //given
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.OPTIMISTIC);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn(UseBalance.Response.class);
+        given(methodSignature.getMethod()).willReturn(useBalanceMethod);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L));
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 100L);
+        // when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                lockAopAspect.aroundMethod(proceedingJoinPoint,
+                        useBalanceMethod.getAnnotation(AccountLock.class), request));
+        // then
+        assertEquals(ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(proceedingJoinPoint, times(3)).proceed();
+    }
+
+    @Test
+    @DisplayName("레인 모드 - 분산 락 없이 레인에서 실행")
+    void laneMode_executeOnLane() throws Throwable {
+        //given
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.LANE);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn(UseBalance.Response.class);
+        given(methodSignature.getMethod()).willReturn(useBalanceMethod);
+        given(accountLaneExecutor.execute(anyString(), anyLong(), any())).willReturn("result");
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 100L);
+        // when
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint,
+                useBalanceMethod.getAnnotation(AccountLock.class), request);
+        // then
+        assertEquals("result", result);
+        verify(accountLaneExecutor, times(1)).execute(anyString(), anyLong(), any());
+        verify(lockService, never()).lock(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("슬롯 모드 - 계좌 락 없이 실행")
+    void slottedMode_proceedWithoutLock() throws Throwable {
+        //given
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.SLOTTED);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn(UseBalance.Response.class);
+        given(methodSignature.getMethod()).willReturn(useBalanceMethod);
+        given(proceedingJoinPoint.proceed()).willReturn("result");
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 100L);
+        // when
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint,
+                useBalanceMethod.getAnnotation(AccountLock.class), request);
+        // then
+        assertEquals("result", result);
+        verify(lockService, never()).lock(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("비동기 API - 락을 비동기로 얻은 뒤 본문 실행")
+    void asyncMethod_executeWithLockAsync() throws Throwable {
+        //given
+        Method useBalanceAsyncMethod = TransactionController.class
+                .getMethod("useBalanceAsync", UseBalance.Request.class, String.class);
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.LOCK);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn(CompletableFuture.class);
+        given(methodSignature.getMethod()).willReturn(useBalanceAsyncMethod);
+        given(proceedingJoinPoint.proceed()).willReturn(CompletableFuture.completedFuture("result"));
+        given(lockService.executeWithLockAsync(eq("1234"), any(), any(), eq(transactionExecutor)))
+                .willAnswer(invocation -> CompletableFuture.completedFuture(
+                        invocation.<Supplier<?>>getArgument(2).get()));
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 100L);
+        // when
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint,
+                useBalanceAsyncMethod.getAnnotation(AccountLock.class), request);
+        // then
+        assertEquals("result", ((CompletableFuture<?>) result).join());
+        verify(lockService, never()).lock(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("비동기 API - 레인 모드 계좌는 단건 API 와 같은 레인에서 실행")
+    void asyncMethod_laneMode_submitToLane() throws Throwable {
+        //given
+        Method useBalanceAsyncMethod = TransactionController.class
+                .getMethod("useBalanceAsync", UseBalance.Request.class, String.class);
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.LANE);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn(CompletableFuture.class);
+        given(methodSignature.getMethod()).willReturn(useBalanceAsyncMethod);
+        given(accountLaneExecutor.submit(eq("1234"), any()))
+                .willReturn(CompletableFuture.completedFuture("result"));
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 100L);
+        // when
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint,
+                useBalanceAsyncMethod.getAnnotation(AccountLock.class), request);
+        // then
+        assertEquals("result", ((CompletableFuture<?>) result).join());
+        verify(lockService, never()).executeWithLockAsync(anyString(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("정책 이름이 같은 단건 API 와 비동기 API 는 같은 락 정책을 쓴다")
+    void sharePolicyByName() throws Throwable {
+        //given
+        Method useBalanceAsyncMethod = TransactionController.class
+                .getMethod("useBalanceAsync", UseBalance.Request.class, String.class);
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.LOCK);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType())
+                .willReturn(UseBalance.Response.class, CompletableFuture.class);
+        given(methodSignature.getMethod()).willReturn(useBalanceMethod, useBalanceAsyncMethod);
+        given(lockService.executeWithLockAsync(eq("1234"), any(), any(), eq(transactionExecutor)))
+                .willReturn(CompletableFuture.completedFuture("result"));
+        ArgumentCaptor<LockPolicy> syncPolicyCaptor = ArgumentCaptor.forClass(LockPolicy.class);
+        ArgumentCaptor<LockPolicy> asyncPolicyCaptor = ArgumentCaptor.forClass(LockPolicy.class);
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 100L);
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint,
+                useBalanceMethod.getAnnotation(AccountLock.class), request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint,
+                useBalanceAsyncMethod.getAnnotation(AccountLock.class), request);
+        // then
+        verify(lockService, times(1)).lock(anyString(), syncPolicyCaptor.capture());
+        verify(lockService, times(1)).executeWithLockAsync(
+                anyString(), asyncPolicyCaptor.capture(), any(), any());
+        assertSame(syncPolicyCaptor.getValue(), asyncPolicyCaptor.getValue());
+        assertEquals(useBalanceMethod.getAnnotation(AccountLock.class),
+                useBalanceAsyncMethod.getAnnotation(AccountLock.class));
+    }
+
+    @Test
+    @DisplayName("정책 이름이 없는 메서드는 속성이 같아도 락 정책을 따로 쓴다")
+    void doNotSharePolicyWithoutName() throws Throwable {
+        //given
+        Method authorizeBalanceMethod = TransactionController.class
+                .getMethod("authorizeBalance", AuthorizeBalance.Request.class);
+        Method voidHoldMethod = TransactionController.class
+                .getMethod("voidHold", SettleHold.Request.class);
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.LOCK);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn(AuthorizeBalance.Response.class);
+        given(methodSignature.getMethod()).willReturn(authorizeBalanceMethod, voidHoldMethod);
+        ArgumentCaptor<LockPolicy> policyCaptor = ArgumentCaptor.forClass(LockPolicy.class);
+        AuthorizeBalance.Request request = new AuthorizeBalance.Request(123L, "1234", 100L);
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint,
+                authorizeBalanceMethod.getAnnotation(AccountLock.class), request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint,
+                voidHoldMethod.getAnnotation(AccountLock.class), request);
+        // then
+        verify(lockService, times(2)).lock(anyString(), policyCaptor.capture());
+        assertEquals(authorizeBalanceMethod.getAnnotation(AccountLock.class),
+                voidHoldMethod.getAnnotation(AccountLock.class));
+        assertNotSame(policyCaptor.getAllValues().get(0), policyCaptor.getAllValues().get(1));
+    }
+}
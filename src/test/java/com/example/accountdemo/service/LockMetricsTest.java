@@ -0,0 +1,87 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.LockMetricsInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockMetricsTest {
+
+    @Test
+    void histogramPercentile() {
+        //given
+        LatencyHistogram histogram = new LatencyHistogram();
+        // when
+        for (int i = 0; i < 99; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(100L));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(100L));
+        LockMetricsInfo.Histogram snapshot = histogram.snapshot();
+        // then
+        assertEquals(100L, snapshot.getCount());
+        assertEquals(128L, snapshot.getP50Micros());
+        assertEquals(128L, snapshot.getP99Micros());
+        assertEquals(100_000L, snapshot.getMaxMicros());
+    }
+
+    @Test
+    @DisplayName("카운터 수를 넘는 계좌가 들어와도 상위 계좌는 유지된다")
+    void topKKeepHeavyHitters() {
+        //given
+        TopKSketch sketch = new TopKSketch(4);
+        // when
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("1000000000");
+            sketch.add("1000000000");
+            sketch.add("2000000000");
+            sketch.add(String.valueOf(3000000000L + i));
+        }
+        List<LockMetricsInfo.HotAccount> top = sketch.top(2);
+        // then
+        assertEquals(2, top.size());
+        assertEquals("1000000000", top.get(0).getAccountNumber());
+        assertEquals("2000000000", top.get(1).getAccountNumber());
+        assertEquals(2000L, top.get(0).getCount());
+    }
+
+    @Test
+    @DisplayName("가장 작은 카운터를 물려받은 계좌는 물려받은 값을 error 로 남긴다")
+    void topKInheritMinCountAsError() {
+        //given
+        TopKSketch sketch = new TopKSketch(2);
+        // when
+        sketch.add("1000000000");
+        sketch.add("2000000000");
+        sketch.add("3000000000");
+        sketch.add("3000000000");
+        sketch.add("1000000000");
+        List<LockMetricsInfo.HotAccount> top = sketch.top(3);
+        // then
+        assertEquals(2, top.size());
+        assertEquals("3000000000", top.get(0).getAccountNumber());
+        assertEquals(3L, top.get(0).getCount());
+        assertEquals(1L, top.get(0).getError());
+        assertEquals("1000000000", top.get(1).getAccountNumber());
+        assertEquals(2L, top.get(1).getCount());
+        assertEquals(1L, top.get(1).getError());
+    }
+
+    @Test
+    void holdTimeBetweenAcquireAndRelease() {
+        //given
+        LockMetrics lockMetrics = new LockMetrics();
+        // when
+        lockMetrics.recordAcquired("1000000000", 0L, false);
+        lockMetrics.recordReleased("1000000000");
+        lockMetrics.recordReleased("1000000000");
+        // then
+        LockMetricsInfo snapshot = lockMetrics.snapshot(10);
+        assertEquals(1L, snapshot.getWait().getCount());
+        assertEquals(1L, snapshot.getHold().getCount());
+        assertTrue(snapshot.getHotAccounts().isEmpty());
+    }
+}
@@ -1,18 +1,32 @@
 package com.example.accountdemo.service;
 
+import com.example.accountdemo.aop.AccountLockContext;
+import com.example.accountdemo.aop.LockPolicy;
 import com.example.accountdemo.exception.AccountException;
 import com.example.accountdemo.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class LockServiceTest {
@@ -22,12 +36,39 @@ class LockServiceTest {
     @Mock
     private RLock rLock;
 
-    @InjectMocks
+    @Mock
+    private RLock otherLock;
+
+    @Mock
+    private RAtomicLong fencingTokens;
+
+    @Spy
+    private LockMetrics lockMetrics = new LockMetrics();
+
     private LockService lockService;
 
+    @BeforeEach
+    void setUp() {
+        lockService = new LockService(new RedissonAccountLockBackend(redissonClient), lockMetrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        AccountLockContext.clear("123");
+        AccountLockContext.clear("456");
+    }
+
+    private void givenFencingToken() {
+        given(redissonClient.getAtomicLong(anyString()))
+                .willReturn(fencingTokens);
+        given(fencingTokens.incrementAndGet())
+                .willReturn(1L, 2L, 3L);
+    }
+
     @Test
     void successGetLock() throws InterruptedException {
         //given
+        givenFencingToken();
         given(redissonClient.getLock(anyString()))
                 .willReturn(rLock);
         given(rLock.tryLock(anyLong(), anyLong(), any()))
@@ -49,6 +90,208 @@ class LockServiceTest {
                 () -> lockService.lock("123"));
         // then
         assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals(1L, lockMetrics.snapshot(10).getFailedAcquire().getCount());
+        assertEquals("123", lockMetrics.snapshot(10).getHotAccounts().get(0).getAccountNumber());
+    }
+
+    @Test
+    void recordWaitAndHoldTime() throws InterruptedException {
+        //given
+        givenFencingToken();
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+        // when
+        lockService.lock("123");
+        lockService.unlock("123");
+        // then
+        assertEquals(1L, lockMetrics.snapshot(10).getWait().getCount());
+        assertEquals(1L, lockMetrics.snapshot(10).getHold().getCount());
+        assertEquals(0L, lockMetrics.snapshot(10).getFailedAcquire().getCount());
+    }
+
+    @Test
+    void failGetLock_releaseLocalLock() throws InterruptedException {
+        //given
+        givenFencingToken();
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(false, true);
+        // when
+        assertThrows(AccountException.class, () -> lockService.lock("123"));
+        // then
+        assertDoesNotThrow(() -> CompletableFuture
+                .runAsync(() -> lockService.lock("123")).join());
+    }
+
+    @Test
+    void waitLocalLockWithoutRedis() throws InterruptedException {
+        //given
+        givenFencingToken();
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+        lockService.lock("123");
+        // when
+        CompletableFuture<Void> otherRequest =
+                CompletableFuture.runAsync(() -> lockService.lock("123"));
+        // then
+        Exception exception = assertThrows(Exception.class, otherRequest::join);
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                ((AccountException) exception.getCause()).getErrorCode());
+        verify(redissonClient, times(1)).getLock(anyString());
+    }
+
+    @Test
+    void fairPolicyUseFairLock() throws InterruptedException {
+        //given
+        givenFencingToken();
+        LockPolicy policy = LockPolicy.builder()
+                .waitTime(1000L)
+                .leaseTime(15000L)
+                .fair(true)
+                .build();
+        given(redissonClient.getFairLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), eq(15000L), any()))
+                .willReturn(true);
+        // when
+        // then
+        assertDoesNotThrow(() -> lockService.lock("123", policy));
+    }
+
+    @Test
+    void retryWithBackoff() throws InterruptedException {
+        //given
+        givenFencingToken();
+        LockPolicy policy = LockPolicy.builder()
+                .waitTime(10L)
+                .leaseTime(15000L)
+                .retryCount(2)
+                .retryBackoff(10L)
+                .build();
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(false, false, true);
+        // when
+        lockService.lock("123", policy);
+        // then
+        verify(rLock, times(3)).tryLock(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void adaptiveWaitFollowsHoldTime() {
+        //given
+        LockPolicy policy = LockPolicy.builder()
+                .waitTime(1000L)
+                .leaseTime(15000L)
+                .adaptive(true)
+                .build();
+        // when
+        policy.recordHoldTime(TimeUnit.MILLISECONDS.toNanos(20L));
+        // then
+        assertEquals(80L, policy.getEffectiveWaitTime());
+    }
+
+    @Test
+    void issueFencingTokenOnLock() throws InterruptedException {
+        //given
+        givenFencingToken();
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+        // when
+        lockService.lock("123");
+        Long fencingToken = AccountLockContext.getFencingToken("123").orElseThrow();
+        lockService.unlock("123");
+        // then
+        assertEquals(1L, fencingToken);
+        assertTrue(AccountLockContext.getFencingToken("123").isEmpty());
+    }
+
+    @Test
+    void failIssueFencingToken() throws InterruptedException {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+        given(redissonClient.getAtomicLong(anyString()))
+                .willThrow(new IllegalStateException("redis down"));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("123"));
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(rLock, times(1)).unlock();
+    }
+
+    @Test
+    void lockAllInAccountOrder() throws InterruptedException {
+        //given
+        givenFencingToken();
+        given(redissonClient.getLock("ACLK:123"))
+                .willReturn(rLock);
+        given(redissonClient.getLock("ACLK:456"))
+                .willReturn(otherLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+        given(otherLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+        // when
+        lockService.lockAll(List.of("456", "123"), LockPolicy.DEFAULT);
+        boolean fenced = AccountLockContext.getFencingToken("123").isPresent()
+                && AccountLockContext.getFencingToken("456").isPresent();
+        lockService.unlockAll(List.of("456", "123"), LockPolicy.DEFAULT);
+        // then
+        InOrder inOrder = inOrder(rLock, otherLock);
+        inOrder.verify(rLock).tryLock(anyLong(), anyLong(), any());
+        inOrder.verify(otherLock).tryLock(anyLong(), anyLong(), any());
+        inOrder.verify(otherLock).unlock();
+        inOrder.verify(rLock).unlock();
+        assertTrue(fenced);
+        assertTrue(AccountLockContext.getFencingToken("123").isEmpty());
+    }
+
+    @Test
+    void failLockAll_releaseAcquiredLocks() throws InterruptedException {
+        //given
+        given(redissonClient.getLock("ACLK:123"))
+                .willReturn(rLock);
+        given(redissonClient.getLock("ACLK:456"))
+                .willReturn(otherLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+        given(otherLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(false);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lockAll(List.of("123", "456"), LockPolicy.DEFAULT));
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(rLock, times(1)).unlock();
+        verify(otherLock, never()).unlock();
+    }
+
+    @Test
+    void lockAllSameStripeWithMemoryBackend() {
+        //given
+        LockService memoryLockService =
+                new LockService(new InMemoryAccountLockBackend(), lockMetrics);
+        List<String> accountNumbers = List.of("1000000000", "1000000121");
+        // when
+        memoryLockService.lockAll(accountNumbers, LockPolicy.DEFAULT);
+        memoryLockService.unlockAll(accountNumbers, LockPolicy.DEFAULT);
+        // then
+        assertDoesNotThrow(() -> CompletableFuture.runAsync(() -> {
+            memoryLockService.lock("1000000121");
+            memoryLockService.unlock("1000000121");
+        }).join());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package com.example.accountdemo.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelBatchRunnerTest {
+
+    @Test
+    @DisplayName("성공한 작업의 결과만 더하고 실패한 작업이 있어도 나머지 작업은 계속 처리한다")
+    void sumSucceededItems() {
+        //given
+        List<Integer> items = List.of(1, 2, 3, 4);
+        // when
+        int total = ParallelBatchRunner.run("test", items, 2, item -> {
+            if (item == 3) {
+                throw new IllegalStateException("failed");
+            }
+            return item;
+        });
+        // then
+        assertEquals(7, total);
+    }
+}
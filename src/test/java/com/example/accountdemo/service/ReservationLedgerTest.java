@@ -0,0 +1,141 @@
+package com.example.accountdemo.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationLedgerTest {
+
+    @Test
+    @DisplayName("계좌별 홀드 합계는 승인과 해제에 따라 바뀐다")
+    void reserveAndRelease() {
+        //given
+        ReservationLedger ledger = new ReservationLedger(60_000L, 100L, 16);
+        ledger.reserve("hold1", "1000000000", 1L, 1000L);
+        ledger.reserve("hold2", "1000000000", 1L, 500L);
+        // when
+        ReservationLedger.Hold released = ledger.release("hold1").orElseThrow();
+        // then
+        assertEquals(1000L, released.getAmount());
+        assertEquals(500L, ledger.getHeldAmount("1000000000"));
+        assertTrue(ledger.release("hold1").isEmpty());
+        ledger.release("hold2");
+        assertEquals(0L, ledger.getHeldAmount("1000000000"));
+    }
+
+    @Test
+    @DisplayName("만료 시각이 지난 홀드만 틱에서 풀린다")
+    void expireOnTick() {
+        //given
+        ReservationLedger ledger = new ReservationLedger(1_000L, 100L, 4);
+        ReservationLedger.Hold hold = ledger.reserve("hold1", "1000000000", 1L, 1000L);
+        // when
+        // 휠 한 바퀴(400ms)가 만료(1000ms)보다 짧아도 만료 전에는 풀리지 않는다.
+        ledger.advance(hold.getExpiresAt() - 200L);
+        long heldBeforeExpiry = ledger.getHeldAmount("1000000000");
+        ledger.advance(hold.getExpiresAt() + 200L);
+        // then
+        assertEquals(1000L, heldBeforeExpiry);
+        assertEquals(0L, ledger.getHeldAmount("1000000000"));
+        assertEquals(0, ledger.size());
+    }
+
+    @Test
+    @DisplayName("풀린 홀드는 만료 처리에서 합계를 다시 빼지 않는다")
+    void skipReleasedHold() {
+        //given
+        ReservationLedger ledger = new ReservationLedger(1_000L, 100L, 4);
+        ReservationLedger.Hold hold = ledger.reserve("hold1", "1000000000", 1L, 1000L);
+        ledger.reserve("hold2", "1000000000", 1L, 300L);
+        ledger.release("hold1");
+        // when
+        ledger.advance(hold.getExpiresAt() - 1L);
+        // then
+        assertEquals(300L, ledger.getHeldAmount("1000000000"));
+    }
+
+    @Test
+    @DisplayName("꺼낸 홀드는 커밋될 때까지 합계에 남고 커밋되면 빠진다")
+    void claimAndCommit() {
+        //given
+        ReservationLedger ledger = new ReservationLedger(60_000L, 100L, 16);
+        ReservationLedger.Hold hold = ledger.reserve("hold1", "1000000000", 1L, 1000L);
+        ledger.reserve("hold2", "1000000000", 1L, 300L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            long reserved = ledger.claim(hold).orElseThrow();
+            long heldBeforeCommit = ledger.getHeldAmount("1000000000");
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+            // then
+            assertEquals(300L, reserved);
+            assertEquals(1300L, heldBeforeCommit);
+            assertTrue(ledger.get("hold1").isEmpty());
+            assertEquals(300L, ledger.getHeldAmount("1000000000"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("차감이 롤백되면 꺼낸 홀드를 되돌려 다시 확정할 수 있다")
+    void claimAndRollback() {
+        //given
+        ReservationLedger ledger = new ReservationLedger(60_000L, 100L, 16);
+        ReservationLedger.Hold hold = ledger.reserve("hold1", "1000000000", 1L, 1000L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            ledger.claim(hold).orElseThrow();
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+            // then
+            assertTrue(ledger.get("hold1").isPresent());
+            assertEquals(1000L, ledger.getHeldAmount("1000000000"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("꺼낸 홀드는 만료되지 않고, 같은 홀드를 동시에 꺼내면 한 번만 성공한다")
+    void claimConcurrently() throws Exception {
+        //given
+        ReservationLedger ledger = new ReservationLedger(1_000L, 100L, 4);
+        ReservationLedger.Hold hold = ledger.reserve("hold1", "1000000000", 1L, 1000L);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        // when
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return ledger.claim(hold).isPresent();
+            }));
+        }
+        start.countDown();
+        int claimed = 0;
+        for (Future<Boolean> future : futures) {
+            claimed += future.get() ? 1 : 0;
+        }
+        executor.shutdown();
+        ledger.advance(hold.getExpiresAt() + 200L);
+        // then
+        assertEquals(1, claimed);
+        assertEquals(0L, ledger.getHeldAmount("1000000000"));
+        assertEquals(0, ledger.size());
+    }
+}
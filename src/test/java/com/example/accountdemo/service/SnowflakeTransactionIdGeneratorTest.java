@@ -0,0 +1,95 @@
+package com.example.accountdemo.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class SnowflakeTransactionIdGeneratorTest {
+
+    @Test
+    @DisplayName("문자열 순서가 생성 순서와 같다")
+    void generateInOrder() {
+        //given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(7L);
+        List<String> ids = new ArrayList<>();
+        // when
+        for (int i = 0; i < 10000; i++) {
+            ids.add(generator.generate());
+        }
+        // then
+        for (int i = 1; i < ids.size(); i++) {
+            assertEquals(13, ids.get(i).length());
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0);
+        }
+    }
+
+    @Test
+    @DisplayName("여러 스레드에서 생성해도 겹치지 않는다")
+    void generateUniqueConcurrently() {
+        //given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(1L);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        // when
+        CompletableFuture.allOf(IntStream.range(0, 8)
+                .mapToObj(thread -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        ids.add(generator.generate());
+                    }
+                }))
+                .toArray(CompletableFuture[]::new)).join();
+        // then
+        assertEquals(80000, ids.size());
+    }
+
+    @Test
+    @DisplayName("노드 아이디가 아이디에 들어간다")
+    void encodeNodeId() {
+        //given
+        SnowflakeTransactionIdGenerator node1 = new SnowflakeTransactionIdGenerator(1L);
+        SnowflakeTransactionIdGenerator node2 = new SnowflakeTransactionIdGenerator(2L);
+        // when
+        long id1 = node1.nextId();
+        long id2 = node2.nextId();
+        // then
+        assertEquals(1L, (id1 >>> 12) & 1023);
+        assertEquals(2L, (id2 >>> 12) & 1023);
+        assertEquals("0000000000001", SnowflakeTransactionIdGenerator.encode(1L));
+        assertEquals("000000000000Z", SnowflakeTransactionIdGenerator.encode(31L));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTransactionIdGenerator(1024L));
+    }
+
+    @Test
+    @DisplayName("node-id 를 지정하지 않으면 redis 락 백엔드는 Redis 카운터로 노드 아이디를 받는다")
+    void allocateNodeIdFromRedis() {
+        //given
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RAtomicLong counter = mock(RAtomicLong.class);
+        given(redissonClient.getAtomicLong("TXNODEID")).willReturn(counter);
+        given(counter.getAndIncrement()).willReturn(1024L + 5L);
+        // when
+        long nodeId = SnowflakeTransactionIdGenerator.resolveNodeId(null, "redis", redissonClient);
+        // then
+        assertEquals(5L, nodeId);
+    }
+
+    @Test
+    @DisplayName("node-id 없이 여러 노드용 락 백엔드를 쓰면 기동하지 않는다")
+    void requireNodeIdForDatabaseBackend() {
+        assertEquals(0L, SnowflakeTransactionIdGenerator.resolveNodeId(null, "memory", null));
+        assertEquals(3L, SnowflakeTransactionIdGenerator.resolveNodeId(3L, "database", null));
+        assertThrows(IllegalStateException.class,
+                () -> SnowflakeTransactionIdGenerator.resolveNodeId(null, "database", null));
+    }
+}
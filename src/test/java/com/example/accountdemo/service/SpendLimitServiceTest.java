@@ -0,0 +1,176 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.TransactionRepository;
+import com.example.accountdemo.repository.TransactionRepository.SpendRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.accountdemo.type.ErrorCode.SPEND_LIMIT_EXCEEDED;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class SpendLimitServiceTest {
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long MINUTE = 60_000L;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ObjectProvider<RedissonClient> redissonClient;
+
+    private SpendLimitService spendLimitService(
+            long accountHourly, long accountDaily, long userHourly, long userDaily) {
+        return new SpendLimitService(transactionRepository, redissonClient,
+                accountHourly, accountDaily, userHourly, userDaily, false);
+    }
+
+    @Test
+    @DisplayName("한도를 넘는 사용은 실패하고 기록하지 않는다")
+    void exceedAccountHourlyLimit() {
+        //given
+        SpendLimitService service = spendLimitService(1000L, 0L, 0L, 0L);
+        service.consume("1000000000", 1L, 600L, NOW);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> service.consume("1000000000", 1L, 500L, NOW + MINUTE));
+        // then
+        assertEquals(SPEND_LIMIT_EXCEEDED, exception.getErrorCode());
+        assertEquals(600L, service.getAccountSpent("1000000000", NOW + MINUTE, false));
+        assertDoesNotThrow(() -> service.consume("1000000001", 1L, 500L, NOW + MINUTE));
+    }
+
+    @Test
+    @DisplayName("1시간이 지난 사용 금액은 1시간 한도에서 빠지고 24시간 합계에는 남는다")
+    void slideOutOfHourWindow() {
+        //given
+        SpendLimitService service = spendLimitService(1000L, 0L, 0L, 0L);
+        service.consume("1000000000", 1L, 600L, NOW);
+        // when
+        service.consume("1000000000", 1L, 600L, NOW + 61 * MINUTE);
+        // then
+        assertEquals(600L, service.getAccountSpent("1000000000", NOW + 61 * MINUTE, false));
+        assertEquals(1200L, service.getAccountSpent("1000000000", NOW + 61 * MINUTE, true));
+        assertEquals(0L, service.getAccountSpent("1000000000", NOW + 25 * 60 * MINUTE, true));
+    }
+
+    @Test
+    @DisplayName("사용자 한도를 넘으면 먼저 기록한 계좌 사용 금액도 되돌린다")
+    void exceedUserDailyLimit() {
+        //given
+        SpendLimitService service = spendLimitService(0L, 10_000L, 0L, 1000L);
+        service.consume("1000000000", 1L, 500L, NOW);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> service.consume("1000000001", 1L, 600L, NOW));
+        // then
+        assertEquals(SPEND_LIMIT_EXCEEDED, exception.getErrorCode());
+        assertEquals(0L, service.getAccountSpent("1000000001", NOW, true));
+        assertEquals(500L, service.getUserSpent(1L, NOW, true));
+    }
+
+    @Test
+    @DisplayName("되돌리면 기록했던 칸에서 뺀다")
+    void refund() {
+        //given
+        SpendLimitService service = spendLimitService(1000L, 0L, 0L, 0L);
+        long spentAt = service.consume("1000000000", 1L, 600L);
+        // when
+        service.refund("1000000000", 1L, 600L, spentAt);
+        // then
+        assertEquals(0L, service.getAccountSpent("1000000000", System.currentTimeMillis(), false));
+        assertDoesNotThrow(() -> service.consume("1000000000", 1L, 1000L));
+    }
+
+    @Test
+    @DisplayName("최근 24시간 거래로 다시 만들 때 취소된 사용 거래는 뺀다")
+    void rebuildFromTransactions() {
+        //given
+        SpendLimitService service = spendLimitService(0L, 10_000L, 0L, 10_000L);
+        LocalDateTime transactedAt = LocalDateTime.now().minusHours(2);
+        given(transactionRepository.findSpendsBetween(any(), any()))
+                .willReturn(List.of(
+                        spend("1000000000", 1L, 3000L, transactedAt),
+                        spend("1000000001", 1L, 2000L, transactedAt)
+                ));
+        given(transactionRepository.findCanceledSpendsBetween(any(), any()))
+                .willReturn(List.of(spend("1000000001", 1L, 2000L, transactedAt)));
+        // when
+        service.rebuild();
+        // then
+        long now = System.currentTimeMillis();
+        assertEquals(3000L, service.getAccountSpent("1000000000", now, true));
+        assertEquals(0L, service.getAccountSpent("1000000001", now, true));
+        assertEquals(3000L, service.getUserSpent(1L, now, true));
+        assertEquals(0L, service.getUserSpent(1L, now, false));
+    }
+
+    @Test
+    @DisplayName("다시 만드는 동안 받은 다른 노드의 기록은 새 링에 남고 기존 링의 기록은 두 번 세지 않는다")
+    void keepRemoteSpendDuringRebuild() {
+        //given
+        SpendLimitService service = spendLimitService(0L, 10_000L, 0L, 0L);
+        LocalDateTime transactedAt = LocalDateTime.now().minusHours(2);
+        service.consume("1000000000", 1L, 3000L);
+        given(transactionRepository.findSpendsBetween(any(), any()))
+                .willAnswer(invocation -> {
+                    long now = System.currentTimeMillis();
+                    service.applyRemote("other,1000000000,2,500," + now, now);
+                    return List.of(spend("1000000000", 1L, 3000L, transactedAt));
+                });
+        given(transactionRepository.findCanceledSpendsBetween(any(), any()))
+                .willReturn(List.of());
+        // when
+        service.rebuild();
+        // then
+        assertEquals(3500L, service.getAccountSpent("1000000000", System.currentTimeMillis(), true));
+    }
+
+    @Test
+    @DisplayName("다른 노드에서 기록한 금액을 반영한다")
+    void applyRemoteSpend() {
+        //given
+        SpendLimitService service = spendLimitService(1000L, 0L, 0L, 0L);
+        // when
+        service.applyRemote("other-node,1000000000,1,700," + NOW, NOW);
+        // then
+        assertEquals(700L, service.getAccountSpent("1000000000", NOW, false));
+        assertThrows(AccountException.class,
+                () -> service.consume("1000000000", 1L, 400L, NOW));
+    }
+
+    private static SpendRecord spend(String accountNumber, Long userId, Long amount, LocalDateTime transactedAt) {
+        return new SpendRecord() {
+            @Override
+            public String getAccountNumber() {
+                return accountNumber;
+            }
+
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Long getAmount() {
+                return amount;
+            }
+
+            @Override
+            public LocalDateTime getTransactedAt() {
+                return transactedAt;
+            }
+        };
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.TransactionDto;
+import com.example.accountdemo.dto.UseBalance;
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.config.ConcurrencyProperties;
+import com.example.accountdemo.type.ConcurrencyMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.List;
+
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static com.example.accountdemo.type.TransactionResultType.F;
+import static com.example.accountdemo.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchServiceTest {
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private ConcurrencyModeResolver concurrencyModeResolver;
+
+    @Mock
+    private AccountLaneExecutor accountLaneExecutor;
+
+    @Mock
+    private TransactionService transactionService;
+
+    private TransactionBatchService transactionBatchService;
+
+    @BeforeEach
+    void setUp() {
+        transactionBatchService = new TransactionBatchService(
+                new AccountConcurrencyExecutor(lockService, concurrencyModeResolver,
+                        new ConcurrencyProperties(), accountLaneExecutor),
+                transactionService);
+    }
+
+    @Test
+    @DisplayName("계좌별로 묶어 락을 한 번씩 잡고 결과는 요청 순서대로")
+    void groupByAccountNumber() {
+        //given
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.LOCK);
+        given(transactionService.useBalanceBatch(eq("1000000000"), anyList()))
+                .willAnswer(invocation -> successes("1000000000", invocation.getArgument(1)));
+        given(transactionService.useBalanceBatch(eq("1000000001"), anyList()))
+                .willAnswer(invocation -> successes("1000000001", invocation.getArgument(1)));
+        // when
+        List<TransactionDto> results = transactionBatchService.useBalanceBatch(List.of(
+                new UseBalance.Request(1L, "1000000000", 100L),
+                new UseBalance.Request(2L, "1000000001", 200L),
+                new UseBalance.Request(1L, "1000000000", 300L)
+        ));
+        // then
+        verify(lockService, times(1)).lock(eq("1000000000"), any());
+        verify(lockService, times(1)).lock(eq("1000000001"), any());
+        verify(lockService, times(1)).unlock(eq("1000000000"), any());
+        verify(lockService, times(1)).unlock(eq("1000000001"), any());
+        assertEquals(3, results.size());
+        assertEquals("1000000000", results.get(0).getAccountNumber());
+        assertEquals(100L, results.get(0).getAmount());
+        assertEquals("1000000001", results.get(1).getAccountNumber());
+        assertEquals(200L, results.get(1).getAmount());
+        assertEquals("1000000000", results.get(2).getAccountNumber());
+        assertEquals(300L, results.get(2).getAmount());
+    }
+
+    @Test
+    @DisplayName("락을 잡지 못한 계좌의 항목만 실패")
+    void failLockOnlyFailsGroup() {
+        //given
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.LOCK);
+        willThrow(new AccountException(ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock(eq("1000000000"), any());
+        given(transactionService.useBalanceBatch(eq("1000000001"), anyList()))
+                .willAnswer(invocation -> successes("1000000001", invocation.getArgument(1)));
+        // when
+        List<TransactionDto> results = transactionBatchService.useBalanceBatch(List.of(
+                new UseBalance.Request(1L, "1000000000", 100L),
+                new UseBalance.Request(2L, "1000000001", 200L)
+        ));
+        // then
+        assertEquals(F, results.get(0).getTransactionResultType());
+        assertEquals(ACCOUNT_TRANSACTION_LOCK, results.get(0).getErrorCode());
+        assertEquals(S, results.get(1).getTransactionResultType());
+        verify(lockService, times(0)).unlock(eq("1000000000"), any());
+    }
+
+    @Test
+    @DisplayName("낙관적 락 모드 계좌는 락 없이 처리하고 version 충돌 시 묶음을 다시 처리")
+    void optimisticMode_retryGroupOnConflict() {
+        //given
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.OPTIMISTIC);
+        given(transactionService.useBalanceBatch(eq("1000000000"), anyList()))
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L))
+                .willAnswer(invocation -> successes("1000000000", invocation.getArgument(1)));
+        // when
+        List<TransactionDto> results = transactionBatchService.useBalanceBatch(List.of(
+                new UseBalance.Request(1L, "1000000000", 100L)
+        ));
+        // then
+        assertEquals(S, results.get(0).getTransactionResultType());
+        verify(transactionService, times(2)).useBalanceBatch(eq("1000000000"), anyList());
+        verify(lockService, never()).lock(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("레인 모드 계좌는 단건 API 와 같은 계좌 레인에서 처리")
+    void laneMode_executeOnLane() throws Throwable {
+        //given
+        given(concurrencyModeResolver.resolve(anyString())).willReturn(ConcurrencyMode.LANE);
+        given(accountLaneExecutor.execute(eq("1000000000"), anyLong(), any()))
+                .willAnswer(invocation -> invocation.<AccountLaneExecutor.LaneTask<?>>getArgument(2).run());
+        given(transactionService.useBalanceBatch(eq("1000000000"), anyList()))
+                .willAnswer(invocation -> successes("1000000000", invocation.getArgument(1)));
+        // when
+        List<TransactionDto> results = transactionBatchService.useBalanceBatch(List.of(
+                new UseBalance.Request(1L, "1000000000", 100L)
+        ));
+        // then
+        assertEquals(S, results.get(0).getTransactionResultType());
+        verify(accountLaneExecutor, times(1)).execute(eq("1000000000"), anyLong(), any());
+        verify(lockService, never()).lock(anyString(), any());
+    }
+
+    private static List<TransactionDto> successes(String accountNumber, List<UseBalance.Request> requests) {
+        return requests.stream()
+                .map(request -> TransactionDto.builder()
+                        .accountNumber(accountNumber)
+                        .transactionResultType(S)
+                        .amount(request.getAmount())
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.exception.AccountException;
+import com.example.accountdemo.repository.AccountRepository;
+import com.example.accountdemo.repository.TransactionRepository;
+import com.example.accountdemo.repository.TransactionRepository.TransactionHistoryRow;
+import com.example.accountdemo.type.ExportFormat;
+import com.example.accountdemo.type.TransactionResultType;
+import com.example.accountdemo.type.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+    private static final LocalDateTime TRANSACTED_AT = LocalDateTime.of(2022, 6, 1, 23, 26, 14);
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @InjectMocks
+    private TransactionExportService transactionExportService;
+
+    @Test
+    @DisplayName("NDJSON - 거래 하나를 한 줄로 쓰고 다 쓰면 커서를 닫는다")
+    void exportNdjson() throws Exception {
+        //given
+        AtomicBoolean closed = new AtomicBoolean();
+        given(transactionRepository.streamHistory(7L))
+                .willReturn(Stream.of(row("tx1", null), row("tx2", "tx3"))
+                        .onClose(() -> closed.set(true)));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        // when
+        long count = transactionExportService.export(7L, ExportFormat.NDJSON, outputStream);
+        // then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2L, count);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"transactionType\":\"USE\""));
+        assertFalse(lines[0].contains("linkedTransactionId"));
+        assertTrue(lines[1].contains("\"linkedTransactionId\":\"tx3\""));
+        assertTrue(lines[1].contains("\"transactedAt\":\"2022-06-01T23:26:14\""));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("CSV - 헤더 다음에 거래 하나를 한 줄로, 값이 없으면 빈 칸")
+    void exportCsv() throws Exception {
+        //given
+        given(transactionRepository.streamHistory(7L))
+                .willReturn(Stream.of(row("tx1", null)));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        // when
+        transactionExportService.export(7L, ExportFormat.CSV, outputStream);
+        // then
+        assertEquals("transactionId,transactionType,transactionResult,amount,balanceSnapshot,linkedTransactionId,transactedAt\n"
+                        + "tx1,USE,S,1000,9000,,2022-06-01T23:26:14\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("계좌가 없으면 응답을 쓰기 전에 실패")
+    void exportAccountNotFound() {
+        //given
+        given(accountRepository.findIdByAccountNumber("1000000000"))
+                .willReturn(Optional.empty());
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionExportService.getAccountId("1000000000"));
+        // then
+        assertEquals(ACCOUNT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    private static TransactionHistoryRow row(String transactionId, String linkedTransactionId) {
+        return new TransactionHistoryRow() {
+            @Override
+            public Long getId() {
+                return 1L;
+            }
+
+            @Override
+            public TransactionType getTransactionType() {
+                return TransactionType.USE;
+            }
+
+            @Override
+            public TransactionResultType getTransactionResultType() {
+                return TransactionResultType.S;
+            }
+
+            @Override
+            public String getTransactionId() {
+                return transactionId;
+            }
+
+            @Override
+            public String getLinkedTransactionId() {
+                return linkedTransactionId;
+            }
+
+            @Override
+            public Long getAmount() {
+                return 1000L;
+            }
+
+            @Override
+            public Long getBalanceSnapshot() {
+                return 9000L;
+            }
+
+            @Override
+            public LocalDateTime getTransactedAt() {
+                return TRANSACTED_AT;
+            }
+        };
+    }
+}
@@ -1,15 +1,23 @@
 package com.example.accountdemo.service;
 
+import com.example.accountdemo.aop.AccountLockContext;
 import com.example.accountdemo.domain.Account;
 import com.example.accountdemo.domain.AccountUser;
 import com.example.accountdemo.domain.Transaction;
+import com.example.accountdemo.dto.AccountMetadata;
+import com.example.accountdemo.dto.FailedTransactionRecord;
+import com.example.accountdemo.dto.TransactionHistory;
 import com.example.accountdemo.dto.TransactionDto;
+import com.example.accountdemo.dto.UseBalance;
 import com.example.accountdemo.exception.AccountException;
 import com.example.accountdemo.repository.AccountRepository;
 import com.example.accountdemo.repository.AccountUserRepository;
 import com.example.accountdemo.repository.TransactionRepository;
+import com.example.accountdemo.repository.TransactionRepository.TransactionHistoryRow;
 import com.example.accountdemo.type.AccountStatus;
 import com.example.accountdemo.type.ErrorCode;
+import com.example.accountdemo.type.TransactionResultType;
+import com.example.accountdemo.type.TransactionType;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,15 +25,21 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static com.example.accountdemo.type.AccountStatus.IN_USE;
 import static com.example.accountdemo.type.ErrorCode.*;
 import static com.example.accountdemo.type.TransactionResultType.F;
 import static com.example.accountdemo.type.TransactionResultType.S;
 import static com.example.accountdemo.type.TransactionType.CANCEL;
+import static com.example.accountdemo.type.TransactionType.TRANSFER_IN;
+import static com.example.accountdemo.type.TransactionType.TRANSFER_OUT;
 import static com.example.accountdemo.type.TransactionType.USE;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -44,6 +58,30 @@ class TransactionServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private ConcurrencyModeResolver concurrencyModeResolver;
+
+    @Mock
+    private AccountSlotService accountSlotService;
+
+    @Mock
+    private ReservationLedger reservationLedger;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private SpendLimitService spendLimitService;
+
+    @Mock
+    private DailyRollupService dailyRollupService;
+
+    @Mock
+    private AccountMetadataCache accountMetadataCache;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -57,11 +95,13 @@ class TransactionServiceTest {
         Account account = Account.builder()
                 .accountUser(user)
                 .accountStatus(IN_USE)
-                .balance(10000L)
+                .balance(9800L)
                 .accountNumber("1000000002").build();
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any()))
+                .willReturn(1);
+        given(transactionIdGenerator.generate())
+                .willReturn("0DK2RZQ4M8000");
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
         given(transactionRepository.save(any()))
@@ -84,9 +124,11 @@ class TransactionServiceTest {
         );
 
         // then
+        verify(accountRepository, times(1)).debitBalance(eq("1000000000"), eq(1L), eq(200L), eq(0L), any());
         verify(transactionRepository, times(1)).save(captor.capture());
         assertEquals(200L, captor.getValue().getAmount());
         assertEquals(9800L, captor.getValue().getBalanceSnapshot());
+        assertEquals("0DK2RZQ4M8000", captor.getValue().getTransactionId());
         assertEquals(S, transactionDto.getTransactionResultType());
         assertEquals(USE, transactionDto.getTransactionType());
         assertEquals(9000L, transactionDto.getBalanceSnapshot());
@@ -99,8 +141,10 @@ class TransactionServiceTest {
     void useBalance_UserNotFound() {
         //given
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 12L, IN_USE)));
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(false);
 
         // when
         AccountException accountException = assertThrows(AccountException.class,
@@ -118,8 +162,8 @@ class TransactionServiceTest {
         AccountUser user = AccountUser.builder()
                 .name("Pobi").build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.empty());
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.empty());
         // when
@@ -145,8 +189,10 @@ class TransactionServiceTest {
         AccountUser pobi = AccountUser.builder()
                 .name("Pobi").build();
         pobi.setId(13L);
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(loopy));
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 13L, IN_USE)));
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(true);
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
                         .accountUser(pobi)
@@ -175,8 +221,8 @@ class TransactionServiceTest {
                 .name("Loopy").build();
         loopy.setId(12L);
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(loopy));
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 1L, AccountStatus.UNREGISTERED)));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
                         .accountUser(loopy)
@@ -211,8 +257,8 @@ class TransactionServiceTest {
                 .balance(100L)
                 .accountNumber("1000000002").build();
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 1L, IN_USE)));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
 
@@ -229,45 +275,7 @@ class TransactionServiceTest {
         );
         assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
         verify(transactionRepository, times(0)).save(any());
-    }
-
-    @Test
-    @DisplayName("실패 트랜잭션 저장 성공")
-    void saveFailedUseTransaction() {
-        //given
-        AccountUser user = AccountUser.builder()
-                .name("Pobi").build();
-        user.setId(12L);
-        Account account = Account.builder()
-                .accountUser(user)
-                .accountStatus(IN_USE)
-                .balance(10000L)
-                .accountNumber("1000000002").build();
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
-        given(transactionRepository.save(any()))
-                .willReturn(Transaction.builder()
-                        .account(account)
-                        .transactionType(USE)
-                        .transactionResultType(S)
-                        .transactionId("transactionId")
-                        .transactedAt(LocalDateTime.now())
-                        .amount(1000L)
-                        .balanceSnapshot(9000L)
-                        .build()
-                );
-
-        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
-
-        // when
-        transactionService.saveFailedUseTransaction("1000000000", 200L);
-
-        // then
-        verify(transactionRepository, times(1)).save(captor.capture());
-        assertEquals(200L, captor.getValue().getAmount());
-        assertEquals(10000L, captor.getValue().getBalanceSnapshot());
-        assertEquals(F, captor.getValue().getTransactionResultType());
+        verify(accountUserRepository, times(0)).existsById(anyLong());
     }
 
     @Test
@@ -316,8 +324,11 @@ class TransactionServiceTest {
 
         // then
         verify(transactionRepository, times(1)).save(captor.capture());
+        verify(spendLimitService, times(1))
+                .refundAfterCommit(eq("1000000002"), eq(12L), eq(1000L), any());
         assertEquals(1000L, captor.getValue().getAmount());
         assertEquals(10000L + 1000L, captor.getValue().getBalanceSnapshot());
+        assertEquals("transactionId", captor.getValue().getLinkedTransactionId());
         assertEquals(S, transactionDto.getTransactionResultType());
         assertEquals(CANCEL, transactionDto.getTransactionType());
         assertEquals(10000L, transactionDto.getBalanceSnapshot());
@@ -548,4 +559,771 @@ class TransactionServiceTest {
         // then
         assertEquals(TRANSACTION_NOT_FOUND, exception.getErrorCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("만료된 펜싱 토큰 - 잔액 사용 실패")
+    void useBalance_StaleFencingToken() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountRepository.advanceFencingToken(anyString(), anyLong()))
+                .willReturn(0);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        AccountLockContext.setFencingToken("1000000012", 3L);
+        // when
+        AccountException exception;
+        try {
+            exception = assertThrows(
+                    AccountException.class,
+                    () -> transactionService.useBalance(
+                            1L,
+                            "1000000012",
+                            1000L
+                    )
+            );
+        } finally {
+            AccountLockContext.clear("1000000012");
+        }
+        // then
+        assertEquals(LOCK_LEASE_EXPIRED, exception.getErrorCode());
+        verify(accountRepository, times(0)).debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("잔액 차감 실패 후 다시 읽은 계좌가 정상 - 다른 거래와 경합")
+    void useBalance_ConcurrentlyChanged() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any()))
+                .willReturn(0);
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 1L, IN_USE)));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(IN_USE)
+                        .balance(10000L)
+                        .accountNumber("1000000012").build()));
+        // when
+        AccountException exception = assertThrows(
+                AccountException.class,
+                () -> transactionService.useBalance(1L, "1000000012", 1000L)
+        );
+        // then
+        assertEquals(ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("거래 금액이 너무 작으면 DB 를 조회하지 않고 실패")
+    void useBalance_AmountTooSmall() {
+        //given
+        // when
+        AccountException exception = assertThrows(
+                AccountException.class,
+                () -> transactionService.useBalance(1L, "1000000012", 10L)
+        );
+        // then
+        assertEquals(AMOUNT_MIN_OR_MAX, exception.getErrorCode());
+        verify(accountRepository, times(0)).debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("DB 락 백엔드 - 계좌 행을 잠그고 잔액 사용 취소")
+    void cancelBalance_RowLock() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId("transactionId")
+                .transactedAt(LocalDateTime.now())
+                .amount(1000L)
+                .balanceSnapshot(10000L)
+                .build();
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(transaction));
+        given(accountRepository.findByAccountNumberForUpdate(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        AccountLockContext.requireRowLock("1000000012");
+        // when
+        try {
+            transactionService.cancelBalance("transactionId", "1000000012", 1000L);
+        } finally {
+            AccountLockContext.clear("1000000012");
+        }
+        // then
+        assertEquals(11000L, account.getBalance());
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
+    }
+
+    @Test
+    @DisplayName("슬롯으로 나뉜 계좌는 슬롯에서 차감하고 슬롯 합계를 잔액으로 기록")
+    void useBalance_Slotted() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(0L)
+                .slotCount(4)
+                .accountNumber("1000000012").build();
+        given(concurrencyModeResolver.isSlotted(anyString()))
+                .willReturn(true);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountSlotService.debit(any(), anyLong()))
+                .willReturn(true);
+        given(accountSlotService.getBalance(any()))
+                .willReturn(9000L);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        // when
+        transactionService.useBalance(12L, "1000000012", 1000L);
+        // then
+        verify(transactionRepository, times(1)).save(captor.capture());
+        assertEquals(9000L, captor.getValue().getBalanceSnapshot());
+        verify(accountRepository, times(0)).debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("슬롯 합계로도 부족하면 잔액 부족으로 실패")
+    void useBalance_SlottedExceedBalance() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(0L)
+                .slotCount(4)
+                .accountNumber("1000000012").build();
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any()))
+                .willReturn(0);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountSlotService.debit(any(), anyLong()))
+                .willReturn(false);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000012", 1000L));
+        // then
+        assertEquals(AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(concurrencyModeResolver, times(1)).markSlotted("1000000012");
+    }
+
+    @Test
+    @DisplayName("승인 - 홀드를 뺀 사용 가능 잔액보다 크면 실패")
+    void authorizeBalance_ExceedAvailableBalance() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 12L, IN_USE)));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(reservationLedger.getHeldAmount(anyString()))
+                .willReturn(9500L);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.authorizeBalance(12L, "1000000012", 1000L));
+        // then
+        assertEquals(AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(reservationLedger, times(0)).reserve(anyString(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("확정 - 홀드를 꺼내고 자기 홀드를 뺀 나머지 홀드만 제외하고 차감한다")
+    void captureHold() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(9000L)
+                .accountNumber("1000000012").build();
+        given(reservationLedger.get("holdId"))
+                .willReturn(Optional.of(new ReservationLedger.Hold(
+                        "holdId", "1000000012", 12L, 1000L, System.currentTimeMillis())));
+        given(reservationLedger.claim(any()))
+                .willReturn(OptionalLong.of(2000L));
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any()))
+                .willReturn(1);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        // when
+        TransactionDto transactionDto = transactionService.captureHold("holdId", 12L, "1000000012");
+        // then
+        verify(accountRepository, times(1)).debitBalance(
+                eq("1000000012"), eq(12L), eq(1000L), eq(2000L), any());
+        verify(reservationLedger, times(0)).release(anyString());
+        assertEquals(1000L, transactionDto.getAmount());
+        assertEquals(USE, transactionDto.getTransactionType());
+    }
+
+    @Test
+    @DisplayName("확정 - 다른 계좌의 홀드는 찾을 수 없음")
+    void captureHold_AccountUnMatch() {
+        //given
+        given(reservationLedger.get("holdId"))
+                .willReturn(Optional.of(new ReservationLedger.Hold(
+                        "holdId", "1000000012", 12L, 1000L, System.currentTimeMillis())));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.captureHold("holdId", 12L, "1000000099"));
+        // then
+        assertEquals(HOLD_NOT_FOUND, exception.getErrorCode());
+        verify(reservationLedger, times(0)).release(anyString());
+    }
+
+    @Test
+    @DisplayName("확정 - 승인한 사용자가 아니면 차감하지 않고 실패")
+    void captureHold_UserUnMatch() {
+        //given
+        given(reservationLedger.get("holdId"))
+                .willReturn(Optional.of(new ReservationLedger.Hold(
+                        "holdId", "1000000012", 12L, 1000L, System.currentTimeMillis())));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.captureHold("holdId", 13L, "1000000012"));
+        // then
+        assertEquals(USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
+        verify(accountRepository, times(0)).debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any());
+        verify(reservationLedger, times(0)).claim(any());
+    }
+
+    @Test
+    @DisplayName("확정 - 이미 다른 확정이 꺼낸 홀드면 차감하지 않고 실패")
+    void captureHold_AlreadyClaimed() {
+        //given
+        given(reservationLedger.get("holdId"))
+                .willReturn(Optional.of(new ReservationLedger.Hold(
+                        "holdId", "1000000012", 12L, 1000L, System.currentTimeMillis())));
+        given(reservationLedger.claim(any()))
+                .willReturn(OptionalLong.empty());
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.captureHold("holdId", 12L, "1000000012"));
+        // then
+        assertEquals(HOLD_NOT_FOUND, exception.getErrorCode());
+        verify(accountRepository, times(0)).debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("승인 취소 - 승인한 사용자가 아니면 홀드를 풀지 않는다")
+    void voidHold_UserUnMatch() {
+        //given
+        given(reservationLedger.get("holdId"))
+                .willReturn(Optional.of(new ReservationLedger.Hold(
+                        "holdId", "1000000012", 12L, 1000L, System.currentTimeMillis())));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.voidHold("holdId", 13L, "1000000012"));
+        // then
+        assertEquals(USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
+        verify(reservationLedger, times(0)).release(anyString());
+    }
+
+    @Test
+    @DisplayName("원장 모드 - 계좌 행을 바꾸지 않고 원장을 추가")
+    void useBalance_Ledger() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(ledgerService.isEnabled())
+                .willReturn(true);
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 12L, IN_USE)));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(ledgerService.current(any()))
+                .willReturn(new LedgerService.Position(5L, 3000L));
+        given(transactionIdGenerator.generate())
+                .willReturn("0DK2RZQ4M8000");
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        // when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", 1000L);
+        // then
+        assertEquals(2000L, transactionDto.getBalanceSnapshot());
+        assertEquals(10000L, account.getBalance());
+        verify(ledgerService, times(1)).append(eq(account), any(), eq(-1000L), eq("0DK2RZQ4M8000"));
+        verify(accountRepository, times(0)).debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("원장 모드 - 원장을 접은 잔액보다 크면 실패")
+    void useBalance_LedgerExceedBalance() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(ledgerService.isEnabled())
+                .willReturn(true);
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 12L, IN_USE)));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(ledgerService.current(any()))
+                .willReturn(new LedgerService.Position(5L, 500L));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000012", 1000L));
+        // then
+        assertEquals(AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(ledgerService, times(0)).append(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("배치 - 실패한 항목은 실패 거래로 남기고 다음 항목 계속 처리")
+    void useBalanceBatch_RecordFailedItem() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(500L)
+                .accountNumber("1000000012").build();
+        given(accountRepository.debitBalance(anyString(), anyLong(), eq(200L), anyLong(), any()))
+                .willReturn(1);
+        given(accountRepository.debitBalance(anyString(), anyLong(), eq(900L), anyLong(), any()))
+                .willReturn(0);
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 12L, IN_USE)));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        // when
+        List<TransactionDto> results = transactionService.useBalanceBatch("1000000012", List.of(
+                new UseBalance.Request(12L, "1000000012", 200L),
+                new UseBalance.Request(12L, "1000000012", 900L),
+                new UseBalance.Request(12L, "1000000012", 200L)
+        ));
+        // then
+        assertEquals(3, results.size());
+        assertEquals(S, results.get(0).getTransactionResultType());
+        assertEquals(F, results.get(1).getTransactionResultType());
+        assertEquals(AMOUNT_EXCEED_BALANCE, results.get(1).getErrorCode());
+        assertEquals(S, results.get(2).getTransactionResultType());
+        verify(transactionRepository, times(3)).save(any());
+    }
+
+    @Test
+    @DisplayName("배치 - 원장 seq 충돌은 항목 실패로 남기지 않고 배치 전체를 던진다")
+    void useBalanceBatch_LedgerConflict() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(ledgerService.isEnabled())
+                .willReturn(true);
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 12L, IN_USE)));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(ledgerService.current(any()))
+                .willReturn(new LedgerService.Position(5L, 3000L));
+        given(transactionIdGenerator.generate())
+                .willReturn("0DK2RZQ4M8000");
+        given(ledgerService.append(any(), any(), anyLong(), any()))
+                .willReturn(2000L)
+                .willThrow(new OptimisticLockingFailureException("Ledger seq 6 already written"));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        // when
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> transactionService.useBalanceBatch("1000000012", List.of(
+                        new UseBalance.Request(12L, "1000000012", 1000L),
+                        new UseBalance.Request(12L, "1000000012", 1000L),
+                        new UseBalance.Request(12L, "1000000012", 1000L)
+                )));
+        // then
+        verify(ledgerService, times(2)).append(any(), any(), anyLong(), any());
+        verify(transactionRepository, times(2)).save(any());
+    }
+
+    @Test
+    @DisplayName("모아둔 실패 거래를 한 번에 저장, 없는 계좌는 건너뛴다")
+    void saveFailedTransactions() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(List.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(IN_USE)
+                        .balance(10000L)
+                        .accountNumber("1000000012").build()));
+        LocalDateTime failedAt = LocalDateTime.now().minusSeconds(1);
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        transactionService.saveFailedTransactions(List.of(
+                new FailedTransactionRecord(USE, "1000000012", 1000L, failedAt),
+                new FailedTransactionRecord(CANCEL, "1000000012", 2000L, failedAt),
+                new FailedTransactionRecord(USE, "9999999999", 3000L, failedAt)
+        ));
+        // then
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        List<Transaction> transactions = captor.getValue();
+        assertEquals(2, transactions.size());
+        assertEquals(F, transactions.get(0).getTransactionResultType());
+        assertEquals(10000L, transactions.get(0).getBalanceSnapshot());
+        assertEquals(failedAt, transactions.get(0).getTransactedAt());
+        assertEquals(CANCEL, transactions.get(1).getTransactionType());
+        verify(dailyRollupService, times(1)).recordAll(transactions);
+    }
+
+    @Test
+    @DisplayName("이체 - 보낸 계좌 차감과 받은 계좌 입금을 서로 연결된 거래로 기록")
+    void successTransferBalance() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        AccountUser receiver = AccountUser.builder()
+                .name("Crong").build();
+        receiver.setId(13L);
+        Account from = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(9000L)
+                .accountNumber("1000000000").build();
+        Account to = Account.builder()
+                .accountUser(receiver)
+                .accountStatus(IN_USE)
+                .balance(5000L)
+                .accountNumber("1000000001").build();
+        Account credited = Account.builder()
+                .accountUser(receiver)
+                .accountStatus(IN_USE)
+                .balance(6000L)
+                .accountNumber("1000000001").build();
+
+        given(transactionIdGenerator.generate())
+                .willReturn("0DK2RZQ4M8001", "0DK2RZQ4M8000");
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any()))
+                .willReturn(1);
+        given(accountRepository.creditBalance(anyString(), anyLong(), any()))
+                .willReturn(1);
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(from));
+        given(accountRepository.findByAccountNumber("1000000001"))
+                .willReturn(Optional.of(to), Optional.of(credited));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        // when
+        TransactionDto transactionDto = transactionService.transferBalance(
+                12L, "1000000000", "1000000001", 1000L
+        );
+
+        // then
+        verify(accountRepository, times(1)).debitBalance(eq("1000000000"), eq(12L), eq(1000L), eq(0L), any());
+        verify(accountRepository, times(1)).creditBalance(eq("1000000001"), eq(1000L), any());
+        verify(transactionRepository, times(2)).save(captor.capture());
+        Transaction withdrawal = captor.getAllValues().get(0);
+        Transaction deposit = captor.getAllValues().get(1);
+        assertEquals(TRANSFER_OUT, withdrawal.getTransactionType());
+        assertEquals("0DK2RZQ4M8000", withdrawal.getTransactionId());
+        assertEquals("0DK2RZQ4M8001", withdrawal.getLinkedTransactionId());
+        assertEquals(TRANSFER_IN, deposit.getTransactionType());
+        assertEquals("0DK2RZQ4M8001", deposit.getTransactionId());
+        assertEquals("0DK2RZQ4M8000", deposit.getLinkedTransactionId());
+        assertEquals(6000L, deposit.getBalanceSnapshot());
+        assertEquals(5000L, to.getBalance());
+        verify(dailyRollupService, times(1)).record(withdrawal);
+        verify(dailyRollupService, times(1)).record(deposit);
+        assertEquals(TRANSFER_OUT, transactionDto.getTransactionType());
+        assertEquals("0DK2RZQ4M8001", transactionDto.getLinkedTransactionId());
+    }
+
+    @Test
+    @DisplayName("이체 실패 - 입금 직전에 받는 계좌가 해지됨")
+    void transferBalance_ReceiverUnregistered() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        AccountUser receiver = AccountUser.builder()
+                .name("Crong").build();
+        receiver.setId(13L);
+        Account from = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(9000L)
+                .accountNumber("1000000000").build();
+        Account to = Account.builder()
+                .accountUser(receiver)
+                .accountStatus(IN_USE)
+                .balance(5000L)
+                .accountNumber("1000000001").build();
+
+        given(transactionIdGenerator.generate())
+                .willReturn("0DK2RZQ4M8001", "0DK2RZQ4M8000");
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any()))
+                .willReturn(1);
+        given(accountRepository.creditBalance(anyString(), anyLong(), any()))
+                .willReturn(0);
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(from));
+        given(accountRepository.findByAccountNumber("1000000001"))
+                .willReturn(Optional.of(to));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(12L, "1000000000", "1000000001", 1000L));
+
+        // then
+        assertEquals(ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
+        verify(transactionRepository, times(1)).save(any());
+    }
+
+    @Test
+    @DisplayName("같은 계좌로 이체 - DB 를 조회하지 않고 실패")
+    void transferBalance_SameAccount() {
+        //given
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(12L, "1000000000", "1000000000", 1000L));
+
+        // then
+        assertEquals(TRANSFER_TO_SAME_ACCOUNT, exception.getErrorCode());
+        verify(accountRepository, times(0)).debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("이체 거래는 사용 취소 불가")
+    void cancelTransaction_TransferNotCancelable() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(9000L)
+                .accountNumber("1000000000").build();
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .transactionType(TRANSFER_OUT)
+                .transactionResultType(S)
+                .transactionId("transactionId")
+                .linkedTransactionId("linkedTransactionId")
+                .transactedAt(LocalDateTime.now())
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .build();
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(transaction));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("transactionId", "1000000000", 1000L));
+
+        // then
+        assertEquals(TRANSACTION_NOT_CANCELABLE, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("기간별 사용 한도 초과 - 잔액을 차감하지 않고 실패")
+    void useBalance_SpendLimitExceeded() {
+        //given
+        given(spendLimitService.consume(anyString(), anyLong(), anyLong()))
+                .willThrow(new AccountException(SPEND_LIMIT_EXCEEDED));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(1L, "1000000000", 1000L));
+
+        // then
+        assertEquals(SPEND_LIMIT_EXCEEDED, exception.getErrorCode());
+        verify(accountRepository, times(0)).debitBalance(anyString(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("잔액 사용이 실패하면 기록한 사용 한도를 되돌린다")
+    void useBalance_RefundSpendOnFailure() {
+        //given
+        given(spendLimitService.consume(anyString(), anyLong(), anyLong()))
+                .willReturn(1000L);
+        given(accountMetadataCache.get(anyString()))
+                .willReturn(Optional.of(new AccountMetadata(1L, 12L, IN_USE)));
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(false);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(1L, "1000000000", 1000L));
+
+        // then
+        assertEquals(USER_NOT_FOUND, exception.getErrorCode());
+        verify(spendLimitService, times(1)).refund("1000000000", 1L, 1000L, 1000L);
+        verify(spendLimitService, times(0)).refundOnRollback(anyString(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 한 건 더 읽어 다음 페이지가 있으면 마지막 거래로 커서를 만든다")
+    void getTransactionHistory_FirstPage() {
+        //given
+        LocalDateTime transactedAt = LocalDateTime.of(2022, 6, 1, 23, 26, 14);
+        given(accountRepository.findIdByAccountNumber("1000000000"))
+                .willReturn(Optional.of(7L));
+        given(transactionRepository.findHistory(eq(7L), any()))
+                .willReturn(List.of(
+                        historyRow(30L, "tx30", transactedAt.plusSeconds(2)),
+                        historyRow(20L, "tx20", transactedAt.plusSeconds(1)),
+                        historyRow(10L, "tx10", transactedAt)
+                ));
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+
+        // when
+        TransactionHistory.Response response = transactionService.getTransactionHistory(
+                "1000000000", null, 2);
+
+        // then
+        verify(transactionRepository, times(1)).findHistory(eq(7L), captor.capture());
+        assertEquals(3, captor.getValue().getPageSize());
+        assertEquals(2, response.getTransactions().size());
+        assertEquals("tx30", response.getTransactions().get(0).getTransactionId());
+        assertEquals("tx20", response.getTransactions().get(1).getTransactionId());
+        TransactionHistory.Cursor cursor = TransactionHistory.Cursor.decode(response.getNextCursor());
+        assertEquals(20L, cursor.getId());
+        assertEquals(transactedAt.plusSeconds(1), cursor.getTransactedAt());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 커서가 있으면 커서 이전 거래부터, 마지막 페이지는 커서 없음")
+    void getTransactionHistory_NextPage() {
+        //given
+        LocalDateTime transactedAt = LocalDateTime.of(2022, 6, 1, 23, 26, 14, 671859000);
+        String cursor = new TransactionHistory.Cursor(transactedAt, 20L).encode();
+        given(accountRepository.findIdByAccountNumber("1000000000"))
+                .willReturn(Optional.of(7L));
+        given(transactionRepository.findHistoryBefore(eq(7L), eq(transactedAt), eq(20L), any()))
+                .willReturn(List.of(historyRow(10L, "tx10", transactedAt)));
+
+        // when
+        TransactionHistory.Response response = transactionService.getTransactionHistory(
+                "1000000000", cursor, 2);
+
+        // then
+        assertEquals(1, response.getTransactions().size());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 잘못된 커서는 DB 를 조회하지 않고 실패")
+    void getTransactionHistory_InvalidCursor() {
+        //given
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory("1000000000", "not-a-cursor", 20));
+
+        // then
+        assertEquals(INVALID_REQUEST, exception.getErrorCode());
+        verify(accountRepository, times(0)).findIdByAccountNumber(anyString());
+    }
+
+    private static TransactionHistoryRow historyRow(Long id, String transactionId, LocalDateTime transactedAt) {
+        return new TransactionHistoryRow() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public TransactionType getTransactionType() {
+                return USE;
+            }
+
+            @Override
+            public TransactionResultType getTransactionResultType() {
+                return S;
+            }
+
+            @Override
+            public String getTransactionId() {
+                return transactionId;
+            }
+
+            @Override
+            public String getLinkedTransactionId() {
+                return null;
+            }
+
+            @Override
+            public Long getAmount() {
+                return 1000L;
+            }
+
+            @Override
+            public Long getBalanceSnapshot() {
+                return 9000L;
+            }
+
+            @Override
+            public LocalDateTime getTransactedAt() {
+                return transactedAt;
+            }
+        };
+    }
+}
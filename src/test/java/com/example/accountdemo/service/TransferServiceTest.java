@@ -0,0 +1,94 @@
+package com.example.accountdemo.service;
+
+import com.example.accountdemo.dto.TransactionDto;
+import com.example.accountdemo.exception.AccountException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.example.accountdemo.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static com.example.accountdemo.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static com.example.accountdemo.type.TransactionResultType.S;
+import static com.example.accountdemo.type.TransactionType.TRANSFER_OUT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransferServiceTest {
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @InjectMocks
+    private TransferService transferService;
+
+    @Test
+    @DisplayName("두 계좌 락을 함께 잡고 이체한 뒤 함께 푼다")
+    void lockBothAccounts() {
+        //given
+        given(transactionService.transferBalance(12L, "1000000000", "1000000001", 1000L))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionType(TRANSFER_OUT)
+                        .transactionResultType(S)
+                        .transactionId("0DK2RZQ4M8000")
+                        .linkedTransactionId("0DK2RZQ4M8001")
+                        .amount(1000L)
+                        .build());
+        // when
+        TransactionDto result = transferService.transferBalance(
+                12L, "1000000000", "1000000001", 1000L);
+        // then
+        InOrder inOrder = inOrder(lockService, transactionService);
+        inOrder.verify(lockService).lockAll(eq(List.of("1000000000", "1000000001")), any());
+        inOrder.verify(transactionService).transferBalance(12L, "1000000000", "1000000001", 1000L);
+        inOrder.verify(lockService).unlockAll(eq(List.of("1000000000", "1000000001")), any());
+        assertEquals("0DK2RZQ4M8001", result.getLinkedTransactionId());
+    }
+
+    @Test
+    @DisplayName("이체가 실패해도 락은 푼다")
+    void unlockWhenTransferFailed() {
+        //given
+        willThrow(new AccountException(AMOUNT_EXCEED_BALANCE))
+                .given(transactionService).transferBalance(anyLong(), anyString(), anyString(), anyLong());
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transferService.transferBalance(12L, "1000000000", "1000000001", 1000L));
+        // then
+        assertEquals(AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(lockService, times(1)).unlockAll(any(), any());
+    }
+
+    @Test
+    @DisplayName("락을 잡지 못하면 이체하지 않는다")
+    void failLock() {
+        //given
+        willThrow(new AccountException(ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lockAll(any(), any());
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transferService.transferBalance(12L, "1000000000", "1000000001", 1000L));
+        // then
+        assertEquals(ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(transactionService, never()).transferBalance(anyLong(), anyString(), anyString(), anyLong());
+        verify(lockService, never()).unlockAll(any(), any());
+    }
+}
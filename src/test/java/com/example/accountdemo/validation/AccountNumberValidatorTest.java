@@ -0,0 +1,23 @@
+package com.example.accountdemo.validation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountNumberValidatorTest {
+    @Test
+    @DisplayName("10자리 숫자이고 마지막 자리가 Luhn 검증 숫자인 계좌번호만 통과한다")
+    void validateAccountNumber() {
+        assertTrue(AccountNumberValidator.isValid("1000000008"));
+        assertTrue(AccountNumberValidator.isValid("1234567897"));
+        // 검증 숫자 불일치, 인접 자리 뒤바뀜
+        assertFalse(AccountNumberValidator.isValid("1234567890"));
+        assertFalse(AccountNumberValidator.isValid("1234567987"));
+        // 길이, 첫 자리 0, 숫자 아닌 문자
+        assertFalse(AccountNumberValidator.isValid("100000008"));
+        assertFalse(AccountNumberValidator.isValid("0000000000"));
+        assertFalse(AccountNumberValidator.isValid("10000000a8"));
+        assertFalse(AccountNumberValidator.isValid(null));
+    }
+}